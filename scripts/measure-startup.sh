@@ -0,0 +1,60 @@
+#!/usr/bin/env bash
+# Time to first response and resident memory of the fat jar, the AOT + AppCDS build and the native image.
+#
+#   mvn package && mvn -Pcds package     # fat jar, target/application
+#   mvn -Pnative native:compile          # optional, target/energy-mix-gb-backend
+#   scripts/measure-startup.sh [runs]
+#
+# Each variant is started on a free port with the store and the prefetch disabled, so no upstream call is made,
+# and /actuator/health/readiness is polled until it answers 200. RSS is read from /proc after that first response.
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+LOG_DIR=$PWD/target
+JAR=$(ls target/energy-mix-gb-backend-*.jar 2>/dev/null | grep -v plain | head -1 || true)
+APP_ARGS=(--server.port="$PORT" --energy.store.enabled=false --energy.prefetch.enabled=false)
+
+measure() {
+    local name=$1
+    shift
+
+    for run in $(seq "$RUNS"); do
+        local started pid elapsed rss
+        started=$(date +%s%N)
+        "$@" "${APP_ARGS[@]}" > "$LOG_DIR/startup-$name.log" 2>&1 &
+        pid=$!
+
+        until curl -sf -o /dev/null "http://127.0.0.1:$PORT/actuator/health/readiness"; do
+            if ! kill -0 "$pid" 2>/dev/null; then
+                echo "$name exited, see $LOG_DIR/startup-$name.log" >&2
+                return 1
+            fi
+            sleep 0.01
+        done
+
+        elapsed=$(( ($(date +%s%N) - started) / 1000000 ))
+        rss=$(awk '/VmRSS/ {print $2}' "/proc/$pid/status")
+
+        kill "$pid"
+        wait "$pid" 2>/dev/null || true
+
+        printf '%-8s run %d: first response %5d ms, RSS %4d MB\n' "$name" "$run" "$elapsed" $((rss / 1024))
+    done
+}
+
+if [[ -n "$JAR" ]]; then
+    measure jar java -jar "$JAR"
+fi
+
+if [[ -f target/application/application.jsa ]]; then
+    (cd target/application && measure cds java -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true \
+        -jar "$(basename "$JAR")")
+fi
+
+if [[ -x target/energy-mix-gb-backend ]]; then
+    measure native target/energy-mix-gb-backend
+fi
@@ -0,0 +1,85 @@
+package com.jerzymaj.energymixgbbackend.benchmark;
+
+import com.jerzymaj.energymixgbbackend.DTOs.EnergyDistribution;
+import com.jerzymaj.energymixgbbackend.analytics.AnalyticsGrouping;
+import com.jerzymaj.energymixgbbackend.analytics.IntervalAnalytics;
+import com.jerzymaj.energymixgbbackend.cache.HalfHourSlots;
+import com.jerzymaj.energymixgbbackend.columnar.FuelDictionary;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+import com.jerzymaj.energymixgbbackend.service.DailyAccumulator;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hour of day percentiles of the clean energy share over a month and a year of recorded intervals, starting
+ * mid-month so both ends of the range are partial months. The histogram query is compared with sorting the
+ * raw values of every hour, which is what a query without the buckets would have to do.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalyticsBenchmark {
+
+    private static final LocalDate FROM = LocalDate.of(2025, 1, 10);
+
+    @Param({"31", "365"})
+    private int days;
+
+    private LocalDate to;
+    private IntervalAnalytics intervalAnalytics;
+    private double[] cleanEnergy;
+    private int[] hours;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        to = FROM.plusDays(days - 1);
+        long from = DailyAccumulator.startOfLondonDay(FROM);
+        int intervals = (int) ((DailyAccumulator.startOfLondonDay(to.plusDays(1)) - from) / HalfHourSlots.SLOT_SECONDS);
+
+        cleanEnergy = SyntheticGenerationData.cleanEnergySeries(intervals);
+        hours = new int[intervals];
+
+        IntervalColumns.Builder builder = IntervalColumns.builder(intervals);
+        for (int row = 0; row < intervals; row++) {
+            long start = from + row * HalfHourSlots.SLOT_SECONDS;
+
+            builder.addPercent(builder.addInterval(start), FuelDictionary.indexOf("wind"), cleanEnergy[row]);
+            hours[row] = Instant.ofEpochSecond(start).atZone(DailyAccumulator.LONDON).getHour();
+        }
+
+        intervalAnalytics = new IntervalAnalytics(List.of("wind"), 24);
+        intervalAnalytics.record(builder.build(), Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<EnergyDistribution> histogramsByHour() {
+        return intervalAnalytics.distribution(FROM, to, AnalyticsGrouping.HOUR,
+                IntervalAnalytics.metricOf(IntervalAnalytics.CLEAN_METRIC));
+    }
+
+    @Benchmark
+    public double[] sortRawValuesByHour() {
+        double[][] groups = new double[24][cleanEnergy.length];
+        int[] sizes = new int[24];
+
+        for (int row = 0; row < cleanEnergy.length; row++) {
+            groups[hours[row]][sizes[hours[row]]++] = cleanEnergy[row];
+        }
+
+        double[] medians = new double[24];
+        for (int hour = 0; hour < 24; hour++) {
+            double[] sorted = Arrays.copyOf(groups[hour], sizes[hour]);
+            Arrays.sort(sorted);
+            medians[hour] = sorted[sorted.length / 2];
+        }
+        return medians;
+    }
+}
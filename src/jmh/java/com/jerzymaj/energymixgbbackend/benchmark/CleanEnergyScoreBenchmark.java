@@ -0,0 +1,60 @@
+package com.jerzymaj.energymixgbbackend.benchmark;
+
+import com.jerzymaj.energymixgbbackend.cache.HalfHourSlots;
+import com.jerzymaj.energymixgbbackend.columnar.FuelDictionary;
+import com.jerzymaj.energymixgbbackend.columnar.FuelWeights;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-interval clean energy score: the default fuel mask against a weighted request definition
+ * scored over the same columns.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CleanEnergyScoreBenchmark {
+
+    @Param({"144", "17520"})
+    private int intervals;
+
+    private IntervalColumns columns;
+    private long cleanEnergyMask;
+    private FuelWeights weights;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(intervals);
+        IntervalColumns.Builder builder = IntervalColumns.builder(intervals);
+        long start = SyntheticGenerationData.NOW.getEpochSecond();
+
+        for (int i = 0; i < intervals; i++) {
+            int row = builder.addInterval(start + i * HalfHourSlots.SLOT_SECONDS);
+
+            for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+                builder.addPercent(row, fuel, random.nextDouble() * 100 / FuelDictionary.SIZE);
+            }
+        }
+
+        columns = builder.build();
+        cleanEnergyMask = FuelDictionary.maskOf(SyntheticGenerationData.CLEAN_TYPES);
+        weights = FuelWeights.parse(List.of("wind:1", "solar:1", "hydro:1", "nuclear:0.5", "biomass:0.3"));
+    }
+
+    @Benchmark
+    public double[] sumPercents() {
+        return columns.sumPercents(cleanEnergyMask);
+    }
+
+    @Benchmark
+    public double[] weightedSum() {
+        return columns.weightedSum(weights);
+    }
+}
@@ -0,0 +1,54 @@
+package com.jerzymaj.energymixgbbackend.benchmark;
+
+import com.jerzymaj.energymixgbbackend.DTOs.EnergyResponse;
+import com.jerzymaj.energymixgbbackend.columnar.GenerationStreamDecoder;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode of the {@code /generation} payload: Jackson binding to {@link EnergyResponse} (the fallback path)
+ * against the streaming decoder. Run with {@code -prof gc} to compare allocation per operation,
+ * divide by {@code intervals} for the per-interval cost.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerationDecodeBenchmark {
+
+    @Param({"96", "1488", "17520"})
+    private int intervals;
+
+    private byte[] payload;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    private final GenerationStreamDecoder decoder = new GenerationStreamDecoder();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        payload = SyntheticGenerationData.payload(intervals);
+    }
+
+    @Benchmark
+    public EnergyResponse bindEnergyResponse() {
+        return objectMapper.readValue(payload, EnergyResponse.class);
+    }
+
+    @Benchmark
+    public IntervalColumns bindEnergyResponseToColumns() {
+        return IntervalColumns.fromIntervals(objectMapper.readValue(payload, EnergyResponse.class).data());
+    }
+
+    @Benchmark
+    public IntervalColumns streamToColumns() {
+        return decoder.decode(new ByteArrayInputStream(payload));
+    }
+}
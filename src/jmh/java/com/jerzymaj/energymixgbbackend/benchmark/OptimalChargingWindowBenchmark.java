@@ -0,0 +1,61 @@
+package com.jerzymaj.energymixgbbackend.benchmark;
+
+import com.jerzymaj.energymixgbbackend.DTOs.ChargingWindowCurvePoint;
+import com.jerzymaj.energymixgbbackend.DTOs.OptimalChargingWindow;
+import com.jerzymaj.energymixgbbackend.service.ChargingWindowEngine;
+import com.jerzymaj.energymixgbbackend.service.EnergyMixService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Charging window search from 48 hours (96 intervals) up to a year (17520 intervals) of data.
+ * The engine benchmarks include building the prefix sums, the service benchmarks run the
+ * whole request path over the stubbed upstream with a warm cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OptimalChargingWindowBenchmark {
+
+    @Param({"96", "1488", "17520"})
+    private int intervals;
+
+    @Param({"1", "4", "12", "24"})
+    private int windowLength;
+
+    private double[] cleanEnergySeries;
+
+    private EnergyMixService energyMixService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cleanEnergySeries = SyntheticGenerationData.cleanEnergySeries(intervals);
+        energyMixService = SyntheticGenerationData.service(true);
+        energyMixService.calculateOptimalChargingWindow(1);
+    }
+
+    @Benchmark
+    public int engineBestWindow() {
+        return new ChargingWindowEngine(cleanEnergySeries).findBestStart(windowLength * 2);
+    }
+
+    @Benchmark
+    public int[] engineCurveOneToTwentyFourHours() {
+        return new ChargingWindowEngine(cleanEnergySeries).findBestStarts(2, 48);
+    }
+
+    @Benchmark
+    public OptimalChargingWindow serviceBestWindow() {
+        return energyMixService.calculateOptimalChargingWindow(windowLength);
+    }
+
+    @Benchmark
+    public List<ChargingWindowCurvePoint> serviceCurveOneToTwentyFourHours() {
+        return energyMixService.calculateOptimalChargingWindows(1, 24);
+    }
+}
@@ -0,0 +1,73 @@
+package com.jerzymaj.energymixgbbackend.benchmark;
+
+import com.jerzymaj.energymixgbbackend.DTOs.DailyEnergySummary;
+import com.jerzymaj.energymixgbbackend.DTOs.EnergyResponse;
+import com.jerzymaj.energymixgbbackend.cache.ResponseFormat;
+import com.jerzymaj.energymixgbbackend.service.EnergyMixService;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialization of the three-days summary and of three days of intervals in each {@link ResponseFormat}.
+ * The plain and gzip payload sizes are printed once per trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseFormatBenchmark {
+
+    @Param({"JSON", "CBOR", "SMILE"})
+    private ResponseFormat format;
+
+    private ObjectMapper mapper;
+    private List<DailyEnergySummary> summary;
+    private EnergyResponse intervals;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mapper = switch (format) {
+            case JSON -> JsonMapper.builder().build();
+            case CBOR -> CBORMapper.builder().build();
+            case SMILE -> SmileMapper.builder().build();
+        };
+
+        EnergyMixService energyMixService = SyntheticGenerationData.service(true);
+        summary = energyMixService.calculateThreeDaysSummary();
+        intervals = energyMixService.getEnergyData("2025-12-14T00:00Z", "2025-12-17T00:00Z");
+
+        System.out.printf("%n%s summary: %d bytes, %d gzip; intervals: %d bytes, %d gzip%n", format,
+                serializeSummary().length, gzip(serializeSummary()).length,
+                serializeIntervals().length, gzip(serializeIntervals()).length);
+    }
+
+    @Benchmark
+    public byte[] serializeSummary() {
+        return mapper.writeValueAsBytes(summary);
+    }
+
+    @Benchmark
+    public byte[] serializeIntervals() {
+        return mapper.writeValueAsBytes(intervals);
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -0,0 +1,161 @@
+package com.jerzymaj.energymixgbbackend.benchmark;
+
+import com.jerzymaj.energymixgbbackend.analytics.IntervalAnalytics;
+import com.jerzymaj.energymixgbbackend.cache.ForecastCache;
+import com.jerzymaj.energymixgbbackend.cache.HalfHourSlots;
+import com.jerzymaj.energymixgbbackend.client.CarbonIntensityClient;
+import com.jerzymaj.energymixgbbackend.columnar.FuelDictionary;
+import com.jerzymaj.energymixgbbackend.columnar.GenerationStreamDecoder;
+import com.jerzymaj.energymixgbbackend.metrics.EnergyMetrics;
+import com.jerzymaj.energymixgbbackend.service.EnergyMixService;
+import com.jerzymaj.energymixgbbackend.store.GenerationRepository;
+import com.jerzymaj.energymixgbbackend.store.IntervalFileStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.client.RestClient;
+
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic generation mix in the Carbon Intensity API format and a
+ * {@link RestClient} stub serving it, so benchmarks exercise the real request path without network.
+ */
+public final class SyntheticGenerationData {
+
+    public static final Instant NOW = Instant.parse("2025-12-14T10:05:00Z");
+
+    public static final List<String> CLEAN_TYPES = List.of("biomass", "nuclear", "hydro", "wind", "solar");
+
+    private SyntheticGenerationData() {
+    }
+
+    /**
+     * Builds a {@code /generation} payload with one interval per half hour in [from, to).
+     */
+    public static byte[] payload(Instant from, Instant to) {
+        Random random = new Random(from.getEpochSecond());
+        StringBuilder json = new StringBuilder("{\"data\":[");
+
+        for (Instant slot = from; slot.isBefore(to); slot = slot.plusSeconds(HalfHourSlots.SLOT_SECONDS)) {
+            if (slot != from) {
+                json.append(',');
+            }
+
+            json.append("{\"from\":\"").append(HalfHourSlots.format(slot))
+                    .append("\",\"to\":\"").append(HalfHourSlots.format(slot.plusSeconds(HalfHourSlots.SLOT_SECONDS)))
+                    .append("\",\"generationmix\":[");
+
+            double[] shares = shares(random, slot);
+            for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+                if (fuel > 0) {
+                    json.append(',');
+                }
+                json.append("{\"fuel\":\"").append(FuelDictionary.nameOf(fuel))
+                        .append("\",\"perc\":").append(Math.round(shares[fuel] * 10) / 10.0).append('}');
+            }
+
+            json.append("]}");
+        }
+
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return payload with {@code intervals} half hours starting at {@link #NOW}'s day.
+     */
+    public static byte[] payload(int intervals) {
+        Instant from = NOW.truncatedTo(ChronoUnit.DAYS);
+
+        return payload(from, from.plusSeconds(intervals * HalfHourSlots.SLOT_SECONDS));
+    }
+
+    /**
+     * Clean energy percentage series with a daily solar cycle and random wind.
+     */
+    public static double[] cleanEnergySeries(int intervals) {
+        Random random = new Random(intervals);
+        double[] series = new double[intervals];
+
+        for (int i = 0; i < intervals; i++) {
+            double hour = (i % 48) / 2.0;
+            double solar = Math.max(0, Math.sin((hour - 6) / 12 * Math.PI)) * 15;
+            series[i] = 20 + solar + random.nextDouble() * 50;
+        }
+
+        return series;
+    }
+
+    /**
+     * RestClient whose requests are answered in-process with a synthetic payload for the requested range.
+     */
+    public static RestClient stubRestClient() {
+        return RestClient.builder()
+                .baseUrl("http://carbon-intensity.stub")
+                .requestFactory((uri, method) -> {
+                    MockClientHttpRequest request = new MockClientHttpRequest(method, uri);
+                    MockClientHttpResponse response = new MockClientHttpResponse(payloadFor(uri), HttpStatus.OK);
+                    response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                    request.setResponse(response);
+                    return request;
+                })
+                .build();
+    }
+
+    /**
+     * Service wired like in the application, backed by {@link #stubRestClient()} and a fixed clock.
+     */
+    public static EnergyMixService service(boolean streamingDecode) {
+        Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+        EnergyMetrics metrics = new EnergyMetrics(new SimpleMeterRegistry());
+        CarbonIntensityClient client = new CarbonIntensityClient(stubRestClient(), new GenerationStreamDecoder(),
+                streamingDecode, Duration.ZERO, 0, metrics);
+
+        GenerationRepository repository = new GenerationRepository(client, new IntervalFileStore(false, null),
+                new IntervalAnalytics(CLEAN_TYPES, 24), clock, Duration.ofHours(2), Duration.ofHours(6));
+
+        return new EnergyMixService(repository, forecastCache(clock), clock, CLEAN_TYPES, metrics);
+    }
+
+    public static ForecastCache forecastCache(Clock clock) {
+        return new ForecastCache(clock, 65_536, Duration.ofHours(48), Duration.ofMinutes(2),
+                Duration.ofHours(6), Duration.ofSeconds(30));
+    }
+
+    private static byte[] payloadFor(URI uri) {
+        String[] segments = URLDecoder.decode(uri.getRawPath(), StandardCharsets.UTF_8).split("/");
+
+        return payload(HalfHourSlots.parse(segments[2]), HalfHourSlots.parse(segments[3]));
+    }
+
+    private static double[] shares(Random random, Instant slot) {
+        double[] shares = new double[FuelDictionary.SIZE];
+        double hour = (slot.getEpochSecond() % 86_400) / 3_600.0;
+        double total = 0;
+
+        for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+            shares[fuel] = random.nextDouble() * 20;
+        }
+        shares[FuelDictionary.indexOf("solar")] = Math.max(0, Math.sin((hour - 6) / 12 * Math.PI)) * 15;
+
+        for (double share : shares) {
+            total += share;
+        }
+        for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+            shares[fuel] = shares[fuel] * 100 / total;
+        }
+
+        return shares;
+    }
+}
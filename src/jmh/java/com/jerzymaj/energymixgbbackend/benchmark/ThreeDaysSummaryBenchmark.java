@@ -0,0 +1,48 @@
+package com.jerzymaj.energymixgbbackend.benchmark;
+
+import com.jerzymaj.energymixgbbackend.DTOs.DailyEnergySummary;
+import com.jerzymaj.energymixgbbackend.service.EnergyMixService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code calculateThreeDaysSummary} grouping and averaging. With a warm cache the rolling aggregate is
+ * current and only reading the daily sums is measured, a cold cache adds the stubbed upstream call, decode
+ * and aggregating every interval.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThreeDaysSummaryBenchmark {
+
+    @Param({"true", "false"})
+    private boolean warmCache;
+
+    @Param({"true", "false"})
+    private boolean streamingDecode;
+
+    private EnergyMixService energyMixService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        energyMixService = SyntheticGenerationData.service(streamingDecode);
+        energyMixService.calculateThreeDaysSummary();
+    }
+
+    @Setup(Level.Invocation)
+    public void resetCache() {
+        if (!warmCache) {
+            energyMixService = SyntheticGenerationData.service(streamingDecode);
+        }
+    }
+
+    @Benchmark
+    public List<DailyEnergySummary> calculateThreeDaysSummary() {
+        return energyMixService.calculateThreeDaysSummary();
+    }
+}
@@ -0,0 +1,213 @@
+package com.jerzymaj.energymixgbbackend.load;
+
+import com.jerzymaj.energymixgbbackend.EnergyMixGbBackendApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Closed-loop load test of the {@code /energy-mix} endpoints. Starts {@link StubCarbonIntensityApi} and the
+ * application on free local ports, then drives every endpoint at each concurrency level: the workers first warm
+ * up, then every response is timed for the measurement duration. Reports throughput, p50/p99/p99.9 latency,
+ * non-200 responses and the upstream calls made during the step, and writes them to
+ * {@code target/load-results.json}.
+ * <p>
+ * Options are given as {@code name=value}, see {@link #DEFAULTS}. A {@code {windowLength}} placeholder in an
+ * endpoint is replaced by 1-24 in turn, so each request for a window length after the first is served from the
+ * response cache while the first one is rendered.
+ */
+public class LoadTest {
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "endpoints", "/energy-mix/three-days-summary,/energy-mix/optimal-charging-window?windowLength={windowLength}",
+            "concurrency", "1,8,64,256",
+            "warmup", "PT3S",
+            "duration", "PT10S",
+            "upstream-latency", "PT0.05S",
+            "upstream-jitter", "PT0.05S",
+            "upstream-error-rate", "0",
+            "output", "target/load-results.json");
+
+    public record StepResult(String endpoint, int concurrency, long requests, long errors, double throughput,
+                             double p50Millis, double p99Millis, double p999Millis,
+                             long upstreamCalls, long upstreamFailures) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+
+        try (StubCarbonIntensityApi upstream = new StubCarbonIntensityApi(
+                Duration.parse(options.get("upstream-latency")), Duration.parse(options.get("upstream-jitter")),
+                Double.parseDouble(options.get("upstream-error-rate")));
+             ConfigurableApplicationContext context = startApplication(upstream.baseUrl())) {
+
+            String baseUrl = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+            Duration warmup = Duration.parse(options.get("warmup"));
+            Duration duration = Duration.parse(options.get("duration"));
+            List<StepResult> results = new ArrayList<>();
+
+            System.out.printf("%-70s %6s %9s %8s %9s %9s %9s %7s %9s%n", "endpoint", "conc", "req/s",
+                    "errors", "p50 ms", "p99 ms", "p99.9 ms", "calls", "failures");
+
+            for (String endpoint : options.get("endpoints").split(",")) {
+                for (String concurrency : options.get("concurrency").split(",")) {
+                    StepResult result = runStep(upstream, baseUrl, endpoint.trim(), Integer.parseInt(concurrency.trim()),
+                            warmup, duration);
+                    results.add(result);
+
+                    System.out.printf("%-70s %6d %9.0f %8d %9.2f %9.2f %9.2f %7d %9d%n", result.endpoint(),
+                            result.concurrency(), result.throughput(), result.errors(), result.p50Millis(),
+                            result.p99Millis(), result.p999Millis(), result.upstreamCalls(), result.upstreamFailures());
+                }
+            }
+
+            File output = new File(options.get("output"));
+            JsonMapper.builder().build().writerWithDefaultPrettyPrinter().writeValue(output, results);
+            System.out.println("Results written to " + output.getAbsolutePath());
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(String upstreamUrl) {
+        // devtools is on the test classpath and would relaunch main() in a restart class loader
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        return new SpringApplicationBuilder(EnergyMixGbBackendApplication.class)
+                .run("--server.port=0",
+                        "--api.carbon-intensity.url=" + upstreamUrl,
+                        "--energy.store.enabled=false",
+                        "--energy.prefetch.enabled=false",
+                        "--logging.level.root=ERROR");
+    }
+
+    private static StepResult runStep(StubCarbonIntensityApi upstream, String baseUrl, String endpoint,
+                                      int concurrency, Duration warmup, Duration duration) throws Exception {
+        long started = System.nanoTime();
+        long measureFrom = started + warmup.toNanos();
+        long measureUntil = measureFrom + duration.toNanos();
+
+        List<Future<LatencyRecorder>> workers = new ArrayList<>();
+        long callsBefore;
+        long failuresBefore;
+
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int worker = 0; worker < concurrency; worker++) {
+                int offset = worker;
+                workers.add(executor.submit(() -> drive(client, baseUrl, endpoint, offset, measureFrom, measureUntil)));
+            }
+
+            Thread.sleep(Duration.ofNanos(Math.max(0, measureFrom - System.nanoTime())));
+            callsBefore = upstream.calls();
+            failuresBefore = upstream.failures();
+        }
+
+        LatencyRecorder total = new LatencyRecorder();
+        for (Future<LatencyRecorder> worker : workers) {
+            total.addAll(worker.get());
+        }
+        long[] latencies = total.sorted();
+
+        return new StepResult(endpoint, concurrency, latencies.length, total.errors,
+                latencies.length / (duration.toNanos() / 1e9),
+                percentileMillis(latencies, 0.5), percentileMillis(latencies, 0.99), percentileMillis(latencies, 0.999),
+                upstream.calls() - callsBefore, upstream.failures() - failuresBefore);
+    }
+
+    private static LatencyRecorder drive(HttpClient client, String baseUrl, String endpoint, int offset,
+                                         long measureFrom, long measureUntil) {
+        LatencyRecorder recorder = new LatencyRecorder();
+
+        for (int request = offset; ; request++) {
+            long sent = System.nanoTime();
+
+            if (sent >= measureUntil) {
+                return recorder;
+            }
+
+            URI uri = URI.create(baseUrl + endpoint.replace("{windowLength}", String.valueOf(request % 24 + 1)));
+            boolean ok;
+            try {
+                ok = client.send(HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).build(),
+                        HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+            } catch (Exception ex) {
+                ok = false;
+            }
+
+            if (sent >= measureFrom) {
+                recorder.record(System.nanoTime() - sent, ok);
+            }
+        }
+    }
+
+    private static double percentileMillis(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+
+        return sortedNanos[Math.max(0, index)] / 1e6;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+
+            if (separator < 0 || !DEFAULTS.containsKey(arg.substring(0, separator))) {
+                throw new IllegalArgumentException("Unknown option " + arg + ", expected name=value with name one of "
+                        + new TreeSet<>(DEFAULTS.keySet()));
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    /**
+     * Latencies of successful responses and the number of failed ones, kept per worker so recording is not
+     * contended.
+     */
+    private static final class LatencyRecorder {
+
+        private long[] nanos = new long[1024];
+        private int size;
+        private long errors;
+
+        void record(long latencyNanos, boolean ok) {
+            if (!ok) {
+                errors++;
+                return;
+            }
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = latencyNanos;
+        }
+
+        void addAll(LatencyRecorder other) {
+            if (size + other.size > nanos.length) {
+                nanos = Arrays.copyOf(nanos, size + other.size);
+            }
+            System.arraycopy(other.nanos, 0, nanos, size, other.size);
+            size += other.size;
+            errors += other.errors;
+        }
+
+        long[] sorted() {
+            long[] sorted = Arrays.copyOf(nanos, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.jerzymaj.energymixgbbackend.load;
+
+import com.jerzymaj.energymixgbbackend.cache.HalfHourSlots;
+import com.jerzymaj.energymixgbbackend.columnar.FuelDictionary;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the Carbon Intensity {@code /generation/{from}/{to}} API. Every response is delayed by
+ * {@code latency} plus a uniform random {@code jitter}, and fails with 500 with probability {@code errorRate}.
+ * The generation mix of a half hour only depends on its start, so repeated calls return the same forecast.
+ */
+public class StubCarbonIntensityApi implements AutoCloseable {
+
+    private static final String GENERATION_PATH = "/generation/";
+
+    private final HttpServer server;
+    private final Duration latency;
+    private final Duration jitter;
+    private final double errorRate;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public StubCarbonIntensityApi(Duration latency, Duration jitter, double errorRate) throws IOException {
+        this.latency = latency;
+        this.jitter = jitter;
+        this.errorRate = errorRate;
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * @return requests received so far, failed ones included.
+     */
+    public long calls() {
+        return calls.get();
+    }
+
+    /**
+     * @return requests answered with 500 so far.
+     */
+    public long failures() {
+        return failures.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+
+            if (!path.startsWith(GENERATION_PATH)) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            calls.incrementAndGet();
+            delay();
+
+            if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                failures.incrementAndGet();
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+
+            String[] range = path.substring(GENERATION_PATH.length()).split("/");
+            byte[] body = payload(HalfHourSlots.parse(range[0]), HalfHourSlots.parse(range[1]));
+
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private void delay() {
+        long delayNanos = latency.toNanos();
+
+        if (!jitter.isZero()) {
+            delayNanos += ThreadLocalRandom.current().nextLong(jitter.toNanos() + 1);
+        }
+        if (delayNanos > 0) {
+            try {
+                Thread.sleep(Duration.ofNanos(delayNanos));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static byte[] payload(Instant from, Instant to) {
+        StringBuilder json = new StringBuilder("{\"data\":[");
+
+        for (Instant slot = from; slot.isBefore(to); slot = slot.plusSeconds(HalfHourSlots.SLOT_SECONDS)) {
+            if (slot != from) {
+                json.append(',');
+            }
+
+            json.append("{\"from\":\"").append(HalfHourSlots.format(slot))
+                    .append("\",\"to\":\"").append(HalfHourSlots.format(slot.plusSeconds(HalfHourSlots.SLOT_SECONDS)))
+                    .append("\",\"generationmix\":[");
+
+            Random random = new Random(slot.getEpochSecond());
+            double[] shares = new double[FuelDictionary.SIZE];
+            double total = 0;
+
+            for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+                shares[fuel] = random.nextDouble();
+                total += shares[fuel];
+            }
+            for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+                if (fuel > 0) {
+                    json.append(',');
+                }
+                json.append("{\"fuel\":\"").append(FuelDictionary.nameOf(fuel))
+                        .append("\",\"perc\":").append(Math.round(shares[fuel] / total * 1000) / 10.0).append('}');
+            }
+
+            json.append("]}");
+        }
+
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
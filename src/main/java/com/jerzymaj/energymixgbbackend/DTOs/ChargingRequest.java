@@ -0,0 +1,16 @@
+package com.jerzymaj.energymixgbbackend.DTOs;
+
+import java.time.Instant;
+
+/**
+ * One vehicle of a fleet scheduling batch.
+ *
+ * @param vehicleId     identifier echoed in the result, optional
+ * @param windowLength  duration of charging in hours
+ * @param earliestStart charging must not start before this instant, optional
+ * @param finishBy      charging must end by this instant, optional
+ * @param energyKwh     energy to be charged, optional
+ */
+public record ChargingRequest(String vehicleId, int windowLength, Instant earliestStart, Instant finishBy,
+                              Double energyKwh) {
+}
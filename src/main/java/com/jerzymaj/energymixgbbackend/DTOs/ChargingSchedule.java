@@ -0,0 +1,14 @@
+package com.jerzymaj.energymixgbbackend.DTOs;
+
+/**
+ * Result for one {@link ChargingRequest} of a fleet scheduling batch.
+ * Either the window fields or {@code error} are set.
+ *
+ * @param index          position of the request in the batch, results are streamed in request order
+ * @param vehicleId      identifier of the request
+ * @param cleanEnergyKwh part of the requested energy expected to come from clean sources, null without energyKwh
+ * @param error          reason why no window was found
+ */
+public record ChargingSchedule(int index, String vehicleId, String startingDateTime, String endingDateTime,
+                               Double averageCleanEnergyPercent, Double cleanEnergyKwh, String error) {
+}
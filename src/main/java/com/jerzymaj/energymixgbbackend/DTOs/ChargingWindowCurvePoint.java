@@ -0,0 +1,5 @@
+package com.jerzymaj.energymixgbbackend.DTOs;
+
+public record ChargingWindowCurvePoint(int windowLength, String startingDateTime, String endingDateTime,
+                                       double averageCleanEnergyPercent) {
+}
@@ -0,0 +1,8 @@
+package com.jerzymaj.energymixgbbackend.DTOs;
+
+import java.util.List;
+import java.util.Map;
+
+public record EnergyDistribution(String group, long intervals, double min, double max, double mean,
+                                 Map<String, Double> percentiles, List<Long> bandCounts) {
+}
@@ -0,0 +1,19 @@
+package com.jerzymaj.energymixgbbackend.DTOs;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Payload of the forecast stream. The first event carries the whole state, later events only what changed,
+ * unchanged parts are omitted.
+ *
+ * @param forecastVersion version of the forecast the values were computed from, as epoch second
+ * @param summary         daily summaries which are new or changed
+ * @param removedDays     dates which are no longer part of the summary
+ * @param window          best charging window, if it changed
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public record ForecastUpdate(long forecastVersion, List<DailyEnergySummary> summary, List<String> removedDays,
+                             OptimalChargingWindow window) {
+}
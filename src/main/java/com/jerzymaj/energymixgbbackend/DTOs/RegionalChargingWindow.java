@@ -0,0 +1,4 @@
+package com.jerzymaj.energymixgbbackend.DTOs;
+
+public record RegionalChargingWindow(int regionId, String shortName, String dnoRegion, OptimalChargingWindow window) {
+}
@@ -0,0 +1,11 @@
+package com.jerzymaj.energymixgbbackend.DTOs;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public record RegionalEnergyData(@JsonProperty("regionid") int regionId,
+                                 @JsonProperty("dnoregion") String dnoRegion,
+                                 @JsonProperty("shortname") String shortName,
+                                 List<EnergyMixInterval> data) {
+}
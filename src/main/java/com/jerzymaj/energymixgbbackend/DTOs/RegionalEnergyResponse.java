@@ -0,0 +1,4 @@
+package com.jerzymaj.energymixgbbackend.DTOs;
+
+public record RegionalEnergyResponse(RegionalEnergyData data) {
+}
@@ -0,0 +1,6 @@
+package com.jerzymaj.energymixgbbackend.DTOs;
+
+import java.util.List;
+
+public record RegionalEnergySummary(int regionId, String shortName, String dnoRegion, List<DailyEnergySummary> days) {
+}
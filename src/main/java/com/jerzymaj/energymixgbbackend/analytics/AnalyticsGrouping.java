@@ -0,0 +1,47 @@
+package com.jerzymaj.energymixgbbackend.analytics;
+
+import java.time.DayOfWeek;
+import java.time.Month;
+import java.util.Locale;
+
+/**
+ * Dimension the analytics are grouped by, in Europe/London local time.
+ */
+public enum AnalyticsGrouping {
+
+    HOUR(24),
+    WEEKDAY(7),
+    MONTH(12);
+
+    private final int groupCount;
+
+    AnalyticsGrouping(int groupCount) {
+        this.groupCount = groupCount;
+    }
+
+    public int groupCount() {
+        return groupCount;
+    }
+
+    /**
+     * @return label of a group, e.g. {@code 07:00}, {@code MONDAY} or {@code JANUARY}.
+     */
+    public String label(int group) {
+        return switch (this) {
+            case HOUR -> "%02d:00".formatted(group);
+            case WEEKDAY -> DayOfWeek.of(group + 1).name();
+            case MONTH -> Month.of(group + 1).name();
+        };
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value names no grouping.
+     */
+    public static AnalyticsGrouping parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("groupBy must be one of hour, weekday or month, was " + value);
+        }
+    }
+}
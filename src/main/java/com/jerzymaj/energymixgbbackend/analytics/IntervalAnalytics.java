@@ -0,0 +1,377 @@
+package com.jerzymaj.energymixgbbackend.analytics;
+
+import com.jerzymaj.energymixgbbackend.DTOs.EnergyDistribution;
+import com.jerzymaj.energymixgbbackend.cache.HalfHourSlots;
+import com.jerzymaj.energymixgbbackend.columnar.FuelDictionary;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+import com.jerzymaj.energymixgbbackend.service.DailyAccumulator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of the clean energy share and of every fuel's share over settled history, kept as mergeable
+ * {@link PercentHistogram}s. Every Europe/London month is a bucket with one histogram per metric for each hour
+ * of day and each weekday, so a range made of whole months is answered by merging a fixed number of
+ * histograms per month whatever the number of intervals. The intervals of each day are also kept, compactly,
+ * for the partial months at the ends of a range.
+ * <p>
+ * Intervals are recorded once per slot as they arrive from the {@code GenerationRepository}; only settled
+ * intervals are recorded because histograms cannot take a revised forecast back. The least recently used months
+ * are dropped beyond {@code energy.analytics.max-months}.
+ */
+@Component
+public class IntervalAnalytics {
+
+    public static final String CLEAN_METRIC = "clean";
+
+    private static final int METRICS = FuelDictionary.SIZE + 1;
+    private static final int CLEAN = 0;
+    private static final double[] PERCENTILES = {0.05, 0.25, 0.5, 0.75, 0.95, 0.99};
+    private static final double BAND_WIDTH = 10;
+
+    private final long cleanEnergyMask;
+    private final Map<YearMonth, MonthBucket> months;
+    private final LongAdder recordedIntervals = new LongAdder();
+
+    public IntervalAnalytics(@Value("${energy.clean-types}") List<String> cleanEnergy,
+                             @Value("${energy.analytics.max-months:24}") int maxMonths) {
+        this.cleanEnergyMask = FuelDictionary.maskOf(cleanEnergy);
+        this.months = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<YearMonth, MonthBucket> eldest) {
+                return size() > maxMonths;
+            }
+        };
+    }
+
+    /**
+     * @param metric {@value #CLEAN_METRIC} or a fuel name
+     * @return index of the metric.
+     * @throws IllegalArgumentException if the metric is unknown.
+     */
+    public static int metricOf(String metric) {
+        if (CLEAN_METRIC.equals(metric)) {
+            return CLEAN;
+        }
+
+        int fuel = FuelDictionary.FUELS.indexOf(metric);
+        if (fuel < 0) {
+            throw new IllegalArgumentException("metric must be clean or one of " + FuelDictionary.FUELS
+                    + ", was " + metric);
+        }
+        return fuel + 1;
+    }
+
+    /**
+     * Records the intervals which ended before {@code settledBefore} and were not recorded yet.
+     *
+     * @param columns       intervals ordered by start time
+     * @param settledBefore epoch second, later intervals may still be revised
+     */
+    public synchronized void record(IntervalColumns columns, long settledBefore) {
+        if (columns.isEmpty()) {
+            return;
+        }
+
+        double[] cleanPercents = columns.sumPercents(cleanEnergyMask);
+        double[] values = new double[METRICS];
+
+        for (int row = 0; row < columns.size(); row++) {
+            long start = columns.start(row);
+
+            if (start + HalfHourSlots.SLOT_SECONDS > settledBefore) {
+                break;
+            }
+
+            ZonedDateTime time = Instant.ofEpochSecond(start).atZone(DailyAccumulator.LONDON);
+            LocalDate date = time.toLocalDate();
+            MonthBucket month = months.computeIfAbsent(YearMonth.from(date), MonthBucket::new);
+            int slot = (int) ((start - DailyAccumulator.startOfLondonDay(date)) / HalfHourSlots.SLOT_SECONDS);
+
+            long fuels = columns.fuels(row);
+
+            values[CLEAN] = cleanPercents[row];
+            for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+                values[fuel + 1] = FuelDictionary.contains(fuels, fuel) ? columns.percent(fuel, row) : Double.NaN;
+            }
+
+            if (month.record(date, slot, time.getHour(), values)) {
+                recordedIntervals.increment();
+            }
+        }
+    }
+
+    /**
+     * Marks the slots of [fromSlot, toSlot) without an interval in {@code columns} as gaps, slots the store holds
+     * as having no upstream data. Gaps count towards {@link #isComplete} without adding to any distribution;
+     * an interval arriving for a gap slot later, once the store retried it, is still recorded.
+     *
+     * @param columns  intervals ordered by start time
+     * @param fromSlot first settled slot read from the store, as epoch second
+     * @param toSlot   end of the settled slots read from the store, as epoch second
+     */
+    public synchronized void recordGaps(IntervalColumns columns, long fromSlot, long toSlot) {
+        int row = 0;
+
+        for (long start = fromSlot; start < toSlot; start += HalfHourSlots.SLOT_SECONDS) {
+            while (row < columns.size() && columns.start(row) < start) {
+                row++;
+            }
+            if (row < columns.size() && columns.start(row) == start) {
+                continue;
+            }
+
+            LocalDate date = Instant.ofEpochSecond(start).atZone(DailyAccumulator.LONDON).toLocalDate();
+            MonthBucket month = months.computeIfAbsent(YearMonth.from(date), MonthBucket::new);
+            int slot = (int) ((start - DailyAccumulator.startOfLondonDay(date)) / HalfHourSlots.SLOT_SECONDS);
+
+            month.recordGap(date, slot);
+        }
+    }
+
+    /**
+     * @return true if every interval of the day has been recorded or is a gap.
+     */
+    public synchronized boolean isComplete(LocalDate date) {
+        MonthBucket month = months.get(YearMonth.from(date));
+
+        return month != null && month.coveredSlots(date) == slotsOf(date);
+    }
+
+    /**
+     * Merges the buckets of the days [from, to] per group. Whole months cost one merge per histogram of the
+     * month, only the days of partial months are visited one by one.
+     *
+     * @return distribution of each group with at least one interval, in group order.
+     */
+    public synchronized List<EnergyDistribution> distribution(LocalDate from, LocalDate to,
+                                                              AnalyticsGrouping grouping, int metric) {
+        PercentHistogram[] groups = new PercentHistogram[grouping.groupCount()];
+        for (int group = 0; group < groups.length; group++) {
+            groups[group] = new PercentHistogram();
+        }
+
+        for (YearMonth yearMonth = YearMonth.from(from); !yearMonth.isAfter(YearMonth.from(to));
+             yearMonth = yearMonth.plusMonths(1)) {
+            MonthBucket month = months.get(yearMonth);
+
+            if (month == null) {
+                continue;
+            }
+
+            LocalDate first = yearMonth.atDay(1);
+            LocalDate last = yearMonth.atEndOfMonth();
+
+            if (!from.isAfter(first) && !to.isBefore(last)) {
+                month.mergeInto(groups, grouping, metric);
+            } else {
+                LocalDate end = to.isBefore(last) ? to : last;
+                for (LocalDate date = from.isAfter(first) ? from : first; !date.isAfter(end); date = date.plusDays(1)) {
+                    month.addDayTo(groups, grouping, metric, date);
+                }
+            }
+        }
+
+        List<EnergyDistribution> distributions = new ArrayList<>();
+        for (int group = 0; group < groups.length; group++) {
+            if (groups[group].count() > 0) {
+                distributions.add(toDistribution(grouping.label(group), groups[group]));
+            }
+        }
+        return distributions;
+    }
+
+    /**
+     * @return number of intervals recorded since startup.
+     */
+    public long getRecordedIntervalCount() {
+        return recordedIntervals.sum();
+    }
+
+    private static EnergyDistribution toDistribution(String group, PercentHistogram histogram) {
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        for (double percentile : PERCENTILES) {
+            percentiles.put("p" + Math.round(percentile * 100), round(histogram.quantile(percentile)));
+        }
+
+        List<Long> bandCounts = new ArrayList<>();
+        for (long bandCount : histogram.bandCounts(BAND_WIDTH)) {
+            bandCounts.add(bandCount);
+        }
+
+        return new EnergyDistribution(group, histogram.count(), round(histogram.min()), round(histogram.max()),
+                round(histogram.mean()), percentiles, bandCounts);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static int slotsOf(LocalDate date) {
+        return (int) ((DailyAccumulator.startOfLondonDay(date.plusDays(1)) - DailyAccumulator.startOfLondonDay(date))
+                / HalfHourSlots.SLOT_SECONDS);
+    }
+
+    /**
+     * Histograms of one month per hour of day and per weekday, and the intervals of each of its days.
+     */
+    private static final class MonthBucket {
+
+        private final PercentHistogram[][] hours = histograms(24);
+        private final PercentHistogram[][] weekdays = histograms(7);
+        private final DayIntervals[] days;
+        private final int monthIndex;
+
+        MonthBucket(YearMonth month) {
+            days = new DayIntervals[month.lengthOfMonth()];
+            monthIndex = month.getMonthValue() - 1;
+        }
+
+        /**
+         * @return false if the slot was recorded before.
+         */
+        boolean record(LocalDate date, int slot, int hour, double[] values) {
+            DayIntervals day = dayOf(date);
+
+            if (!day.record(slot, values)) {
+                return false;
+            }
+
+            int weekday = date.getDayOfWeek().ordinal();
+            for (int metric = 0; metric < METRICS; metric++) {
+                double value = day.value(slot, metric);
+
+                if (!Double.isNaN(value)) {
+                    hours[hour][metric].add(value);
+                    weekdays[weekday][metric].add(value);
+                }
+            }
+            return true;
+        }
+
+        void recordGap(LocalDate date, int slot) {
+            dayOf(date).gapSlots |= 1L << slot;
+        }
+
+        /**
+         * @return number of slots of the day which were recorded or are gaps.
+         */
+        int coveredSlots(LocalDate date) {
+            DayIntervals day = days[date.getDayOfMonth() - 1];
+
+            return day == null ? 0 : Long.bitCount(day.recordedSlots | day.gapSlots);
+        }
+
+        private DayIntervals dayOf(LocalDate date) {
+            DayIntervals day = days[date.getDayOfMonth() - 1];
+
+            if (day == null) {
+                day = days[date.getDayOfMonth() - 1] = new DayIntervals();
+            }
+            return day;
+        }
+
+        void mergeInto(PercentHistogram[] groups, AnalyticsGrouping grouping, int metric) {
+            switch (grouping) {
+                case HOUR -> {
+                    for (int hour = 0; hour < hours.length; hour++) {
+                        groups[hour].merge(hours[hour][metric]);
+                    }
+                }
+                case WEEKDAY -> {
+                    for (int weekday = 0; weekday < weekdays.length; weekday++) {
+                        groups[weekday].merge(weekdays[weekday][metric]);
+                    }
+                }
+                case MONTH -> {
+                    for (PercentHistogram[] weekday : weekdays) {
+                        groups[monthIndex].merge(weekday[metric]);
+                    }
+                }
+            }
+        }
+
+        void addDayTo(PercentHistogram[] groups, AnalyticsGrouping grouping, int metric, LocalDate date) {
+            DayIntervals day = days[date.getDayOfMonth() - 1];
+
+            if (day == null) {
+                return;
+            }
+
+            long dayStart = DailyAccumulator.startOfLondonDay(date);
+            boolean clocksChange = slotsOf(date) != 48;
+
+            for (int slot = 0; slot < DayIntervals.MAX_SLOTS; slot++) {
+                double value = day.value(slot, metric);
+
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+
+                int group = switch (grouping) {
+                    case HOUR -> clocksChange
+                            ? Instant.ofEpochSecond(dayStart + slot * HalfHourSlots.SLOT_SECONDS)
+                            .atZone(DailyAccumulator.LONDON).getHour()
+                            : slot / 2;
+                    case WEEKDAY -> date.getDayOfWeek().ordinal();
+                    case MONTH -> date.getMonthValue() - 1;
+                };
+                groups[group].add(value);
+            }
+        }
+
+        private static PercentHistogram[][] histograms(int groups) {
+            PercentHistogram[][] histograms = new PercentHistogram[groups][METRICS];
+
+            for (PercentHistogram[] group : histograms) {
+                for (int metric = 0; metric < METRICS; metric++) {
+                    group[metric] = new PercentHistogram();
+                }
+            }
+            return histograms;
+        }
+    }
+
+    /**
+     * Values of every metric for each half hour of a day, in tenths of a percent, -1 where a fuel was not reported,
+     * and the slots upstream had no interval for. A day has up to 50 slots when the clocks go back.
+     */
+    private static final class DayIntervals {
+
+        static final int MAX_SLOTS = 50;
+
+        private final short[][] values = new short[METRICS][MAX_SLOTS];
+        private long recordedSlots;
+        private long gapSlots;
+
+        boolean record(int slot, double[] slotValues) {
+            long bit = 1L << slot;
+
+            if ((recordedSlots & bit) != 0) {
+                return false;
+            }
+
+            recordedSlots |= bit;
+            for (int metric = 0; metric < METRICS; metric++) {
+                values[metric][slot] = Double.isNaN(slotValues[metric])
+                        ? -1
+                        : (short) Math.round(Math.clamp(slotValues[metric], 0, 100) * 10);
+            }
+            return true;
+        }
+
+        double value(int slot, int metric) {
+            if ((recordedSlots & (1L << slot)) == 0 || values[metric][slot] < 0) {
+                return Double.NaN;
+            }
+            return values[metric][slot] / 10.0;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.jerzymaj.energymixgbbackend.analytics;
+
+/**
+ * Fixed-resolution histogram of percentages in [0, 100], in the spirit of an HDR histogram for a bounded
+ * range: one counter per {@link #BIN_WIDTH} wide bin plus the exact count, sum, min and max. Two histograms
+ * merge by adding their counters, so the cost of a merge does not depend on how many values were recorded.
+ * Quantiles are interpolated within their bin and are accurate to {@link #BIN_WIDTH}.
+ * Not thread-safe.
+ */
+public final class PercentHistogram {
+
+    public static final double BIN_WIDTH = 0.5;
+    public static final int BINS = (int) (100 / BIN_WIDTH) + 1;
+
+    private final int[] counts = new int[BINS];
+    private long count;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param percent value, clamped to [0, 100]
+     */
+    public void add(double percent) {
+        double value = Math.clamp(percent, 0, 100);
+
+        counts[(int) (value / BIN_WIDTH)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds all values recorded by {@code other}.
+     */
+    public void merge(PercentHistogram other) {
+        if (other.count == 0) {
+            return;
+        }
+
+        for (int bin = 0; bin < BINS; bin++) {
+            counts[bin] += other.counts[bin];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double min() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    public double max() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    public double mean() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    /**
+     * @param quantile between 0 and 1
+     * @return estimated value below which {@code quantile} of the values fall, NaN if nothing was recorded.
+     */
+    public double quantile(double quantile) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+
+        double rank = quantile * count;
+        long seen = 0;
+
+        for (int bin = 0; bin < BINS; bin++) {
+            if (counts[bin] > 0 && seen + counts[bin] >= rank) {
+                double fraction = (rank - seen) / counts[bin];
+                return Math.clamp((bin + fraction) * BIN_WIDTH, min, max);
+            }
+            seen += counts[bin];
+        }
+        return max;
+    }
+
+    /**
+     * @param bandWidth width of each band in percentage points, a multiple of {@link #BIN_WIDTH}
+     * @return number of values in each band [0, bandWidth), [bandWidth, 2 * bandWidth) ..., 100 is counted in
+     * the last band.
+     */
+    public long[] bandCounts(double bandWidth) {
+        int binsPerBand = (int) Math.round(bandWidth / BIN_WIDTH);
+        long[] bands = new long[(int) Math.ceil(100 / bandWidth)];
+
+        for (int bin = 0; bin < BINS; bin++) {
+            bands[Math.min(bin / binsPerBand, bands.length - 1)] += counts[bin];
+        }
+        return bands;
+    }
+}
@@ -0,0 +1,384 @@
+package com.jerzymaj.energymixgbbackend.cache;
+
+import com.jerzymaj.energymixgbbackend.columnar.FuelDictionary;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * Shared cache of 30-minute energy mix intervals keyed by slot start, not by the requested range.
+ * Overlapping requests are served from the same entries and only missing or expired slots are
+ * fetched from upstream. Every slot is stored as a primitive row indexed by {@link FuelDictionary}.
+ * <p>
+ * Slots that already ended when they were fetched are treated as final and never expire, they are
+ * only evicted once they fall out of the retention period. Forecast slots expire at the next
+ * half-hour boundary (plus the publication delay), which is when a new forecast becomes available.
+ * <p>
+ * If upstream fails while refreshing expired slots, the last good values are served as stale for up to
+ * {@code energy.cache.max-stale} and a single background refresh retries every {@code energy.cache.stale-retry}.
+ * While it runs, requests are answered from the stale slots without waiting for upstream.
+ * <p>
+ * A prefetcher can {@link #refresh} a range ahead of the readers. Until the refresh it announced with
+ * {@link #holdExpiredUntil} has completed, expired slots are served instead of being fetched by the request and
+ * the previous forecast stays the {@link #currentForecastVersion() current} one. This is a planned hold, not an
+ * upstream failure, so it does not make the cache {@link #isServingStale() serve stale}.
+ */
+@Component
+public class ForecastCache {
+
+    private final ConcurrentSkipListMap<Long, CachedSlot> slots = new ConcurrentSkipListMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder staleServed = new LongAdder();
+    private final AtomicBoolean revalidating = new AtomicBoolean();
+    private volatile boolean servingStale;
+    private volatile Instant holdExpiredUntil = Instant.MIN;
+    private volatile boolean timestampsWithSeconds;
+    private volatile long heldForecastVersion;
+
+    private final Clock clock;
+    private final int maxIntervals;
+    private final Duration pastRetention;
+    private final Duration publicationDelay;
+    private final Duration maxStale;
+    private final Duration staleRetry;
+
+    public ForecastCache(Clock clock,
+                         @Value("${energy.cache.max-intervals:8192}") int maxIntervals,
+                         @Value("${energy.cache.past-retention:PT48H}") Duration pastRetention,
+                         @Value("${energy.cache.publication-delay:PT2M}") Duration publicationDelay,
+                         @Value("${energy.cache.max-stale:PT6H}") Duration maxStale,
+                         @Value("${energy.cache.stale-retry:PT30S}") Duration staleRetry) {
+        this.clock = clock;
+        this.maxIntervals = maxIntervals;
+        this.pastRetention = pastRetention;
+        this.publicationDelay = publicationDelay;
+        this.maxStale = maxStale;
+        this.staleRetry = staleRetry;
+    }
+
+    /**
+     * Creates an empty cache with the same settings, for feeds which must not share slots with this one.
+     */
+    public ForecastCache emptyCopy() {
+        return new ForecastCache(clock, maxIntervals, pastRetention, publicationDelay, maxStale, staleRetry);
+    }
+
+    /**
+     * Returns the intervals starting in [from, to), fetching only the slots that are not cached.
+     * Each contiguous run of missing slots is loaded with a single upstream call.
+     *
+     * @param from   inclusive start of the range
+     * @param to     exclusive end of the range
+     * @param loader upstream call used to fill the gaps, receives a slot-aligned range
+     * @return intervals ordered by start time
+     * @throws RuntimeException thrown by the loader if a missing slot has no stale value to fall back to.
+     */
+
+    public IntervalColumns getIntervals(Instant from, Instant to,
+                                        BiFunction<Instant, Instant, IntervalColumns> loader) {
+        Instant now = clock.instant();
+        evictPast(now);
+
+        long firstSlot = HalfHourSlots.floor(from.getEpochSecond());
+        long endSlot = HalfHourSlots.ceil(to.getEpochSecond());
+        int slotCount = (int) Math.max(0, (endSlot - firstSlot) / HalfHourSlots.SLOT_SECONDS);
+
+        CachedSlot[] resolved = new CachedSlot[slotCount];
+        CachedSlot[] stale = new CachedSlot[slotCount];
+
+        for (int i = 0; i < slotCount; i++) {
+            CachedSlot cached = slots.get(firstSlot + i * HalfHourSlots.SLOT_SECONDS);
+
+            if (cached != null && !cached.isExpired(now)) {
+                resolved[i] = cached;
+                hits.increment();
+            } else {
+                misses.increment();
+
+                if (cached != null && now.isBefore(cached.expiresAt().plus(maxStale))) {
+                    stale[i] = cached;
+                }
+            }
+        }
+
+        int runStart = -1;
+        for (int i = 0; i <= slotCount; i++) {
+            boolean missing = i < slotCount && resolved[i] == null;
+
+            if (missing && runStart < 0) {
+                runStart = i;
+            } else if (!missing && runStart >= 0) {
+                long runFrom = firstSlot + runStart * HalfHourSlots.SLOT_SECONDS;
+                long runTo = firstSlot + i * HalfHourSlots.SLOT_SECONDS;
+
+                loadRun(loader, runFrom, runTo, now, resolved, stale, firstSlot);
+                runStart = -1;
+            }
+        }
+
+        IntervalColumns.Builder builder = IntervalColumns.builder(slotCount);
+        builder.timestampsWithSeconds(timestampsWithSeconds);
+        for (int i = 0; i < slotCount; i++) {
+            CachedSlot slot = resolved[i];
+
+            if (slot.percents() != null) {
+                builder.addRow(firstSlot + i * HalfHourSlots.SLOT_SECONDS, slot.percents(), slot.fuels());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Fetches the range regardless of what is cached and replaces its slots. Every slot is swapped with a single
+     * write to the map, so readers never wait for the fetch and see either the previous or the new values.
+     *
+     * @param from   inclusive start of the range
+     * @param to     exclusive end of the range
+     * @param loader upstream call, receives a slot-aligned range
+     * @throws RuntimeException thrown by the loader, the cached slots are left untouched then.
+     */
+    public void refresh(Instant from, Instant to, BiFunction<Instant, Instant, IntervalColumns> loader) {
+        Instant now = clock.instant();
+        evictPast(now);
+
+        long firstSlot = HalfHourSlots.floor(from.getEpochSecond());
+        long endSlot = HalfHourSlots.ceil(to.getEpochSecond());
+        int slotCount = (int) Math.max(0, (endSlot - firstSlot) / HalfHourSlots.SLOT_SECONDS);
+
+        IntervalColumns fetched = loader.apply(Instant.ofEpochSecond(firstSlot), Instant.ofEpochSecond(endSlot));
+        store(fetched, firstSlot, endSlot, now, new CachedSlot[slotCount], firstSlot);
+        servingStale = false;
+    }
+
+    /**
+     * Announces a {@link #refresh}: until {@code until}, requests are answered from expired slots instead of
+     * fetching them, as long as every slot they miss has a previous value, and the forecast version current at
+     * this call stays current. Pass {@link Instant#MIN} once the refresh completed or failed.
+     *
+     * @param until instant after which expired slots are fetched by the requests again
+     */
+    public void holdExpiredUntil(Instant until) {
+        heldForecastVersion = publishedForecastVersion(clock.instant());
+        holdExpiredUntil = until;
+    }
+
+    /**
+     * @return start of the half-hour period whose forecast is currently published, as epoch second.
+     * It changes {@code energy.cache.publication-delay} after every half-hour boundary, or once the announced
+     * refresh completed while expired slots are {@link #holdExpiredUntil held}.
+     */
+    public long currentForecastVersion() {
+        Instant now = clock.instant();
+        long published = publishedForecastVersion(now);
+
+        return now.isBefore(holdExpiredUntil) ? Math.min(published, heldForecastVersion) : published;
+    }
+
+    /**
+     * @return instant at which the forecast of the given version is superseded.
+     */
+    public Instant forecastExpiry(long forecastVersion) {
+        return Instant.ofEpochSecond(forecastVersion + HalfHourSlots.SLOT_SECONDS).plus(publicationDelay);
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * @return true if upstream failed and expired slots are currently served in its place.
+     */
+    public boolean isServingStale() {
+        return servingStale;
+    }
+
+    /**
+     * @return number of slots served past their expiry because upstream failed, since startup.
+     */
+    public long getStaleCount() {
+        return staleServed.sum();
+    }
+
+    /**
+     * @return number of requested slots served from the cache since startup.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of requested slots which had to be fetched since startup.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public void clear() {
+        slots.clear();
+        size.set(0);
+    }
+
+    /**
+     * Loads one run of missing slots. While a background refresh or an announced prefetch is pending,
+     * or when the load fails, a run which is fully covered by expired slots is served from them instead.
+     * Only the background refresh and the failure mark the cache as serving stale.
+     */
+    private void loadRun(BiFunction<Instant, Instant, IntervalColumns> loader, long runFrom, long runTo, Instant now,
+                         CachedSlot[] resolved, CachedSlot[] stale, long firstSlot) {
+        int runStart = (int) ((runFrom - firstSlot) / HalfHourSlots.SLOT_SECONDS);
+        int runEnd = (int) ((runTo - firstSlot) / HalfHourSlots.SLOT_SECONDS);
+
+        boolean coveredByStale = true;
+        for (int i = runStart; i < runEnd && coveredByStale; i++) {
+            coveredByStale = stale[i] != null;
+        }
+
+        if (coveredByStale && revalidating.get()) {
+            serveStale(resolved, stale, runStart, runEnd);
+            return;
+        }
+        if (coveredByStale && now.isBefore(holdExpiredUntil)) {
+            System.arraycopy(stale, runStart, resolved, runStart, runEnd - runStart);
+            return;
+        }
+
+        try {
+            IntervalColumns fetched = loader.apply(Instant.ofEpochSecond(runFrom), Instant.ofEpochSecond(runTo));
+            store(fetched, runFrom, runTo, now, resolved, firstSlot);
+            servingStale = false;
+        } catch (RuntimeException ex) {
+            if (!coveredByStale) {
+                throw ex;
+            }
+
+            serveStale(resolved, stale, runStart, runEnd);
+            revalidateInBackground(loader, runFrom, runTo);
+        }
+    }
+
+    private void serveStale(CachedSlot[] resolved, CachedSlot[] stale, int runStart, int runEnd) {
+        System.arraycopy(stale, runStart, resolved, runStart, runEnd - runStart);
+        staleServed.add(runEnd - runStart);
+        servingStale = true;
+    }
+
+    /**
+     * Retries the failed run on a virtual thread until it succeeds or its stale slots may no longer be served.
+     * At most one refresh runs at a time.
+     */
+    private void revalidateInBackground(BiFunction<Instant, Instant, IntervalColumns> loader, long runFrom, long runTo) {
+        if (!revalidating.compareAndSet(false, true)) {
+            return;
+        }
+
+        Thread.ofVirtual().name("forecast-revalidate").start(() -> {
+            try {
+                Instant giveUpAt = clock.instant().plus(maxStale);
+
+                while (clock.instant().isBefore(giveUpAt)) {
+                    try {
+                        Thread.sleep(staleRetry);
+
+                        IntervalColumns fetched = loader.apply(Instant.ofEpochSecond(runFrom), Instant.ofEpochSecond(runTo));
+                        CachedSlot[] refreshed = new CachedSlot[(int) ((runTo - runFrom) / HalfHourSlots.SLOT_SECONDS)];
+                        store(fetched, runFrom, runTo, clock.instant(), refreshed, runFrom);
+                        servingStale = false;
+                        return;
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (RuntimeException ex) {
+                        // Upstream is still failing, keep serving stale slots until the next attempt.
+                    }
+                }
+            } finally {
+                revalidating.set(false);
+            }
+        });
+    }
+
+    private void store(IntervalColumns fetched, long runFrom, long runTo, Instant now,
+                       CachedSlot[] resolved, long firstSlot) {
+        Instant forecastExpiry = forecastExpiry(publishedForecastVersion(now));
+
+        if (!fetched.isEmpty()) {
+            timestampsWithSeconds = fetched.timestampsWithSeconds();
+        }
+
+        for (int row = 0; row < fetched.size(); row++) {
+            long slot = HalfHourSlots.floor(fetched.start(row));
+            double[] percents = new double[FuelDictionary.SIZE];
+            fetched.copyRow(row, percents);
+
+            CachedSlot cachedSlot = new CachedSlot(percents, fetched.fuels(row), expiryFor(slot, now, forecastExpiry));
+            put(slot, cachedSlot);
+
+            if (slot >= runFrom && slot < runTo) {
+                resolved[(int) ((slot - firstSlot) / HalfHourSlots.SLOT_SECONDS)] = cachedSlot;
+            }
+        }
+
+        // Remember slots upstream had no data for, so they are not re-requested on every call.
+        for (long slot = runFrom; slot < runTo; slot += HalfHourSlots.SLOT_SECONDS) {
+            int index = (int) ((slot - firstSlot) / HalfHourSlots.SLOT_SECONDS);
+
+            if (resolved[index] == null) {
+                resolved[index] = new CachedSlot(null, 0, forecastExpiry);
+                put(slot, resolved[index]);
+            }
+        }
+
+        while (size.get() > maxIntervals && slots.pollFirstEntry() != null) {
+            size.decrementAndGet();
+        }
+    }
+
+    private long publishedForecastVersion(Instant now) {
+        return HalfHourSlots.floor(now.minus(publicationDelay).getEpochSecond());
+    }
+
+    private Instant expiryFor(long slot, Instant now, Instant forecastExpiry) {
+        boolean finished = slot + HalfHourSlots.SLOT_SECONDS <= now.getEpochSecond();
+
+        return finished ? Instant.MAX : forecastExpiry;
+    }
+
+    private void put(long slot, CachedSlot cachedSlot) {
+        if (slots.put(slot, cachedSlot) == null) {
+            size.incrementAndGet();
+        }
+    }
+
+    private void evictPast(Instant now) {
+        long cutoff = now.minus(pastRetention).getEpochSecond();
+
+        Map.Entry<Long, CachedSlot> first;
+        while ((first = slots.firstEntry()) != null && first.getKey() + HalfHourSlots.SLOT_SECONDS <= cutoff) {
+            if (slots.remove(first.getKey(), first.getValue())) {
+                size.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Cache entry for a single slot, {@code percents} is null when upstream returned no data for it.
+     */
+    private record CachedSlot(double[] percents, long fuels, Instant expiresAt) {
+
+        boolean isExpired(Instant now) {
+            return !now.isBefore(expiresAt);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.jerzymaj.energymixgbbackend.cache;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Helpers for working with the 30-minute settlement periods used by the Carbon Intensity API.
+ * A slot is identified by the epoch second of its start.
+ */
+public final class HalfHourSlots {
+
+    public static final long SLOT_SECONDS = 1800;
+
+    private static final DateTimeFormatter API_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm'Z'").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter API_FORMAT_WITH_SECONDS =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'").withZone(ZoneOffset.UTC);
+
+    private HalfHourSlots() {
+    }
+
+    /**
+     * Parses a date ("2025-12-14", treated as UTC midnight) or an ISO8601 date-time
+     * ("2025-12-14T12:00Z") into an instant.
+     */
+    public static Instant parse(String value) {
+        if (value.length() == 10) {
+            return LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant();
+        }
+        return OffsetDateTime.parse(value).toInstant();
+    }
+
+    public static String format(Instant instant) {
+        return API_FORMAT.format(instant);
+    }
+
+    /**
+     * Formats like the API ("2025-12-14T12:00Z"), or with seconds ("2025-12-14T12:00:00Z").
+     */
+    public static String format(long epochSecond, boolean withSeconds) {
+        return (withSeconds ? API_FORMAT_WITH_SECONDS : API_FORMAT).format(Instant.ofEpochSecond(epochSecond));
+    }
+
+    /**
+     * @return true if an ISO8601 date-time has a seconds field, as in "2025-12-14T12:00:00Z".
+     */
+    public static boolean hasSeconds(String value) {
+        return value.length() > 16 && value.charAt(16) == ':';
+    }
+
+    public static long floor(long epochSecond) {
+        return Math.floorDiv(epochSecond, SLOT_SECONDS) * SLOT_SECONDS;
+    }
+
+    public static long ceil(long epochSecond) {
+        return -Math.floorDiv(-epochSecond, SLOT_SECONDS) * SLOT_SECONDS;
+    }
+
+    /**
+     * @return start of the first slot beginning strictly after the given instant.
+     */
+    public static Instant nextBoundary(Instant instant) {
+        return Instant.ofEpochSecond(floor(instant.getEpochSecond()) + SLOT_SECONDS);
+    }
+}
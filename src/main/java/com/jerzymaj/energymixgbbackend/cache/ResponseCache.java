@@ -0,0 +1,172 @@
+package com.jerzymaj.energymixgbbackend.cache;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized responses of the forecast endpoints. Every client asking within the same forecast
+ * period gets the same payload, so it is computed, serialized and compressed once per
+ * {@link ForecastCache#currentForecastVersion() forecast version}, key and {@link ResponseFormat}.
+ * Concurrent misses for the same key are coalesced.
+ */
+@Component
+public class ResponseCache {
+
+    private final ConcurrentHashMap<String, SerializedResponse> responses = new ConcurrentHashMap<>();
+    private final SingleFlight<String, SerializedResponse> renders = new SingleFlight<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private final Map<ResponseFormat, ObjectMapper> mappers = new EnumMap<>(ResponseFormat.class);
+
+    private final ForecastCache forecastCache;
+    private final Clock clock;
+
+    public ResponseCache(ForecastCache forecastCache, JsonMapper jsonMapper, Clock clock) {
+        this.forecastCache = forecastCache;
+        this.clock = clock;
+
+        mappers.put(ResponseFormat.JSON, jsonMapper);
+        mappers.put(ResponseFormat.CBOR, CBORMapper.builder().build());
+        mappers.put(ResponseFormat.SMILE, SmileMapper.builder().build());
+    }
+
+    /**
+     * @return response of the current forecast version in the given format, or null if it was not rendered yet.
+     */
+    public SerializedResponse getCurrent(String key, ResponseFormat format) {
+        SerializedResponse cached = responses.get(cacheKey(key, format));
+        long version = forecastCache.currentForecastVersion();
+
+        return cached != null && cached.forecastVersion() == version ? cached : null;
+    }
+
+    /**
+     * Returns the response of the current forecast version, rendering it with {@code producer} on a miss.
+     * Exceptions thrown by the producer are propagated and nothing is cached. Responses rendered while the
+     * {@link ForecastCache} serves stale slots are not cached either, so clients get fresh data once
+     * upstream recovers within the same forecast period.
+     *
+     * @param key      endpoint and parameters identifying the payload
+     * @param format   encoding of the body
+     * @param producer computes the response object
+     * @return serialized response
+     */
+    public SerializedResponse get(String key, ResponseFormat format, Supplier<?> producer) {
+        return get(key, format, forecastCache::isServingStale, producer);
+    }
+
+    /**
+     * Variant of {@link #get(String, ResponseFormat, Supplier)} for payloads computed from other caches than
+     * the national {@link ForecastCache}, e.g. the regional ones.
+     *
+     * @param stale true while the caches the producer reads serve stale slots
+     */
+    public SerializedResponse get(String key, ResponseFormat format, BooleanSupplier stale, Supplier<?> producer) {
+        SerializedResponse cached = getCurrent(key, format);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        long version = forecastCache.currentForecastVersion();
+
+        return renders.execute(cacheKey(key, format) + "@" + version, () -> {
+            boolean staleBefore = stale.getAsBoolean();
+            Object value = producer.get();
+            SerializedResponse rendered = render(version, format, value, staleBefore || stale.getAsBoolean());
+
+            if (!rendered.stale()) {
+                responses.put(cacheKey(key, format), rendered);
+            }
+            return rendered;
+        });
+    }
+
+    /**
+     * Renders a response without caching it, for payloads with too many variants to keep,
+     * e.g. those scored with a clean energy definition given by the request.
+     *
+     * @param format   encoding of the body
+     * @param producer computes the response object
+     * @return serialized response
+     */
+    public SerializedResponse renderUncached(ResponseFormat format, Supplier<?> producer) {
+        long version = forecastCache.currentForecastVersion();
+        boolean staleBefore = forecastCache.isServingStale();
+        Object value = producer.get();
+
+        return render(version, format, value, staleBefore || forecastCache.isServingStale());
+    }
+
+    /**
+     * @return how long clients may reuse the response, never negative.
+     */
+    public Duration maxAge(SerializedResponse response) {
+        if (response.stale()) {
+            return Duration.ZERO;
+        }
+
+        Duration maxAge = Duration.between(clock.instant(), response.expiresAt());
+
+        return maxAge.isNegative() ? Duration.ZERO : maxAge;
+    }
+
+    public int size() {
+        return responses.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public void clear() {
+        responses.clear();
+    }
+
+    private SerializedResponse render(long version, ResponseFormat format, Object value, boolean stale) {
+        byte[] body = mappers.get(format).writeValueAsBytes(value);
+        String eTag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+        Instant expiresAt = forecastCache.forecastExpiry(version);
+
+        return new SerializedResponse(version, format, body, gzip(body), eTag, expiresAt, stale);
+    }
+
+    private static String cacheKey(String key, ResponseFormat format) {
+        return format == ResponseFormat.JSON ? key : key + "|" + format.name();
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return compressed.toByteArray();
+    }
+}
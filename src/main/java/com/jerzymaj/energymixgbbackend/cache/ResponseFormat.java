@@ -0,0 +1,61 @@
+package com.jerzymaj.energymixgbbackend.cache;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+/**
+ * Encodings the cached forecast endpoints are rendered in. CBOR and Smile carry the same structure as JSON
+ * with binary numbers; Smile additionally writes every fuel name once per response and refers back to it
+ * afterwards, which is what makes the per-day fuel maps compact.
+ */
+public enum ResponseFormat {
+
+    JSON(MediaType.APPLICATION_JSON),
+    CBOR(MediaType.APPLICATION_CBOR),
+    SMILE(new MediaType("application", "x-jackson-smile"));
+
+    private final MediaType mediaType;
+
+    ResponseFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Picks the format with the highest quality in the {@code Accept} header. JSON wins ties and is
+     * returned when the header is missing, malformed or accepts none of the formats.
+     *
+     * @param accept value of the {@code Accept} header, may be null
+     * @return negotiated format.
+     */
+    public static ResponseFormat negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return JSON;
+        }
+
+        List<MediaType> acceptedTypes;
+        try {
+            acceptedTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException ex) {
+            return JSON;
+        }
+
+        ResponseFormat best = JSON;
+        double bestQuality = 0;
+
+        for (MediaType acceptedType : acceptedTypes) {
+            for (ResponseFormat format : values()) {
+                if (acceptedType.getQualityValue() > bestQuality && acceptedType.includes(format.mediaType)) {
+                    best = format;
+                    bestQuality = acceptedType.getQualityValue();
+                }
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,48 @@
+package com.jerzymaj.energymixgbbackend.cache;
+
+import java.time.Instant;
+
+/**
+ * Response body serialized once per forecast version, in plain and gzip form.
+ *
+ * @param forecastVersion version of the forecast the body was computed from
+ * @param format          encoding of the body
+ * @param body            encoded bytes
+ * @param gzipBody        gzip-compressed encoded bytes
+ * @param eTag            strong entity tag of the plain body, quoted
+ * @param expiresAt       instant at which a newer forecast replaces this body
+ * @param stale           true if the body was computed from slots served past their expiry
+ */
+public record SerializedResponse(long forecastVersion, ResponseFormat format, byte[] body, byte[] gzipBody,
+                                 String eTag, Instant expiresAt, boolean stale) {
+
+    /**
+     * Entity tag of the gzip variant. Both variants carry the same content, so either one
+     * is accepted in {@code If-None-Match}.
+     */
+    public String gzipETag() {
+        return eTag.substring(0, eTag.length() - 1) + "-gzip\"";
+    }
+
+    /**
+     * @param ifNoneMatch value of the {@code If-None-Match} header, may be null
+     * @return true if the client already holds this body.
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(eTag) || candidate.equals(gzipETag())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
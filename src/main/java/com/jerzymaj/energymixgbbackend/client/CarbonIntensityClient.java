@@ -0,0 +1,303 @@
+package com.jerzymaj.energymixgbbackend.client;
+
+import com.jerzymaj.energymixgbbackend.DTOs.EnergyMixInterval;
+import com.jerzymaj.energymixgbbackend.DTOs.EnergyResponse;
+import com.jerzymaj.energymixgbbackend.DTOs.RegionalEnergyResponse;
+import com.jerzymaj.energymixgbbackend.cache.HalfHourSlots;
+import com.jerzymaj.energymixgbbackend.columnar.GenerationStreamDecoder;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+import com.jerzymaj.energymixgbbackend.metrics.EnergyMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Client of the Carbon Intensity {@code /generation/{from}/{to}} and
+ * {@code /regional/intensity/{from}/{to}/regionid/{regionId}} endpoints.
+ * By default the national payload is decoded token by token into {@link IntervalColumns};
+ * with {@code energy.decoder.streaming=false} it is bound to {@link EnergyResponse} first.
+ * <p>
+ * With a positive {@code energy.upstream.hedge-after} a call which has not completed within that
+ * delay is hedged: an identical second request is sent and whichever succeeds first is used.
+ * The primary request runs on the calling thread, only the hedge runs on a separate one, and at most
+ * {@code energy.upstream.max-hedges} hedges are in flight at a time.
+ */
+@Component
+public class CarbonIntensityClient {
+
+    private static final String GENERATION_URI = "/generation/{from}/{to}";
+    private static final String REGIONAL_URI = "/regional/intensity/{from}/{to}/regionid/{regionId}";
+
+    private final RestClient restClient;
+    private final GenerationStreamDecoder decoder;
+    private final boolean streamingDecode;
+    private final EnergyMetrics metrics;
+    private final Duration hedgeAfter;
+    private final Semaphore hedgePermits;
+    private final ExecutorService hedgeExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public CarbonIntensityClient(RestClient restClient, GenerationStreamDecoder decoder,
+                                 @Value("${energy.decoder.streaming:true}") boolean streamingDecode,
+                                 @Value("${energy.upstream.hedge-after:PT0S}") Duration hedgeAfter,
+                                 @Value("${energy.upstream.max-hedges:4}") int maxHedges,
+                                 EnergyMetrics metrics) {
+        this.restClient = restClient;
+        this.decoder = decoder;
+        this.streamingDecode = streamingDecode;
+        this.hedgeAfter = hedgeAfter;
+        this.hedgePermits = new Semaphore(Math.max(0, maxHedges));
+        this.metrics = metrics;
+    }
+
+    /**
+     * Fetches the generation mix for a range.
+     *
+     * @param from start of the range
+     * @param to   end of the range
+     * @return intervals returned by the API, empty if there was no data.
+     */
+    public IntervalColumns fetchGeneration(Instant from, Instant to) {
+
+        return hedged(() -> fetchOnce(from, to));
+    }
+
+    /**
+     * Fetches the generation mix of one DNO region for a range. The regional payload nests the intervals
+     * one level deeper than the national one, so it is bound to {@link RegionalEnergyResponse}.
+     *
+     * @param region DNO region
+     * @param from   start of the range
+     * @param to     end of the range
+     * @return intervals returned by the API, empty if there was no data.
+     */
+    public IntervalColumns fetchRegionalGeneration(DnoRegion region, Instant from, Instant to) {
+
+        return hedged(() -> fetchRegionalOnce(region, from, to));
+    }
+
+    @PreDestroy
+    public void close() {
+        hedgeExecutor.shutdownNow();
+    }
+
+    private IntervalColumns hedged(Supplier<IntervalColumns> call) {
+        if (hedgeAfter.isZero() || hedgeAfter.isNegative()) {
+            return call.get();
+        }
+
+        HedgedCall hedgedCall = new HedgedCall(Thread.currentThread());
+        Future<?> hedge = hedgeExecutor.submit(() -> hedgedCall.runHedge(call));
+
+        try {
+            return hedgedCall.primarySucceeded(call.get());
+        } catch (RuntimeException ex) {
+            return hedgedCall.primaryFailed(ex);
+        } finally {
+            hedge.cancel(true);
+        }
+    }
+
+    private IntervalColumns fetchOnce(Instant from, Instant to) {
+
+        return instrumented("national", from, to, () -> {
+            if (streamingDecode) {
+                return fetchGenerationStreaming(from, to);
+            }
+
+            EnergyResponse response = fetchGenerationResponse(from, to);
+
+            return response == null ? bound(null) : bound(response.data());
+        });
+    }
+
+    private IntervalColumns fetchRegionalOnce(DnoRegion region, Instant from, Instant to) {
+
+        return instrumented("regional", from, to, () -> {
+            RegionalEnergyResponse response = restClient.get()
+                    .uri(REGIONAL_URI, HalfHourSlots.format(from), HalfHourSlots.format(to), region.id())
+                    .retrieve()
+                    .body(RegionalEnergyResponse.class);
+
+            return response == null || response.data() == null ? bound(null) : bound(response.data().data());
+        });
+    }
+
+    private IntervalColumns bound(List<EnergyMixInterval> intervals) {
+        if (intervals == null) {
+            metrics.recordIntervals(0);
+            return IntervalColumns.EMPTY;
+        }
+
+        metrics.recordIntervals(intervals.size());
+        return IntervalColumns.fromIntervals(intervals);
+    }
+
+    private IntervalColumns instrumented(String feed, Instant from, Instant to, Supplier<IntervalColumns> call) {
+        long started = System.nanoTime();
+        long rangeSeconds = to.getEpochSecond() - from.getEpochSecond();
+        String status = "200";
+
+        try {
+            return call.get();
+        } catch (RestClientResponseException ex) {
+            status = Integer.toString(ex.getStatusCode().value());
+            throw ex;
+        } catch (RuntimeException ex) {
+            status = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            metrics.recordUpstream(feed, status, rangeSeconds, System.nanoTime() - started);
+        }
+    }
+
+    /**
+     * Fetches the generation mix bound to the {@link EnergyResponse} records.
+     */
+    public EnergyResponse fetchGenerationResponse(Instant from, Instant to) {
+        return restClient.get()
+                .uri(GENERATION_URI, HalfHourSlots.format(from), HalfHourSlots.format(to))
+                .retrieve()
+                .body(EnergyResponse.class);
+    }
+
+    private IntervalColumns fetchGenerationStreaming(Instant from, Instant to) {
+        return restClient.get()
+                .uri(GENERATION_URI, HalfHourSlots.format(from), HalfHourSlots.format(to))
+                .exchange((request, response) -> {
+                    if (response.getStatusCode().isError()) {
+                        throw new RestClientResponseException(
+                                "Carbon Intensity API responded with " + response.getStatusCode(),
+                                response.getStatusCode(), response.getStatusText(), response.getHeaders(), null, null);
+                    }
+
+                    long decodeStarted = System.nanoTime();
+                    IntervalColumns columns = decoder.decode(response.getBody());
+                    metrics.recordDecode(System.nanoTime() - decodeStarted, columns.size());
+
+                    return columns;
+                });
+    }
+
+    private static RuntimeException unwrap(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure;
+
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    /**
+     * State shared by the primary request, running on {@link #caller}, and its hedge. A hedge which succeeds
+     * while the primary is still running interrupts the caller so the primary request is abandoned; the loser
+     * of the race is always cancelled.
+     */
+    private final class HedgedCall {
+
+        private final Thread caller;
+        private final CompletableFuture<IntervalColumns> hedgeResult = new CompletableFuture<>();
+        private boolean primaryDone;
+        private boolean hedgeStarted;
+        private boolean hedgeWon;
+
+        private HedgedCall(Thread caller) {
+            this.caller = caller;
+        }
+
+        private void runHedge(Supplier<IntervalColumns> call) {
+            try {
+                Thread.sleep(hedgeAfter);
+            } catch (InterruptedException ex) {
+                return;
+            }
+
+            if (!startHedge()) {
+                return;
+            }
+
+            try {
+                hedgeResult.complete(call.get());
+                hedgeSucceeded();
+            } catch (RuntimeException ex) {
+                hedgeResult.completeExceptionally(ex);
+            } finally {
+                hedgePermits.release();
+            }
+        }
+
+        private synchronized boolean startHedge() {
+            if (primaryDone || !hedgePermits.tryAcquire()) {
+                return false;
+            }
+
+            metrics.recordHedge();
+            hedgeStarted = true;
+            return true;
+        }
+
+        private synchronized void hedgeSucceeded() {
+            if (!primaryDone) {
+                hedgeWon = true;
+                caller.interrupt();
+            }
+        }
+
+        private IntervalColumns primarySucceeded(IntervalColumns columns) {
+            if (finishPrimary()) {
+                return hedgeResult.join();
+            }
+            return columns;
+        }
+
+        /**
+         * Falls back to the hedge if one is in flight, otherwise rethrows the failure of the primary.
+         */
+        private IntervalColumns primaryFailed(RuntimeException failure) {
+            boolean won = finishPrimary();
+            boolean started;
+
+            synchronized (this) {
+                started = hedgeStarted;
+            }
+
+            if (!won && !started) {
+                throw failure;
+            }
+
+            try {
+                return hedgeResult.join();
+            } catch (CompletionException ex) {
+                throw unwrap(ex.getCause());
+            }
+        }
+
+        /**
+         * Marks the primary as finished and clears the interrupt of a hedge which got there first,
+         * which is delivered under the same lock, so it cannot leak past this call.
+         *
+         * @return whether the hedge won the race
+         */
+        private synchronized boolean finishPrimary() {
+            primaryDone = true;
+
+            if (hedgeWon) {
+                Thread.interrupted();
+            }
+            return hedgeWon;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.jerzymaj.energymixgbbackend.client;
+
+/**
+ * The 14 distribution network operator regions of the Carbon Intensity API, with their upstream region ids.
+ */
+public enum DnoRegion {
+
+    NORTH_SCOTLAND(1, "North Scotland", "Scottish Hydro Electric Power Distribution"),
+    SOUTH_SCOTLAND(2, "South Scotland", "SP Distribution"),
+    NORTH_WEST_ENGLAND(3, "North West England", "Electricity North West"),
+    NORTH_EAST_ENGLAND(4, "North East England", "NPG North East"),
+    YORKSHIRE(5, "Yorkshire", "NPG Yorkshire"),
+    NORTH_WALES_AND_MERSEYSIDE(6, "North Wales & Merseyside", "SP Manweb"),
+    SOUTH_WALES(7, "South Wales", "WPD South Wales"),
+    WEST_MIDLANDS(8, "West Midlands", "WPD West Midlands"),
+    EAST_MIDLANDS(9, "East Midlands", "WPD East Midlands"),
+    EAST_ENGLAND(10, "East England", "UKPN East"),
+    SOUTH_WEST_ENGLAND(11, "South West England", "WPD South West"),
+    SOUTH_ENGLAND(12, "South England", "SSE South"),
+    LONDON(13, "London", "UKPN London"),
+    SOUTH_EAST_ENGLAND(14, "South East England", "UKPN South East");
+
+    private final int id;
+    private final String shortName;
+    private final String dnoRegion;
+
+    DnoRegion(int id, String shortName, String dnoRegion) {
+        this.id = id;
+        this.shortName = shortName;
+        this.dnoRegion = dnoRegion;
+    }
+
+    public int id() {
+        return id;
+    }
+
+    public String shortName() {
+        return shortName;
+    }
+
+    public String dnoRegion() {
+        return dnoRegion;
+    }
+}
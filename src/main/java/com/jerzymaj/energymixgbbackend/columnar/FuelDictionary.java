@@ -0,0 +1,90 @@
+package com.jerzymaj.energymixgbbackend.columnar;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Fixed dictionary of the fuel types reported by the Carbon Intensity API.
+ * Each fuel has a stable index used for the per-fuel columns of {@link IntervalColumns}
+ * and a bit in fuel masks, e.g. the clean energy mask.
+ * Fuel names which are not in the dictionary are accounted as {@code other}.
+ */
+public final class FuelDictionary {
+
+    public static final List<String> FUELS =
+            List.of("biomass", "coal", "imports", "gas", "nuclear", "other", "hydro", "solar", "wind");
+
+    public static final int SIZE = FUELS.size();
+
+    public static final int OTHER = FUELS.indexOf("other");
+
+    private FuelDictionary() {
+    }
+
+    public static int indexOf(String fuel) {
+        int index = FUELS.indexOf(fuel);
+
+        return index < 0 ? OTHER : index;
+    }
+
+    /**
+     * Allocation-free lookup of a fuel name held in a character buffer, e.g. by a streaming parser.
+     */
+    public static int indexOf(char[] buffer, int offset, int length) {
+        for (int index = 0; index < SIZE; index++) {
+            String fuel = FUELS.get(index);
+
+            if (fuel.length() == length && regionMatches(fuel, buffer, offset)) {
+                return index;
+            }
+        }
+
+        return OTHER;
+    }
+
+    public static String nameOf(int index) {
+        return FUELS.get(index);
+    }
+
+    /**
+     * @return index of a fuel name of the dictionary.
+     * @throws IllegalArgumentException if the name is not in the dictionary.
+     */
+    public static int requireIndexOf(String fuel) {
+        int index = FUELS.indexOf(fuel);
+
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown fuel " + fuel + ", expected one of " + FUELS);
+        }
+        return index;
+    }
+
+    /**
+     * @return mask with the bit of every given fuel set.
+     * @throws IllegalArgumentException if a name is not in the dictionary, so a misspelt
+     *                                  {@code energy.clean-types} entry fails the startup.
+     */
+    public static long maskOf(Collection<String> fuels) {
+        long mask = 0;
+
+        for (String fuel : fuels) {
+            mask |= 1L << requireIndexOf(fuel.trim());
+        }
+
+        return mask;
+    }
+
+    public static boolean contains(long mask, int index) {
+        return (mask & (1L << index)) != 0;
+    }
+
+    private static boolean regionMatches(String fuel, char[] buffer, int offset) {
+        for (int i = 0; i < fuel.length(); i++) {
+            if (fuel.charAt(i) != buffer[offset + i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
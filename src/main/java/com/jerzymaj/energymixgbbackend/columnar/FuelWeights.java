@@ -0,0 +1,131 @@
+package com.jerzymaj.energymixgbbackend.columnar;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Clean energy definition given with a request: a weight between 0 and 1 for every fuel of the
+ * {@link FuelDictionary}. A plain set of clean fuels is the case of weights 0 and 1. The clean energy score
+ * of an interval is the dot product of the weights with its fuel percentages, see
+ * {@link IntervalColumns#weightedSum(FuelWeights)}. Instances are immutable.
+ */
+public final class FuelWeights {
+
+    private final double[] weights;
+
+    private FuelWeights(double[] weights) {
+        this.weights = weights;
+    }
+
+    /**
+     * @return weights 1 for the fuels in the mask and 0 for the others.
+     */
+    public static FuelWeights ofMask(long fuelMask) {
+        double[] weights = new double[FuelDictionary.SIZE];
+
+        for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+            weights[fuel] = FuelDictionary.contains(fuelMask, fuel) ? 1 : 0;
+        }
+        return new FuelWeights(weights);
+    }
+
+    /**
+     * Builds the definition from the request parameters, at most one of which may be given.
+     *
+     * @param cleanTypes fuels counted as clean, e.g. {@code [wind, solar, hydro]}
+     * @param weights    {@code fuel:weight} pairs, e.g. {@code [wind:1, nuclear:0.5]}, fuels not listed weigh 0
+     * @return the definition, or null if neither parameter was given.
+     * @throws IllegalArgumentException if both are given, a fuel is unknown or a weight is outside [0, 1].
+     */
+    public static FuelWeights fromRequest(List<String> cleanTypes, List<String> weights) {
+        boolean hasCleanTypes = cleanTypes != null && !cleanTypes.isEmpty();
+        boolean hasWeights = weights != null && !weights.isEmpty();
+
+        if (hasCleanTypes && hasWeights) {
+            throw new IllegalArgumentException("Only one of cleanTypes and weights may be given");
+        }
+        if (hasCleanTypes) {
+            return ofFuels(cleanTypes);
+        }
+        if (hasWeights) {
+            return parse(weights);
+        }
+        return null;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a fuel is not in the {@link FuelDictionary}.
+     */
+    public static FuelWeights ofFuels(Collection<String> fuels) {
+        double[] weights = new double[FuelDictionary.SIZE];
+
+        for (String fuel : fuels) {
+            weights[FuelDictionary.requireIndexOf(fuel.trim())] = 1;
+        }
+        return new FuelWeights(weights);
+    }
+
+    /**
+     * @param pairs {@code fuel:weight} pairs
+     * @throws IllegalArgumentException if a pair is malformed, a fuel is unknown or a weight is outside [0, 1].
+     */
+    public static FuelWeights parse(Collection<String> pairs) {
+        double[] weights = new double[FuelDictionary.SIZE];
+
+        for (String pair : pairs) {
+            int separator = pair.indexOf(':');
+
+            if (separator < 0) {
+                throw new IllegalArgumentException("Weight must be given as fuel:weight, was " + pair);
+            }
+
+            double weight;
+            try {
+                weight = Double.parseDouble(pair.substring(separator + 1).trim());
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Weight of " + pair + " is not a number");
+            }
+            if (!(weight >= 0 && weight <= 1)) {
+                throw new IllegalArgumentException("Weight of " + pair + " must be between 0 and 1");
+            }
+
+            weights[FuelDictionary.requireIndexOf(pair.substring(0, separator).trim())] = weight;
+        }
+        return new FuelWeights(weights);
+    }
+
+    public double weight(int fuel) {
+        return weights[fuel];
+    }
+
+    /**
+     * @return canonical form, fuels in dictionary order and without zero weights, usable as a cache key.
+     */
+    public String key() {
+        StringJoiner key = new StringJoiner(",");
+
+        for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+            if (weights[fuel] != 0) {
+                key.add(FuelDictionary.nameOf(fuel) + ":" + weights[fuel]);
+            }
+        }
+        return key.toString();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof FuelWeights fuelWeights && Arrays.equals(weights, fuelWeights.weights);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(weights);
+    }
+
+    @Override
+    public String toString() {
+        return key();
+    }
+}
@@ -0,0 +1,185 @@
+package com.jerzymaj.energymixgbbackend.columnar;
+
+import com.jerzymaj.energymixgbbackend.cache.HalfHourSlots;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.json.JsonFactory;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Token-level decoder of the {@code /generation} payload:
+ * <pre>{"data": [{"from": "...", "to": "...", "generationmix": [{"fuel": "...", "perc": 0.0}]}]}</pre>
+ * Values are written straight into primitive buffers taken from a small bounded pool and returned after
+ * the decode, so no {@code EnergyResponse}/{@code EnergyMixInterval}/{@code Fuel} object graph is created.
+ * The pool is shared rather than per thread because every request and upstream call runs on a fresh
+ * virtual thread; when it is empty a decode allocates its own buffers and drops them if the pool is full.
+ * The only allocation per response is the trimmed copy made by {@link IntervalColumns.Builder#build()}.
+ */
+@Component
+public class GenerationStreamDecoder {
+
+    private static final int POOLED_BUFFERS = 8;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final BlockingQueue<Buffers> pool = new ArrayBlockingQueue<>(POOLED_BUFFERS);
+
+    public IntervalColumns decode(InputStream input) {
+        Buffers reusable = pool.poll();
+
+        if (reusable == null) {
+            reusable = new Buffers();
+        }
+
+        try {
+            return decode(input, reusable);
+        } finally {
+            pool.offer(reusable);
+        }
+    }
+
+    private IntervalColumns decode(InputStream input, Buffers reusable) {
+        reusable.columns.reset();
+
+        try (JsonParser parser = jsonFactory.createParser(input)) {
+            JsonToken token = parser.nextToken();
+
+            if (token == null) {
+                return IntervalColumns.EMPTY;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new IllegalStateException("Unexpected generation payload, expected an object but got " + token);
+            }
+
+            while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                if ("data".equals(name) && value == JsonToken.START_ARRAY) {
+                    readIntervals(parser, reusable);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        return reusable.columns.build();
+    }
+
+    private void readIntervals(JsonParser parser, Buffers reusable) {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            long start = Long.MIN_VALUE;
+            long rowFuels = 0;
+            Arrays.fill(reusable.row, 0);
+
+            while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                if ("from".equals(name) && value == JsonToken.VALUE_STRING) {
+                    start = parseEpochSecond(parser, reusable.columns);
+                } else if ("generationmix".equals(name) && value == JsonToken.START_ARRAY) {
+                    rowFuels = readGenerationMix(parser, reusable.row);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (start != Long.MIN_VALUE) {
+                reusable.columns.addRow(HalfHourSlots.floor(start), reusable.row, rowFuels);
+            }
+        }
+    }
+
+    private long readGenerationMix(JsonParser parser, double[] row) {
+        long rowFuels = 0;
+
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            int fuel = -1;
+            double percent = 0;
+
+            while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                if ("fuel".equals(name) && value == JsonToken.VALUE_STRING) {
+                    fuel = FuelDictionary.indexOf(parser.getStringCharacters(), parser.getStringOffset(),
+                            parser.getStringLength());
+                } else if ("perc".equals(name) && value.isNumeric()) {
+                    percent = parser.getDoubleValue();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (fuel >= 0) {
+                row[fuel] += percent;
+                rowFuels |= 1L << fuel;
+            }
+        }
+
+        return rowFuels;
+    }
+
+    /**
+     * Parses {@code yyyy-MM-ddTHH:mm[:ss]Z} without creating a String, other formats fall back to
+     * {@link HalfHourSlots#parse(String)}. Whether the timestamp has seconds is recorded on the columns.
+     */
+    private long parseEpochSecond(JsonParser parser, IntervalColumns.Builder columns) {
+        char[] chars = parser.getStringCharacters();
+        int offset = parser.getStringOffset();
+        int length = parser.getStringLength();
+
+        boolean minutesOnly = length == 17 && chars[offset + 16] == 'Z';
+        boolean withSeconds = length == 20 && chars[offset + 19] == 'Z' && chars[offset + 16] == ':';
+
+        if (!(minutesOnly || withSeconds) || chars[offset + 10] != 'T') {
+            String value = parser.getString();
+            columns.timestampsWithSeconds(HalfHourSlots.hasSeconds(value));
+            return HalfHourSlots.parse(value).getEpochSecond();
+        }
+
+        columns.timestampsWithSeconds(withSeconds);
+
+        int year = digits(chars, offset, 4);
+        int month = digits(chars, offset + 5, 2);
+        int day = digits(chars, offset + 8, 2);
+        int hour = digits(chars, offset + 11, 2);
+        int minute = digits(chars, offset + 14, 2);
+        int second = withSeconds ? digits(chars, offset + 17, 2) : 0;
+
+        return epochDay(year, month, day) * 86_400 + hour * 3_600L + minute * 60L + second;
+    }
+
+    private static int digits(char[] chars, int offset, int count) {
+        int value = 0;
+
+        for (int i = offset; i < offset + count; i++) {
+            value = value * 10 + (chars[i] - '0');
+        }
+
+        return value;
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic Gregorian date (civil-from-days inverse).
+     */
+    private static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+
+    private static final class Buffers {
+        private final IntervalColumns.Builder columns = IntervalColumns.builder(256);
+        private final double[] row = new double[FuelDictionary.SIZE];
+    }
+}
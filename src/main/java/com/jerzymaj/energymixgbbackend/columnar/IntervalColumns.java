@@ -0,0 +1,313 @@
+package com.jerzymaj.energymixgbbackend.columnar;
+
+import com.jerzymaj.energymixgbbackend.DTOs.EnergyMixInterval;
+import com.jerzymaj.energymixgbbackend.DTOs.EnergyResponse;
+import com.jerzymaj.energymixgbbackend.DTOs.Fuel;
+import com.jerzymaj.energymixgbbackend.cache.HalfHourSlots;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Columnar, primitive-backed series of consecutive 30-minute intervals.
+ * Start times are kept as epoch seconds and every fuel of the {@link FuelDictionary}
+ * has its own {@code double[]} column of percentages, so aggregations run over plain arrays
+ * without boxing. A fuel missing from an interval has percentage 0 there and is absent from that interval's
+ * {@link #fuels(int) fuel mask}. Whether the upstream timestamps carried seconds is kept, so
+ * {@link #formatStart(int)} and {@link #formatEnd(int)} echo them in the same form. Instances are immutable once built.
+ */
+public final class IntervalColumns {
+
+    public static final IntervalColumns EMPTY = new Builder(0).build();
+
+    private final int size;
+    private final long[] starts;
+    private final double[][] fuelPercents;
+    private final long[] rowFuels;
+    private final long presentFuels;
+    private final boolean timestampsWithSeconds;
+
+    private IntervalColumns(int size, long[] starts, double[][] fuelPercents, long[] rowFuels, long presentFuels,
+                            boolean timestampsWithSeconds) {
+        this.size = size;
+        this.starts = starts;
+        this.fuelPercents = fuelPercents;
+        this.rowFuels = rowFuels;
+        this.presentFuels = presentFuels;
+        this.timestampsWithSeconds = timestampsWithSeconds;
+    }
+
+    public static Builder builder(int capacity) {
+        return new Builder(capacity);
+    }
+
+    /**
+     * Converts intervals bound from the API response into columns.
+     */
+    public static IntervalColumns fromIntervals(List<EnergyMixInterval> intervals) {
+        Builder builder = new Builder(intervals.size());
+
+        if (!intervals.isEmpty()) {
+            builder.timestampsWithSeconds(HalfHourSlots.hasSeconds(intervals.getFirst().from()));
+        }
+
+        for (EnergyMixInterval interval : intervals) {
+            int row = builder.addInterval(HalfHourSlots.parse(interval.from()).getEpochSecond());
+
+            if (interval.generationMix() != null) {
+                for (Fuel fuel : interval.generationMix()) {
+                    builder.addPercent(row, FuelDictionary.indexOf(fuel.fuel()), fuel.percentage());
+                }
+            }
+        }
+
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return start of the interval as epoch second.
+     */
+    public long start(int row) {
+        return starts[row];
+    }
+
+    public long end(int row) {
+        return starts[row] + HalfHourSlots.SLOT_SECONDS;
+    }
+
+    /**
+     * @return start of the interval formatted like the upstream timestamps.
+     */
+    public String formatStart(int row) {
+        return HalfHourSlots.format(start(row), timestampsWithSeconds);
+    }
+
+    /**
+     * @return end of the interval formatted like the upstream timestamps.
+     */
+    public String formatEnd(int row) {
+        return HalfHourSlots.format(end(row), timestampsWithSeconds);
+    }
+
+    public boolean timestampsWithSeconds() {
+        return timestampsWithSeconds;
+    }
+
+    public double percent(int fuel, int row) {
+        return fuelPercents[fuel][row];
+    }
+
+    /**
+     * @return mask of the fuels reported in at least one interval.
+     */
+    public long presentFuels() {
+        return presentFuels;
+    }
+
+    /**
+     * @return mask of the fuels reported with the interval.
+     */
+    public long fuels(int row) {
+        return rowFuels[row];
+    }
+
+    /**
+     * Sums the percentages of the fuels in the mask for every interval.
+     *
+     * @param fuelMask fuels to include, e.g. the clean energy mask.
+     * @return one value per interval.
+     */
+    public double[] sumPercents(long fuelMask) {
+        double[] sums = new double[size];
+
+        for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+            if (FuelDictionary.contains(fuelMask, fuel)) {
+                double[] column = fuelPercents[fuel];
+
+                for (int row = 0; row < size; row++) {
+                    sums[row] += column[row];
+                }
+            }
+        }
+
+        return sums;
+    }
+
+    /**
+     * Weighted variant of {@link #sumPercents(long)}: the dot product of the weights with the fuel percentages
+     * of every interval. Runs column by column over fuels with a non-zero weight, so the inner loop is a
+     * multiply-add over contiguous arrays which the JIT vectorizes.
+     *
+     * @param weights weight of every fuel
+     * @return one value per interval.
+     */
+    public double[] weightedSum(FuelWeights weights) {
+        double[] sums = new double[size];
+
+        for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+            double weight = weights.weight(fuel);
+
+            if (weight != 0) {
+                double[] column = fuelPercents[fuel];
+
+                for (int row = 0; row < size; row++) {
+                    sums[row] += weight * column[row];
+                }
+            }
+        }
+
+        return sums;
+    }
+
+    /**
+     * Copies one interval into {@code target}, indexed by fuel.
+     */
+    public void copyRow(int row, double[] target) {
+        for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+            target[fuel] = fuelPercents[fuel][row];
+        }
+    }
+
+    /**
+     * Converts the columns back to the API representation, used at the edges only.
+     */
+    public EnergyResponse toEnergyResponse() {
+        List<EnergyMixInterval> intervals = new ArrayList<>(size);
+
+        for (int row = 0; row < size; row++) {
+            List<Fuel> generationMix = new ArrayList<>(FuelDictionary.SIZE);
+
+            for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+                if (FuelDictionary.contains(rowFuels[row], fuel)) {
+                    generationMix.add(new Fuel(FuelDictionary.nameOf(fuel), fuelPercents[fuel][row]));
+                }
+            }
+
+            intervals.add(new EnergyMixInterval(formatStart(row), formatEnd(row), generationMix));
+        }
+
+        return new EnergyResponse(intervals);
+    }
+
+    /**
+     * Growable builder, intervals have to be added in start order.
+     */
+    public static final class Builder {
+
+        private int size;
+        private long[] starts;
+        private long[] rowFuels;
+        private final double[][] fuelPercents = new double[FuelDictionary.SIZE][];
+        private long presentFuels;
+        private boolean timestampsWithSeconds;
+
+        private Builder(int capacity) {
+            starts = new long[capacity];
+            rowFuels = new long[capacity];
+
+            for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+                fuelPercents[fuel] = new double[capacity];
+            }
+        }
+
+        /**
+         * @return row index of the new interval, all its percentages start at zero.
+         */
+        public int addInterval(long start) {
+            if (size == starts.length) {
+                grow();
+            }
+
+            starts[size] = start;
+            rowFuels[size] = 0;
+
+            for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+                fuelPercents[fuel][size] = 0;
+            }
+
+            return size++;
+        }
+
+        public void addPercent(int row, int fuel, double percent) {
+            fuelPercents[fuel][row] += percent;
+            rowFuels[row] |= 1L << fuel;
+            presentFuels |= 1L << fuel;
+        }
+
+        /**
+         * Sets a percentage without touching the fuel mask, used together with {@link #addFuels(int, long)}
+         * when copying already decoded rows.
+         */
+        public void setPercent(int row, int fuel, double percent) {
+            fuelPercents[fuel][row] = percent;
+        }
+
+        public void addFuels(int row, long fuels) {
+            rowFuels[row] |= fuels;
+            presentFuels |= fuels;
+        }
+
+        /**
+         * Adds an interval from a row indexed by fuel.
+         */
+        public void addRow(long start, double[] row, long fuels) {
+            int index = addInterval(start);
+
+            for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+                fuelPercents[fuel][index] = row[fuel];
+            }
+
+            addFuels(index, fuels);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Records whether the upstream timestamps of these intervals carried seconds.
+         */
+        public void timestampsWithSeconds(boolean withSeconds) {
+            timestampsWithSeconds = withSeconds;
+        }
+
+        public void reset() {
+            size = 0;
+            presentFuels = 0;
+            timestampsWithSeconds = false;
+        }
+
+        /**
+         * @return immutable columns trimmed to the number of added intervals.
+         */
+        public IntervalColumns build() {
+            double[][] columns = new double[FuelDictionary.SIZE][];
+
+            for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+                columns[fuel] = Arrays.copyOf(fuelPercents[fuel], size);
+            }
+
+            return new IntervalColumns(size, Arrays.copyOf(starts, size), columns, Arrays.copyOf(rowFuels, size),
+                    presentFuels, timestampsWithSeconds);
+        }
+
+        private void grow() {
+            int capacity = Math.max(16, starts.length * 2);
+            starts = Arrays.copyOf(starts, capacity);
+            rowFuels = Arrays.copyOf(rowFuels, capacity);
+
+            for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+                fuelPercents[fuel] = Arrays.copyOf(fuelPercents[fuel], capacity);
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.jerzymaj.energymixgbbackend.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class AsyncConfig implements WebMvcConfigurer {
+
+    @Value("${energy.async.timeout:PT30S}")
+    private Duration asyncTimeout;
+
+    /**
+     * Runs the asynchronous endpoints, a blocked upstream call only parks a virtual thread.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService requestExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("request-", 0).factory());
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(asyncTimeout.toMillis());
+    }
+}
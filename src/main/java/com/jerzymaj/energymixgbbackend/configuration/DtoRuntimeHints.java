@@ -0,0 +1,34 @@
+package com.jerzymaj.energymixgbbackend.configuration;
+
+import com.jerzymaj.energymixgbbackend.DTOs.*;
+import com.jerzymaj.energymixgbbackend.exceptions.ErrorDetails;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import java.util.List;
+
+/**
+ * Reflection hints for the records Jackson binds in a native image. The AOT engine only infers types from
+ * controller signatures, but most responses are rendered from a {@code Supplier<?>} by the response cache
+ * and the upstream payloads are read through {@code RestClient}, so every record is registered here.
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(DtoRuntimeHints.class)
+public class DtoRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final List<Class<?>> BOUND_TYPES = List.of(
+            ChargingRequest.class, ChargingSchedule.class, ChargingWindowCurvePoint.class, DailyEnergySummary.class,
+            EnergyDistribution.class, EnergyMixInterval.class, EnergyResponse.class, ForecastUpdate.class, Fuel.class,
+            OptimalChargingWindow.class, RegionalChargingWindow.class, RegionalEnergyData.class,
+            RegionalEnergyResponse.class, RegionalEnergySummary.class, ErrorDetails.class);
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        bindingRegistrar.registerReflectionHints(hints.reflection(), BOUND_TYPES.toArray(Class<?>[]::new));
+    }
+}
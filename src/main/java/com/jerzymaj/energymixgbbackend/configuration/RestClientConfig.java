@@ -3,15 +3,29 @@ package com.jerzymaj.energymixgbbackend.configuration;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
 @Configuration
 public class RestClientConfig {
 
     @Bean
-    public RestClient restClient(@Value("${api.carbon-intensity.url}") String baseUrl) {
+    public RestClient restClient(@Value("${api.carbon-intensity.url}") String baseUrl,
+                                 @Value("${energy.upstream.connect-timeout:PT2S}") Duration connectTimeout,
+                                 @Value("${energy.upstream.read-timeout:PT5S}") Duration readTimeout) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .build();
+
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(readTimeout);
+
         return RestClient.builder()
                 .baseUrl(baseUrl)
+                .requestFactory(requestFactory)
                 .build();
     }
 }
@@ -1,32 +1,340 @@
 package com.jerzymaj.energymixgbbackend.controller;
 
+import com.jerzymaj.energymixgbbackend.DTOs.ChargingRequest;
+import com.jerzymaj.energymixgbbackend.DTOs.ChargingSchedule;
+import com.jerzymaj.energymixgbbackend.DTOs.ChargingWindowCurvePoint;
 import com.jerzymaj.energymixgbbackend.DTOs.DailyEnergySummary;
+import com.jerzymaj.energymixgbbackend.DTOs.EnergyDistribution;
 import com.jerzymaj.energymixgbbackend.DTOs.OptimalChargingWindow;
+import com.jerzymaj.energymixgbbackend.analytics.IntervalAnalytics;
+import com.jerzymaj.energymixgbbackend.cache.ForecastCache;
+import com.jerzymaj.energymixgbbackend.cache.ResponseCache;
+import com.jerzymaj.energymixgbbackend.cache.ResponseFormat;
+import com.jerzymaj.energymixgbbackend.cache.SerializedResponse;
+import com.jerzymaj.energymixgbbackend.columnar.FuelWeights;
+import com.jerzymaj.energymixgbbackend.service.EnergyAnalyticsService;
 import com.jerzymaj.energymixgbbackend.service.EnergyMixService;
+import com.jerzymaj.energymixgbbackend.service.FleetSchedule;
+import com.jerzymaj.energymixgbbackend.service.FleetSchedulingService;
+import com.jerzymaj.energymixgbbackend.service.HistoricalSummaryService;
+import com.jerzymaj.energymixgbbackend.service.RegionalEnergyService;
+import com.jerzymaj.energymixgbbackend.stream.ForecastStreamPublisher;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/energy-mix")
 @RequiredArgsConstructor
 public class EnergyMixController {
 
+    /**
+     * Set when the payload was computed from the last good forecast because upstream is failing.
+     */
+    public static final String STALE_HEADER = "X-Forecast-Stale";
+
     private final EnergyMixService energyMixService;
+    private final HistoricalSummaryService historicalSummaryService;
+    private final EnergyAnalyticsService energyAnalyticsService;
+    private final RegionalEnergyService regionalEnergyService;
+    private final ResponseCache responseCache;
+    private final ForecastCache forecastCache;
+    private final FleetSchedulingService fleetSchedulingService;
+    private final ForecastStreamPublisher forecastStreamPublisher;
+    private final JsonMapper jsonMapper;
+    private final ExecutorService requestExecutor;
 
+    /**
+     * Returns {@code List<DailyEnergySummary>} serialized once per forecast version. With {@code cleanTypes}
+     * or {@code weights} the summary is scored with that clean energy definition and not cached.
+     */
     @GetMapping("/three-days-summary")
-    public ResponseEntity<List<DailyEnergySummary>> retrieveThreeDaysSummary() {
-        return ResponseEntity.ok(energyMixService.calculateThreeDaysSummary());
+    public ResponseEntity<byte[]> retrieveThreeDaysSummary(
+            @RequestParam(required = false) List<String> cleanTypes,
+            @RequestParam(required = false) List<String> weights,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        FuelWeights cleanEnergy = FuelWeights.fromRequest(cleanTypes, weights);
+
+        if (cleanEnergy == null) {
+            return serveCached("three-days-summary", energyMixService::calculateThreeDaysSummary,
+                    ifNoneMatch, acceptEncoding, accept);
+        }
+        return serveCached(null, () -> energyMixService.calculateThreeDaysSummary(cleanEnergy),
+                ifNoneMatch, acceptEncoding, accept);
     }
 
+    /**
+     * Returns {@link OptimalChargingWindow} serialized once per forecast version and window length.
+     * With {@code cleanTypes} or {@code weights} the window is scored with that clean energy definition
+     * and not cached.
+     */
     @GetMapping("/optimal-charging-window")
-    public ResponseEntity<OptimalChargingWindow> retrieveOptimalChargingWindow(@RequestParam int windowLength) {
+    public ResponseEntity<byte[]> retrieveOptimalChargingWindow(
+            @RequestParam int windowLength,
+            @RequestParam(required = false) List<String> cleanTypes,
+            @RequestParam(required = false) List<String> weights,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        FuelWeights cleanEnergy = FuelWeights.fromRequest(cleanTypes, weights);
+
+        if (cleanEnergy == null) {
+            return serveCached("optimal-charging-window?windowLength=" + windowLength,
+                    () -> energyMixService.calculateOptimalChargingWindow(windowLength),
+                    ifNoneMatch, acceptEncoding, accept);
+        }
+        return serveCached(null, () -> energyMixService.calculateOptimalChargingWindow(windowLength, cleanEnergy),
+                ifNoneMatch, acceptEncoding, accept);
+    }
+
+    /**
+     * Asynchronous variant of {@link #retrieveThreeDaysSummary}. The servlet thread is released while the
+     * forecast is fetched on a virtual thread; a response already rendered for the current forecast
+     * is returned without switching threads.
+     */
+    @GetMapping("/three-days-summary/async")
+    public CompletableFuture<ResponseEntity<byte[]>> retrieveThreeDaysSummaryAsync(
+            @RequestParam(required = false) List<String> cleanTypes,
+            @RequestParam(required = false) List<String> weights,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        FuelWeights cleanEnergy = FuelWeights.fromRequest(cleanTypes, weights);
+
+        if (cleanEnergy == null) {
+            return serveCachedAsync("three-days-summary", energyMixService::calculateThreeDaysSummary,
+                    ifNoneMatch, acceptEncoding, accept);
+        }
+        return serveCachedAsync(null, () -> energyMixService.calculateThreeDaysSummary(cleanEnergy),
+                ifNoneMatch, acceptEncoding, accept);
+    }
+
+    /**
+     * Asynchronous variant of {@link #retrieveOptimalChargingWindow}, see {@link #retrieveThreeDaysSummaryAsync}.
+     */
+    @GetMapping("/optimal-charging-window/async")
+    public CompletableFuture<ResponseEntity<byte[]>> retrieveOptimalChargingWindowAsync(
+            @RequestParam int windowLength,
+            @RequestParam(required = false) List<String> cleanTypes,
+            @RequestParam(required = false) List<String> weights,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        FuelWeights cleanEnergy = FuelWeights.fromRequest(cleanTypes, weights);
+
+        if (cleanEnergy == null) {
+            return serveCachedAsync("optimal-charging-window?windowLength=" + windowLength,
+                    () -> energyMixService.calculateOptimalChargingWindow(windowLength),
+                    ifNoneMatch, acceptEncoding, accept);
+        }
+        return serveCachedAsync(null,
+                () -> energyMixService.calculateOptimalChargingWindow(windowLength, cleanEnergy),
+                ifNoneMatch, acceptEncoding, accept);
+    }
+
+    /**
+     * Returns {@code List<RegionalEnergySummary>} of all DNO regions, serialized once per forecast version.
+     */
+    @GetMapping("/regional/three-days-summary")
+    public ResponseEntity<byte[]> retrieveRegionalThreeDaysSummary(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        return serveCached("regional/three-days-summary", regionalEnergyService::isServingStale,
+                regionalEnergyService::calculateRegionalThreeDaysSummary, ifNoneMatch, acceptEncoding, accept);
+    }
+
+    /**
+     * Returns {@code List<RegionalChargingWindow>} of all DNO regions, serialized once per forecast version
+     * and window length.
+     */
+    @GetMapping("/regional/optimal-charging-window")
+    public ResponseEntity<byte[]> retrieveRegionalOptimalChargingWindows(
+            @RequestParam int windowLength,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+
+        return serveCached("regional/optimal-charging-window?windowLength=" + windowLength,
+                regionalEnergyService::isServingStale,
+                () -> regionalEnergyService.calculateRegionalOptimalChargingWindows(windowLength),
+                ifNoneMatch, acceptEncoding, accept);
+    }
+
+    @GetMapping("/optimal-charging-windows")
+    public ResponseEntity<List<ChargingWindowCurvePoint>> retrieveOptimalChargingWindows(
+            @RequestParam(defaultValue = "1") int minWindowLength,
+            @RequestParam(defaultValue = "24") int maxWindowLength) {
+
+        List<ChargingWindowCurvePoint> curve = energyMixService.calculateOptimalChargingWindows(minWindowLength, maxWindowLength);
+
+        if (forecastCache.isServingStale()) {
+            return ResponseEntity.ok().header(STALE_HEADER, "true").body(curve);
+        }
+        return ResponseEntity.ok(curve);
+    }
+
+    @GetMapping("/top-charging-windows")
+    public ResponseEntity<List<OptimalChargingWindow>> retrieveTopChargingWindows(
+            @RequestParam int windowLength,
+            @RequestParam(defaultValue = "3") int count,
+            @RequestParam(defaultValue = "false") boolean nonOverlapping,
+            @RequestParam(required = false) Instant earliestStart,
+            @RequestParam(required = false) Instant finishBy) {
+
+        return ResponseEntity.ok(energyMixService.calculateTopChargingWindows(windowLength, count, nonOverlapping,
+                earliestStart, finishBy));
+    }
+
+    /**
+     * Server-Sent Events stream of the forecast: a {@code snapshot} event with the three-days summary and the
+     * best window on connect, then {@code update} events with only what changed whenever a new forecast is published.
+     */
+    @GetMapping(value = "/forecast-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamForecast(@RequestParam int windowLength) {
+
+        SseEmitter emitter = new SseEmitter(forecastStreamPublisher.getConnectionTimeout().toMillis());
+
+        if (!forecastStreamPublisher.subscribe(emitter, windowLength)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * Schedules a whole fleet against one forecast snapshot. The snapshot is fetched before the response starts,
+     * so upstream failures are still answered with an error status. The batch is then solved on the fork-join pool
+     * and written as newline-delimited JSON, in request order, by the thread producing the response body.
+     */
+    @PostMapping(value = "/fleet-charging-schedule", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> scheduleFleetCharging(@RequestBody List<ChargingRequest> requests) {
+
+        FleetSchedule schedule = fleetSchedulingService.prepareSchedule(requests);
+
+        StreamingResponseBody body = outputStream -> {
+            for (ChargingSchedule result : schedule.solve()) {
+                outputStream.write(jsonMapper.writeValueAsBytes(result));
+                outputStream.write('\n');
+            }
+        };
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON);
+
+        if (forecastCache.isServingStale()) {
+            builder.header(STALE_HEADER, "true");
+        }
+        return builder.body(body);
+    }
+
+    @GetMapping("/range-summary")
+    public ResponseEntity<List<DailyEnergySummary>> retrieveRangeSummary(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        return ResponseEntity.ok(historicalSummaryService.calculateRangeSummary(from, to));
+    }
+
+    /**
+     * Returns {@code List<EnergyDistribution>} of the clean energy share or of one fuel's share over [from, to],
+     * grouped by hour of day, weekday or month.
+     */
+    @GetMapping("/analytics")
+    public ResponseEntity<List<EnergyDistribution>> retrieveAnalytics(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "hour") String groupBy,
+            @RequestParam(defaultValue = IntervalAnalytics.CLEAN_METRIC) String metric) {
+
+        return ResponseEntity.ok(energyAnalyticsService.calculateDistribution(from, to, groupBy, metric));
+    }
+
+    /**
+     * Runs {@link #serveCached} on the request executor unless the current forecast version is already rendered.
+     */
+    private CompletableFuture<ResponseEntity<byte[]>> serveCachedAsync(String key, Supplier<?> producer,
+                                                                      String ifNoneMatch, String acceptEncoding,
+                                                                      String accept) {
+        if (key != null && responseCache.getCurrent(key, ResponseFormat.negotiate(accept)) != null) {
+            return CompletableFuture.completedFuture(serveCached(key, producer, ifNoneMatch, acceptEncoding, accept));
+        }
+        return CompletableFuture.supplyAsync(() -> serveCached(key, producer, ifNoneMatch, acceptEncoding, accept),
+                requestExecutor);
+    }
+
+    /**
+     * Answers a conditional request with 304 straight from the {@link ResponseCache}, the service is
+     * only called when the current forecast version was not rendered yet in the negotiated {@link ResponseFormat}.
+     * A null {@code key} renders the response on every call without caching it.
+     */
+    private ResponseEntity<byte[]> serveCached(String key, Supplier<?> producer,
+                                               String ifNoneMatch, String acceptEncoding, String accept) {
+        return serveCached(key, forecastCache::isServingStale, producer, ifNoneMatch, acceptEncoding, accept);
+    }
+
+    /**
+     * @param stale true while the caches {@code producer} reads serve stale slots, stale responses are
+     *              flagged and not cached
+     */
+    private ResponseEntity<byte[]> serveCached(String key, BooleanSupplier stale, Supplier<?> producer,
+                                               String ifNoneMatch, String acceptEncoding, String accept) {
+        ResponseFormat format = ResponseFormat.negotiate(accept);
+        SerializedResponse response = key == null
+                ? responseCache.renderUncached(format, producer)
+                : responseCache.getCurrent(key, format);
+
+        if (key != null && (response == null || !response.matches(ifNoneMatch))) {
+            response = responseCache.get(key, format, stale, producer);
+        }
+
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        boolean notModified = response.matches(ifNoneMatch);
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+                .eTag(gzip ? response.gzipETag() : response.eTag())
+                .cacheControl(CacheControl.maxAge(responseCache.maxAge(response)).cachePublic())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+
+        if (notModified) {
+            return builder.build();
+        }
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        if (response.stale()) {
+            builder.header(STALE_HEADER, "true");
+        }
 
-        return ResponseEntity.ok(energyMixService.calculateOptimalChargingWindow(windowLength));
+        return builder.contentType(format.mediaType()).body(gzip ? response.gzipBody() : response.body());
     }
 }
@@ -0,0 +1,110 @@
+package com.jerzymaj.energymixgbbackend.metrics;
+
+import com.jerzymaj.energymixgbbackend.analytics.IntervalAnalytics;
+import com.jerzymaj.energymixgbbackend.cache.ForecastCache;
+import com.jerzymaj.energymixgbbackend.cache.ResponseCache;
+import com.jerzymaj.energymixgbbackend.service.EnergyMixService;
+import com.jerzymaj.energymixgbbackend.service.RegionalEnergyService;
+import com.jerzymaj.energymixgbbackend.store.GenerationRepository;
+import com.jerzymaj.energymixgbbackend.store.IntervalFileStore;
+import com.jerzymaj.energymixgbbackend.stream.ForecastStreamPublisher;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Exposes the counters the caches already keep as meters. They are read at scrape time,
+ * so the request path only pays for its {@code LongAdder} increments. The forecast cache meters carry
+ * a {@code region} tag, {@value #NATIONAL} for the national cache and the short name of each DNO region otherwise.
+ */
+@Component
+public class CacheMetricsBinder implements MeterBinder {
+
+    private static final String NATIONAL = "national";
+
+    private final ForecastCache forecastCache;
+    private final ResponseCache responseCache;
+    private final GenerationRepository generationRepository;
+    private final IntervalFileStore intervalFileStore;
+    private final EnergyMixService energyMixService;
+    private final ForecastStreamPublisher forecastStreamPublisher;
+    private final IntervalAnalytics intervalAnalytics;
+    private final RegionalEnergyService regionalEnergyService;
+
+    public CacheMetricsBinder(ForecastCache forecastCache, ResponseCache responseCache,
+                              GenerationRepository generationRepository, IntervalFileStore intervalFileStore,
+                              EnergyMixService energyMixService, ForecastStreamPublisher forecastStreamPublisher,
+                              IntervalAnalytics intervalAnalytics, RegionalEnergyService regionalEnergyService) {
+        this.forecastCache = forecastCache;
+        this.responseCache = responseCache;
+        this.generationRepository = generationRepository;
+        this.intervalFileStore = intervalFileStore;
+        this.energyMixService = energyMixService;
+        this.forecastStreamPublisher = forecastStreamPublisher;
+        this.intervalAnalytics = intervalAnalytics;
+        this.regionalEnergyService = regionalEnergyService;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindForecastCache(registry, NATIONAL, forecastCache);
+        regionalEnergyService.getRegionCaches()
+                .forEach((region, regionCache) -> bindForecastCache(registry, region.shortName(), regionCache));
+
+        counter(registry, "energy.responses", "hit", responseCache, ResponseCache::getHitCount);
+        counter(registry, "energy.responses", "miss", responseCache, ResponseCache::getMissCount);
+
+        counter(registry, "energy.store.slots", "hit", generationRepository, GenerationRepository::getStoredSlotCount);
+        counter(registry, "energy.store.slots", "miss", generationRepository, GenerationRepository::getBackfilledSlotCount);
+        Gauge.builder("energy.store.size", intervalFileStore, IntervalFileStore::size)
+                .description("Slots persisted in the interval store")
+                .register(registry);
+
+        FunctionCounter.builder("energy.upstream.coalesced", energyMixService, EnergyMixService::getCoalescedFetchCount)
+                .description("Upstream fetches served by an identical request already in flight")
+                .register(registry);
+
+        FunctionCounter.builder("energy.summary.applied.intervals", energyMixService,
+                        EnergyMixService::getSummaryAppliedIntervalCount)
+                .description("Intervals added, replaced or removed in the rolling three-days summary")
+                .register(registry);
+
+        FunctionCounter.builder("energy.analytics.intervals", intervalAnalytics,
+                        IntervalAnalytics::getRecordedIntervalCount)
+                .description("Settled intervals recorded in the analytics histograms")
+                .register(registry);
+
+        Gauge.builder("energy.stream.subscribers", forecastStreamPublisher, ForecastStreamPublisher::getSubscriberCount)
+                .description("Open forecast streams")
+                .register(registry);
+    }
+
+    private static void bindForecastCache(MeterRegistry registry, String region, ForecastCache cache) {
+        Tags tags = Tags.of("region", region);
+
+        counter(registry, "energy.cache.slots", tags.and("result", "hit"), cache, ForecastCache::getHitCount);
+        counter(registry, "energy.cache.slots", tags.and("result", "miss"), cache, ForecastCache::getMissCount);
+        counter(registry, "energy.cache.slots", tags.and("result", "stale"), cache, ForecastCache::getStaleCount);
+        Gauge.builder("energy.cache.size", cache, ForecastCache::size)
+                .description("Slots held by the forecast cache")
+                .tags(tags)
+                .register(registry);
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, Tags tags,
+                                    T source, ToDoubleFunction<T> count) {
+        FunctionCounter.builder(name, source, count)
+                .tags(tags)
+                .register(registry);
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, String result,
+                                    T source, ToDoubleFunction<T> count) {
+        counter(registry, name, Tags.of("result", result), source, count);
+    }
+}
@@ -0,0 +1,179 @@
+package com.jerzymaj.energymixgbbackend.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of the hot paths. Meters with fixed tags are registered once and held in fields,
+ * so recording is a lock-free update without a registry lookup.
+ * Histogram buckets are enabled for the {@code energy.*} timers in {@code application.properties}.
+ */
+@Component
+public class EnergyMetrics {
+
+    private static final long DAY_SECONDS = 86_400;
+
+    private final MeterRegistry registry;
+
+    private final Timer streamingDecode;
+    private final DistributionSummary upstreamIntervals;
+    private final Counter upstreamHedges;
+    private final Timer threeDaysSummary;
+    private final Timer rangeSummary;
+    private final Timer windowSearch;
+    private final Timer windowCurveSearch;
+    private final Timer windowTopSearch;
+    private final Timer fleetSchedule;
+    private final DistributionSummary fleetBatchSize;
+    private final Timer prefetchSuccess;
+    private final Timer prefetchFailure;
+
+    public EnergyMetrics(MeterRegistry registry) {
+        this.registry = registry;
+
+        this.streamingDecode = Timer.builder("energy.decode")
+                .description("Time to decode an upstream payload into columns")
+                .tag("mode", "streaming")
+                .register(registry);
+        this.upstreamIntervals = DistributionSummary.builder("energy.upstream.intervals")
+                .description("Intervals returned per upstream request")
+                .register(registry);
+        this.upstreamHedges = Counter.builder("energy.upstream.hedged")
+                .description("Upstream calls which were hedged with a second request")
+                .register(registry);
+        this.threeDaysSummary = aggregationTimer("three-days-summary");
+        this.rangeSummary = aggregationTimer("range-summary");
+        this.windowSearch = windowSearchTimer("single");
+        this.windowCurveSearch = windowSearchTimer("curve");
+        this.windowTopSearch = windowSearchTimer("top");
+        this.fleetSchedule = windowSearchTimer("fleet");
+        this.fleetBatchSize = DistributionSummary.builder("energy.fleet.batch.size")
+                .description("Charging requests per fleet scheduling batch")
+                .register(registry);
+        this.prefetchSuccess = prefetchTimer("success");
+        this.prefetchFailure = prefetchTimer("failure");
+    }
+
+    /**
+     * Records an upstream call. The range is bucketed to keep the number of series bounded.
+     *
+     * @param feed         {@code national} or {@code regional}
+     * @param status       HTTP status code, or the exception name if no response was received
+     * @param rangeSeconds length of the requested range
+     * @param nanos        duration of the call including decoding
+     */
+    public void recordUpstream(String feed, String status, long rangeSeconds, long nanos) {
+        Timer.builder("energy.upstream")
+                .description("Latency of Carbon Intensity API calls")
+                .tag("feed", feed)
+                .tag("status", status)
+                .tag("range", rangeBucket(rangeSeconds))
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordHedge() {
+        upstreamHedges.increment();
+    }
+
+    public void recordDecode(long nanos, int intervals) {
+        streamingDecode.record(nanos, TimeUnit.NANOSECONDS);
+        upstreamIntervals.record(intervals);
+    }
+
+    public void recordIntervals(int intervals) {
+        upstreamIntervals.record(intervals);
+    }
+
+    public void recordThreeDaysSummary(long nanos) {
+        threeDaysSummary.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Recorded once per fetched chunk of the range.
+     */
+    public void recordRangeSummary(long nanos) {
+        rangeSummary.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordWindowSearch(long nanos) {
+        windowSearch.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordWindowCurveSearch(long nanos) {
+        windowCurveSearch.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordWindowTopSearch(long nanos) {
+        windowTopSearch.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Recorded once per fleet batch, including streaming the results to the client.
+     */
+    public void recordFleetSchedule(long nanos, int requests) {
+        fleetSchedule.record(nanos, TimeUnit.NANOSECONDS);
+        fleetBatchSize.record(requests);
+    }
+
+    /**
+     * Recorded once per background refresh of the forecast.
+     */
+    public void recordPrefetch(boolean success, long nanos) {
+        (success ? prefetchSuccess : prefetchFailure).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts an exception answered by the exception handler.
+     */
+    public void recordError(Throwable ex, int status) {
+        Counter.builder("energy.errors")
+                .description("Errors returned to clients")
+                .tag("exception", ex.getClass().getSimpleName())
+                .tag("status", Integer.toString(status))
+                .register(registry)
+                .increment();
+    }
+
+    private Timer aggregationTimer(String summary) {
+        return Timer.builder("energy.aggregation")
+                .description("Time to aggregate intervals into daily summaries, excluding fetching")
+                .tag("summary", summary)
+                .register(registry);
+    }
+
+    private Timer windowSearchTimer(String search) {
+        return Timer.builder("energy.window.search")
+                .description("Time to search the charging windows, excluding fetching")
+                .tag("search", search)
+                .register(registry);
+    }
+
+    private Timer prefetchTimer(String result) {
+        return Timer.builder("energy.prefetch")
+                .description("Background refreshes of the forecast, including the upstream call")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static String rangeBucket(long rangeSeconds) {
+        if (rangeSeconds <= DAY_SECONDS) {
+            return "1d";
+        }
+        if (rangeSeconds <= 3 * DAY_SECONDS) {
+            return "3d";
+        }
+        if (rangeSeconds <= 7 * DAY_SECONDS) {
+            return "7d";
+        }
+        if (rangeSeconds <= 31 * DAY_SECONDS) {
+            return "31d";
+        }
+        return "longer";
+    }
+}
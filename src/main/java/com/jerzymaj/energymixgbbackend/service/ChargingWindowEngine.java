@@ -0,0 +1,332 @@
+package com.jerzymaj.energymixgbbackend.service;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window search over a series of per-interval clean energy percentages.
+ * Prefix sums are built once, so the average of any window is O(1) and the best window
+ * for a given length is found in O(n), independently of the window length.
+ */
+public class ChargingWindowEngine {
+
+    private final double[] prefixSums;
+
+    /**
+     * @param cleanEnergyPercent clean energy percentage of each consecutive 30-minute interval.
+     */
+    public ChargingWindowEngine(double[] cleanEnergyPercent) {
+        prefixSums = new double[cleanEnergyPercent.length + 1];
+
+        for (int i = 0; i < cleanEnergyPercent.length; i++) {
+            prefixSums[i + 1] = prefixSums[i] + cleanEnergyPercent[i];
+        }
+    }
+
+    public int size() {
+        return prefixSums.length - 1;
+    }
+
+    /**
+     * Finds the window with the highest average. Ties are resolved in favour of the earliest window.
+     *
+     * @param windowSize number of consecutive intervals in the window
+     * @return index of the first interval of the best window, or -1 if no window of that size fits.
+     */
+    public int findBestStart(int windowSize) {
+        if (windowSize <= 0 || windowSize > size()) {
+            return -1;
+        }
+
+        int bestStart = 0;
+        double bestSum = Double.NEGATIVE_INFINITY;
+
+        for (int start = 0; start + windowSize <= size(); start++) {
+            double sum = prefixSums[start + windowSize] - prefixSums[start];
+
+            if (sum > bestSum) {
+                bestSum = sum;
+                bestStart = start;
+            }
+        }
+
+        return bestStart;
+    }
+
+    /**
+     * Finds the best window for every size in [minWindowSize, maxWindowSize] in a single call.
+     *
+     * @return best start index per window size (index 0 is minWindowSize), -1 where the size does not fit.
+     */
+    public int[] findBestStarts(int minWindowSize, int maxWindowSize) {
+        int[] bestStarts = new int[Math.max(0, maxWindowSize - minWindowSize + 1)];
+
+        for (int i = 0; i < bestStarts.length; i++) {
+            bestStarts[i] = findBestStart(minWindowSize + i);
+        }
+
+        return bestStarts;
+    }
+
+    /**
+     * Finds the windows with the highest averages among the windows starting in [firstStart, lastStart].
+     * Ties are resolved in favour of the earliest window.
+     * <p>
+     * Overlapping windows are ranked with a min-heap bounded to {@code count} entries, O(n log count).
+     * Non-overlapping windows are picked greedily from a max-heap built in O(n): each pick blocks the starts
+     * of every window it overlaps, so at most {@code count * (2 * windowSize - 1)} entries are ever popped.
+     *
+     * @param windowSize     number of consecutive intervals in a window
+     * @param count          maximum number of windows to return
+     * @param firstStart     earliest allowed start index
+     * @param lastStart      latest allowed start index
+     * @param nonOverlapping if true, no two returned windows share an interval
+     * @return start indices ordered from the best window, possibly fewer than {@code count}.
+     */
+    public int[] findTopStarts(int windowSize, int count, int firstStart, int lastStart, boolean nonOverlapping) {
+        int from = Math.max(0, firstStart);
+        int to = Math.min(lastStart, size() - windowSize);
+
+        if (windowSize <= 0 || count <= 0 || from > to) {
+            return new int[0];
+        }
+
+        return nonOverlapping
+                ? findTopNonOverlappingStarts(windowSize, count, from, to)
+                : findTopOverlappingStarts(windowSize, count, from, to);
+    }
+
+    public double average(int start, int windowSize) {
+        return (prefixSums[start + windowSize] - prefixSums[start]) / windowSize;
+    }
+
+    /**
+     * Builds a sparse table over the windows of one size, so that the best window starting in any
+     * [firstStart, lastStart] is found in O(1) after O(n log n) preprocessing.
+     * Pays off when many searches with different bounds run against the same series.
+     *
+     * @param windowSize number of consecutive intervals in a window
+     * @return index answering range queries, safe to share between threads.
+     */
+    public WindowIndex indexWindows(int windowSize) {
+        return new WindowIndex(windowSize);
+    }
+
+    private int[] findTopOverlappingStarts(int windowSize, int count, int from, int to) {
+        StartHeap worstOnTop = new StartHeap(Math.min(count, to - from + 1), windowSize, false);
+
+        for (int start = from; start <= to; start++) {
+            if (worstOnTop.size() < count) {
+                worstOnTop.push(start);
+            } else if (worstOnTop.ranksBefore(start, worstOnTop.peek())) {
+                worstOnTop.replaceTop(start);
+            }
+        }
+
+        int[] starts = new int[worstOnTop.size()];
+        for (int i = starts.length - 1; i >= 0; i--) {
+            starts[i] = worstOnTop.pop();
+        }
+
+        return starts;
+    }
+
+    private int[] findTopNonOverlappingStarts(int windowSize, int count, int from, int to) {
+        StartHeap bestOnTop = new StartHeap(to - from + 1, windowSize, true);
+        for (int start = from; start <= to; start++) {
+            bestOnTop.append(start);
+        }
+        bestOnTop.heapify();
+
+        boolean[] blocked = new boolean[size()];
+        int[] starts = new int[count];
+        int found = 0;
+
+        while (found < count && bestOnTop.size() > 0) {
+            int start = bestOnTop.pop();
+
+            if (blocked[start]) {
+                continue;
+            }
+
+            starts[found++] = start;
+
+            int blockFrom = Math.max(0, start - windowSize + 1);
+            int blockTo = Math.min(blocked.length - 1, start + windowSize - 1);
+            for (int i = blockFrom; i <= blockTo; i++) {
+                blocked[i] = true;
+            }
+        }
+
+        return Arrays.copyOf(starts, found);
+    }
+
+    /**
+     * Best window start per power-of-two run of consecutive starts.
+     */
+    public final class WindowIndex {
+
+        private final int windowSize;
+        private final int[][] bestStarts;
+
+        private WindowIndex(int windowSize) {
+            this.windowSize = windowSize;
+
+            int count = windowSize <= 0 ? 0 : Math.max(0, size() - windowSize + 1);
+            int levels = 32 - Integer.numberOfLeadingZeros(count);
+            bestStarts = new int[levels][];
+
+            if (levels == 0) {
+                return;
+            }
+
+            bestStarts[0] = new int[count];
+            for (int start = 0; start < count; start++) {
+                bestStarts[0][start] = start;
+            }
+
+            for (int level = 1; level < levels; level++) {
+                int half = 1 << (level - 1);
+                int[] previous = bestStarts[level - 1];
+                int[] current = new int[count - (1 << level) + 1];
+
+                for (int start = 0; start < current.length; start++) {
+                    current[start] = better(previous[start], previous[start + half]);
+                }
+                bestStarts[level] = current;
+            }
+        }
+
+        public int windowSize() {
+            return windowSize;
+        }
+
+        /**
+         * Ties are resolved in favour of the earliest window.
+         *
+         * @return start index of the best window starting in [firstStart, lastStart], or -1 if none fits.
+         */
+        public int bestStart(int firstStart, int lastStart) {
+            int from = Math.max(0, firstStart);
+            int to = Math.min(lastStart, size() - windowSize);
+
+            if (bestStarts.length == 0 || from > to) {
+                return -1;
+            }
+
+            int level = 31 - Integer.numberOfLeadingZeros(to - from + 1);
+
+            return better(bestStarts[level][from], bestStarts[level][to - (1 << level) + 1]);
+        }
+
+        private int better(int a, int b) {
+            double sumA = prefixSums[a + windowSize] - prefixSums[a];
+            double sumB = prefixSums[b + windowSize] - prefixSums[b];
+
+            return sumA > sumB || (sumA == sumB && a < b) ? a : b;
+        }
+    }
+
+    /**
+     * Binary heap of window start indices ordered by window sum, then by start.
+     * Kept primitive so ranking does not box every candidate.
+     */
+    private final class StartHeap {
+
+        private final int[] starts;
+        private final int windowSize;
+        private final boolean bestOnTop;
+        private int size;
+
+        private StartHeap(int capacity, int windowSize, boolean bestOnTop) {
+            this.starts = new int[Math.max(1, capacity)];
+            this.windowSize = windowSize;
+            this.bestOnTop = bestOnTop;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int peek() {
+            return starts[0];
+        }
+
+        void push(int start) {
+            starts[size] = start;
+            siftUp(size++);
+        }
+
+        void append(int start) {
+            starts[size++] = start;
+        }
+
+        void heapify() {
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        void replaceTop(int start) {
+            starts[0] = start;
+            siftDown(0);
+        }
+
+        int pop() {
+            int top = starts[0];
+            starts[0] = starts[--size];
+            siftDown(0);
+            return top;
+        }
+
+        /**
+         * @return true if window {@code a} is better than window {@code b}.
+         */
+        boolean ranksBefore(int a, int b) {
+            double sumA = prefixSums[a + windowSize] - prefixSums[a];
+            double sumB = prefixSums[b + windowSize] - prefixSums[b];
+
+            return sumA > sumB || (sumA == sumB && a < b);
+        }
+
+        private boolean belongsAbove(int a, int b) {
+            return bestOnTop ? ranksBefore(a, b) : ranksBefore(b, a);
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (!belongsAbove(starts[index], starts[parent])) {
+                    return;
+                }
+                swap(index, parent);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int left = 2 * index + 1;
+                int right = left + 1;
+                int top = index;
+
+                if (left < size && belongsAbove(starts[left], starts[top])) {
+                    top = left;
+                }
+                if (right < size && belongsAbove(starts[right], starts[top])) {
+                    top = right;
+                }
+                if (top == index) {
+                    return;
+                }
+                swap(index, top);
+                index = top;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int start = starts[i];
+            starts[i] = starts[j];
+            starts[j] = start;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.jerzymaj.energymixgbbackend.service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * Fetches chunks of Europe/London days concurrently on virtual threads, at most {@code maxConcurrency}
+ * at a time, and waits for all of them. Shared by the range summary and the analytics backfill.
+ */
+final class ChunkedFetch {
+
+    /**
+     * Days [first, end) fetched with one call.
+     */
+    record Chunk(LocalDate first, LocalDate end) {
+    }
+
+    private ChunkedFetch() {
+    }
+
+    /**
+     * @return the days [first, end) split into chunks of at most {@code chunkDays} days.
+     */
+    static List<Chunk> split(LocalDate first, LocalDate end, int chunkDays) {
+        List<Chunk> chunks = new ArrayList<>();
+
+        for (LocalDate chunkStart = first; chunkStart.isBefore(end); chunkStart = chunkStart.plusDays(chunkDays)) {
+            LocalDate chunkEnd = chunkStart.plusDays(chunkDays);
+            chunks.add(new Chunk(chunkStart, chunkEnd.isAfter(end) ? end : chunkEnd));
+        }
+        return chunks;
+    }
+
+    /**
+     * @return the given days, consecutive ones merged into chunks of at most {@code chunkDays} days.
+     */
+    static List<Chunk> group(List<LocalDate> dates, int chunkDays) {
+        List<Chunk> chunks = new ArrayList<>();
+        LocalDate first = null;
+        LocalDate end = null;
+
+        for (LocalDate date : dates) {
+            if (first != null && (!end.equals(date) || ChronoUnit.DAYS.between(first, date) == chunkDays)) {
+                chunks.add(new Chunk(first, end));
+                first = null;
+            }
+            if (first == null) {
+                first = date;
+            }
+            end = date.plusDays(1);
+        }
+
+        if (first != null) {
+            chunks.add(new Chunk(first, end));
+        }
+        return chunks;
+    }
+
+    /**
+     * Runs {@code fetch} for every chunk and waits for all of them.
+     *
+     * @throws RuntimeException thrown by a fetch.
+     */
+    static void fetchAll(List<Chunk> chunks, int maxConcurrency, Consumer<Chunk> fetch) {
+        Semaphore permits = new Semaphore(maxConcurrency);
+        List<Future<?>> fetches = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Chunk chunk : chunks) {
+                fetches.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        fetch.accept(chunk);
+                    } finally {
+                        permits.release();
+                    }
+                    return null;
+                }));
+            }
+
+            for (Future<?> pending : fetches) {
+                await(pending);
+            }
+        }
+    }
+
+    private static void await(Future<?> fetch) {
+        try {
+            fetch.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching range", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.jerzymaj.energymixgbbackend.service;
+
+import com.jerzymaj.energymixgbbackend.DTOs.DailyEnergySummary;
+import com.jerzymaj.energymixgbbackend.columnar.FuelDictionary;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+import com.jerzymaj.energymixgbbackend.exceptions.NoEnergyMixIntervalException;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Running sums of the 30-minute intervals of a single day, the averages are
+ * only computed when the {@link DailyEnergySummary} is built.
+ * Intervals can be removed again, which lets {@link RollingDailyAggregate} replace a changed interval.
+ */
+public class DailyAccumulator {
+
+    public static final ZoneId LONDON = ZoneId.of("Europe/London");
+
+    private double cleanEnergyPercentSum;
+    private final double[] fuelPercentSums = new double[FuelDictionary.SIZE];
+    private final int[] fuelIntervalCounts = new int[FuelDictionary.SIZE];
+    private int intervalCount;
+
+    public void add(IntervalColumns columns, int row, double cleanEnergyPercent) {
+        cleanEnergyPercentSum += cleanEnergyPercent;
+
+        for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+            fuelPercentSums[fuel] += columns.percent(fuel, row);
+        }
+
+        countFuels(columns.fuels(row), 1);
+        intervalCount++;
+    }
+
+    /**
+     * @param percents percentage of each fuel, indexed by {@link FuelDictionary}
+     * @param fuels    mask of the fuels reported with the interval
+     */
+    public void add(double cleanEnergyPercent, double[] percents, long fuels) {
+        cleanEnergyPercentSum += cleanEnergyPercent;
+
+        for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+            fuelPercentSums[fuel] += percents[fuel];
+        }
+
+        countFuels(fuels, 1);
+        intervalCount++;
+    }
+
+    /**
+     * Reverts an {@link #add(double, double[], long)} with the same values.
+     */
+    public void remove(double cleanEnergyPercent, double[] percents, long fuels) {
+        cleanEnergyPercentSum -= cleanEnergyPercent;
+
+        for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+            fuelPercentSums[fuel] -= percents[fuel];
+        }
+
+        countFuels(fuels, -1);
+        intervalCount--;
+    }
+
+    public boolean isEmpty() {
+        return intervalCount == 0;
+    }
+
+    /**
+     * Calculates the average clean energy percentage and the average mix for each fuel type.
+     *
+     * @param date date string representing the day.
+     * @return {@link DailyEnergySummary} object containing average values for the day.
+     * @throws NoEnergyMixIntervalException if no interval was added.
+     */
+    public DailyEnergySummary toSummary(String date) {
+        if (isEmpty()) {
+            throw new NoEnergyMixIntervalException("No intervals found for given date");
+        }
+
+        Map<String, Double> fuelPercentAverages = new HashMap<>();
+
+        for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+            if (fuelIntervalCounts[fuel] > 0) {
+                fuelPercentAverages.put(FuelDictionary.nameOf(fuel), fuelPercentSums[fuel] / intervalCount);
+            }
+        }
+
+        return new DailyEnergySummary(date, cleanEnergyPercentSum / intervalCount, fuelPercentAverages);
+    }
+
+    private void countFuels(long fuels, int delta) {
+        for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+            if (FuelDictionary.contains(fuels, fuel)) {
+                fuelIntervalCounts[fuel] += delta;
+            }
+        }
+    }
+
+    /**
+     * Adds every interval starting within the Europe/London days [firstDay, firstDay + accumulators.length)
+     * to the accumulator of its day. Intervals have to be ordered by start time.
+     *
+     * @param columns             intervals
+     * @param cleanEnergyPercents clean energy percentage per interval
+     * @param firstDay            day of {@code accumulators[0]}
+     * @param accumulators        one accumulator per consecutive day
+     */
+    public static void accumulateLondonDays(IntervalColumns columns, double[] cleanEnergyPercents,
+                                            LocalDate firstDay, DailyAccumulator[] accumulators) {
+        long[] dayStarts = new long[accumulators.length + 1];
+
+        for (int day = 0; day < dayStarts.length; day++) {
+            dayStarts[day] = startOfLondonDay(firstDay.plusDays(day));
+        }
+
+        int day = 0;
+        for (int row = 0; row < columns.size(); row++) {
+            long start = columns.start(row);
+
+            if (start < dayStarts[0]) {
+                continue;
+            }
+            while (day < accumulators.length && start >= dayStarts[day + 1]) {
+                day++;
+            }
+            if (day == accumulators.length) {
+                break;
+            }
+
+            accumulators[day].add(columns, row, cleanEnergyPercents[row]);
+        }
+    }
+
+    /**
+     * @return epoch second of midnight in Europe/London, which is 23:00Z of the previous day during BST.
+     */
+    public static long startOfLondonDay(LocalDate date) {
+        return date.atStartOfDay(LONDON).toEpochSecond();
+    }
+}
@@ -0,0 +1,107 @@
+package com.jerzymaj.energymixgbbackend.service;
+
+import com.jerzymaj.energymixgbbackend.DTOs.EnergyDistribution;
+import com.jerzymaj.energymixgbbackend.analytics.AnalyticsGrouping;
+import com.jerzymaj.energymixgbbackend.analytics.IntervalAnalytics;
+import com.jerzymaj.energymixgbbackend.exceptions.NoEnergyMixIntervalException;
+import com.jerzymaj.energymixgbbackend.store.GenerationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class EnergyAnalyticsService {
+
+    private final GenerationRepository generationRepository;
+    private final IntervalAnalytics intervalAnalytics;
+    private final Clock clock;
+    private final Duration settleDelay;
+    private final int chunkDays;
+    private final int maxConcurrency;
+    private final int maxDays;
+
+    public EnergyAnalyticsService(GenerationRepository generationRepository, IntervalAnalytics intervalAnalytics,
+                                  Clock clock,
+                                  @Value("${energy.store.settle-delay:PT2H}") Duration settleDelay,
+                                  @Value("${energy.range.chunk-days:7}") int chunkDays,
+                                  @Value("${energy.range.max-concurrency:4}") int maxConcurrency,
+                                  @Value("${energy.range.max-days:366}") int maxDays) {
+        this.generationRepository = generationRepository;
+        this.intervalAnalytics = intervalAnalytics;
+        this.clock = clock;
+        this.settleDelay = settleDelay;
+        this.chunkDays = chunkDays;
+        this.maxConcurrency = maxConcurrency;
+        this.maxDays = maxDays;
+    }
+
+    /**
+     * Calculates the distribution of a metric over the Europe/London days [from, to] per hour of day, weekday
+     * or month. Settled days which were not recorded yet are fetched first, in chunks of
+     * {@code energy.range.chunk-days} at most {@code energy.range.max-concurrency} at a time; the answer itself
+     * is merged from the {@link IntervalAnalytics} buckets without touching individual intervals of whole months.
+     *
+     * @param from    first day (inclusive)
+     * @param to      last day (inclusive)
+     * @param groupBy hour, weekday or month
+     * @param metric  clean, for the clean energy share, or a fuel name
+     * @return one {@link EnergyDistribution} per group with data, in group order.
+     * @throws IllegalArgumentException     if the range, grouping or metric is invalid.
+     * @throws NoEnergyMixIntervalException if no interval of the range was recorded.
+     */
+
+    public List<EnergyDistribution> calculateDistribution(LocalDate from, LocalDate to, String groupBy, String metric) {
+        long dayCount = ChronoUnit.DAYS.between(from, to) + 1;
+
+        if (dayCount <= 0) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        if (dayCount > maxDays) {
+            throw new IllegalArgumentException("Range must not be longer than " + maxDays + " days");
+        }
+
+        AnalyticsGrouping grouping = AnalyticsGrouping.parse(groupBy);
+        int metricIndex = IntervalAnalytics.metricOf(metric);
+
+        recordMissingDays(from, to);
+
+        List<EnergyDistribution> distributions = intervalAnalytics.distribution(from, to, grouping, metricIndex);
+
+        if (distributions.isEmpty()) {
+            throw new NoEnergyMixIntervalException("No intervals found for given range");
+        }
+
+        return distributions;
+    }
+
+    /**
+     * Fetches the settled days of the range which are not completely recorded, consecutive days grouped into
+     * chunks, the repository records them.
+     * Days which are not settled yet are answered with what has been recorded so far.
+     */
+    private void recordMissingDays(LocalDate from, LocalDate to) {
+        long settledBefore = clock.instant().minus(settleDelay).getEpochSecond();
+        List<LocalDate> missingDays = new ArrayList<>();
+
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            if (DailyAccumulator.startOfLondonDay(date.plusDays(1)) > settledBefore) {
+                break;
+            }
+            if (!intervalAnalytics.isComplete(date)) {
+                missingDays.add(date);
+            }
+        }
+
+        ChunkedFetch.fetchAll(ChunkedFetch.group(missingDays, chunkDays), maxConcurrency,
+                chunk -> generationRepository.fetchGeneration(
+                        Instant.ofEpochSecond(DailyAccumulator.startOfLondonDay(chunk.first())),
+                        Instant.ofEpochSecond(DailyAccumulator.startOfLondonDay(chunk.end()))));
+    }
+}
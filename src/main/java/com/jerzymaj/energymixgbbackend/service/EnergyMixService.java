@@ -1,32 +1,55 @@
 package com.jerzymaj.energymixgbbackend.service;
 
 import com.jerzymaj.energymixgbbackend.DTOs.*;
+import com.jerzymaj.energymixgbbackend.cache.ForecastCache;
+import com.jerzymaj.energymixgbbackend.cache.HalfHourSlots;
+import com.jerzymaj.energymixgbbackend.cache.SingleFlight;
+import com.jerzymaj.energymixgbbackend.columnar.FuelDictionary;
+import com.jerzymaj.energymixgbbackend.columnar.FuelWeights;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
 import com.jerzymaj.energymixgbbackend.exceptions.NoEnergyMixIntervalException;
+import com.jerzymaj.energymixgbbackend.metrics.EnergyMetrics;
+import com.jerzymaj.energymixgbbackend.store.GenerationRepository;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClient;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.time.ZoneId;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 @Service
 public class EnergyMixService {
 
-    private final RestClient restClient;
-
-    @Value("${energy.clean-types}")
-    private List<String> cleanEnergy;
-
-    public EnergyMixService(RestClient restClient) {
-        this.restClient = restClient;
+    private static final int MAX_TOP_WINDOWS = 48;
+    private static final int MAX_CURVE_WINDOW_LENGTH = 48;
+    private static final Duration MAX_TOP_WINDOW_SPAN = Duration.ofDays(7);
+
+    private final GenerationRepository generationRepository;
+    private final ForecastCache forecastCache;
+    private final Clock clock;
+    private final long cleanEnergyMask;
+    private final FuelWeights defaultCleanEnergy;
+    private final EnergyMetrics metrics;
+    private final SingleFlight<String, IntervalColumns> upstreamFetches = new SingleFlight<>();
+    private final RollingDailyAggregate threeDaysSummary = new RollingDailyAggregate();
+
+    public EnergyMixService(GenerationRepository generationRepository, ForecastCache forecastCache, Clock clock,
+                            @Value("${energy.clean-types}") List<String> cleanEnergy, EnergyMetrics metrics) {
+        this.generationRepository = generationRepository;
+        this.forecastCache = forecastCache;
+        this.clock = clock;
+        this.cleanEnergyMask = FuelDictionary.maskOf(cleanEnergy);
+        this.defaultCleanEnergy = FuelWeights.ofMask(cleanEnergyMask);
+        this.metrics = metrics;
     }
 
     /**
-     * Retrieves energy generation data from the external API for a specific date range.
+     * Retrieves energy generation data for a specific date range.
+     * Intervals are served from the {@link ForecastCache}, only the half-hour slots
+     * which are not cached are requested from the external API.
      *
      * @param from start Datetime in ISO8601 format
      * @param to   end Datetime in ISO8601 format
@@ -35,119 +58,192 @@ public class EnergyMixService {
 
     public EnergyResponse getEnergyData(String from, String to) {
 
-        return restClient.get()
-                .uri("/generation/{from}/{to}", from, to)
-                .retrieve()
-                .body(EnergyResponse.class);
+        return getEnergyColumns(from, to).toEnergyResponse();
     }
 
     /**
-     * Aggregates a list of 30-minute intervals into a single daily summary.
-     * Calculates the average clean energy percentage and the average mix for each fuel type.
+     * Columnar variant of {@link #getEnergyData(String, String)} used by the calculations.
      *
-     * @param intervalsList list of intervals for a single day.
-     * @param date          date string representing the day.
-     * @return {@link DailyEnergySummary} object containing average values for the day.
-     * @throws NoEnergyMixIntervalException if the provided list is empty.
+     * @param from start Datetime in ISO8601 format
+     * @param to   end Datetime in ISO8601 format
+     * @return {@link IntervalColumns} ordered by start time.
      */
 
-    private DailyEnergySummary calculateDailyEnergySummary(List<EnergyMixInterval> intervalsList, String date) {
-        if (intervalsList.isEmpty()) {
-            throw new NoEnergyMixIntervalException("No intervals found for given date");
-        }
-
-        double cleanEnergyPercentSum = 0;
-        Map<String, Double> fuelPercentSum = new HashMap<>();
+    public IntervalColumns getEnergyColumns(String from, String to) {
 
-        for (EnergyMixInterval interval : intervalsList) {
-            cleanEnergyPercentSum += calculateCleanEnergyPercent(interval);
-
-            for (Fuel fuel : interval.generationMix()) {
-                fuelPercentSum.merge(fuel.fuel(), fuel.percentage(), Double::sum);
-            }
-        }
+        return getEnergyColumns(HalfHourSlots.parse(from), HalfHourSlots.parse(to));
+    }
 
-        int intervalNum = intervalsList.size();
+    /**
+     * Slot-aligned variant of {@link #getEnergyColumns(String, String)}, the range is widened to whole half-hour slots.
+     *
+     * @param from start of the range
+     * @param to   end of the range
+     * @return {@link IntervalColumns} ordered by start time.
+     */
 
-        double averageCleanEnergyPercent = cleanEnergyPercentSum / intervalNum;
+    public IntervalColumns getEnergyColumns(Instant from, Instant to) {
 
-        Map<String, Double> fuelPercentAverages = new HashMap<>();
+        return forecastCache.getIntervals(from, to, this::fetchEnergyData);
+    }
 
-        for (Map.Entry<String, Double> entry : fuelPercentSum.entrySet()) {
-            fuelPercentAverages.put(entry.getKey(), entry.getValue() / intervalNum);
-        }
+    /**
+     * Number of upstream fetches that were coalesced into an identical request already in flight.
+     *
+     * @return count of coalesced fetches since startup.
+     */
 
-        return new DailyEnergySummary(date, averageCleanEnergyPercent, fuelPercentAverages);
+    public long getCoalescedFetchCount() {
+        return upstreamFetches.getCoalescedCalls();
     }
 
     /**
-     * Helper method that calculates the total percentage of clean energy
-     * for a single interval.
+     * Calls the external API for a slot-aligned range.
+     * Concurrent calls for the same range share a single upstream request.
      *
-     * @param interval single energy mix interval.
-     * @return sum of percentages for all renewable fuel types.
+     * @param from start of the range
+     * @param to   end of the range
+     * @return intervals returned by the API, empty if there was no data.
      */
 
-    private double calculateCleanEnergyPercent(EnergyMixInterval interval) {
+    private IntervalColumns fetchEnergyData(Instant from, Instant to) {
 
-        return interval.generationMix().stream()
-                .filter(fuel -> cleanEnergy.contains(fuel.fuel()))
-                .mapToDouble(Fuel::percentage)
-                .sum();
+        return upstreamFetches.execute(from + "/" + to, () -> generationRepository.fetchGeneration(from, to));
     }
 
     /**
      * Fetches energy data for today and the next 2 days.
-     * It groups the data manually by date and calculates the daily averages.
-     * Finally, it sorts the result by date.
+     * Intervals are bucketed into Europe/London days and the daily averages are calculated.
+     * The daily sums are kept in a {@link RollingDailyAggregate}: while the forecast version does not change
+     * they are returned as they are, otherwise only the intervals which changed are re-applied.
      *
      * @return list of {@link DailyEnergySummary} objects sorted by date
      */
 
     public List<DailyEnergySummary> calculateThreeDaysSummary() {
 
-        LocalDate now = LocalDate.now(ZoneId.of("Europe/London"));
+        LocalDate now = LocalDate.now(clock.withZone(DailyAccumulator.LONDON));
+        long forecastVersion = forecastCache.currentForecastVersion();
 
-        List<String> targetDates = List.of(
-                now.toString(),
-                now.plusDays(1).toString(),
-                now.plusDays(2).toString()
-        );
+        List<DailyEnergySummary> current = threeDaysSummary.summariesIfCurrent(forecastVersion, now, 3);
+        if (current != null) {
+            return current;
+        }
 
-        EnergyResponse energyResponse = getEnergyData(now.toString(), now.plusDays(4).toString());
+        IntervalColumns columns = getThreeDaysColumns(now);
 
-        if (energyResponse.data() == null || energyResponse.data().isEmpty()) {
+        if (columns.isEmpty()) {
             throw new NoEnergyMixIntervalException("Returned list is empty");
         }
 
-        Map<String, List<EnergyMixInterval>> groupedByDayIntervals = new HashMap<>();
+        long started = System.nanoTime();
 
+        threeDaysSummary.update(columns, columns.sumPercents(cleanEnergyMask), now, 3,
+                forecastCache.isServingStale() ? -1 : forecastVersion);
+        List<DailyEnergySummary> dailyEnergySummaryList = threeDaysSummary.summaries(now, 3);
 
-        for (EnergyMixInterval interval : energyResponse.data()) {
-            String dateKey = interval.from().substring(0, 10);
+        metrics.recordThreeDaysSummary(System.nanoTime() - started);
 
-            if (targetDates.contains(dateKey)) {
-                if (!groupedByDayIntervals.containsKey(dateKey)) {
-                    groupedByDayIntervals.put(dateKey, new ArrayList<>());
-                }
+        return dailyEnergySummaryList;
+    }
 
-                groupedByDayIntervals.get(dateKey).add(interval);
-            }
+    /**
+     * Variant of {@link #calculateThreeDaysSummary()} with the clean energy definition given by the request.
+     * The same cached forecast is scored with {@link IntervalColumns#weightedSum(FuelWeights)}, only the daily
+     * sums are computed from scratch instead of being read from the rolling summary.
+     *
+     * @param cleanEnergy clean energy definition, null for {@code energy.clean-types}
+     * @return list of {@link DailyEnergySummary} objects sorted by date
+     */
+
+    public List<DailyEnergySummary> calculateThreeDaysSummary(FuelWeights cleanEnergy) {
+
+        if (isDefault(cleanEnergy)) {
+            return calculateThreeDaysSummary();
         }
 
-        List<DailyEnergySummary> dailyEnergySummaryList = new ArrayList<>();
+        LocalDate now = LocalDate.now(clock.withZone(DailyAccumulator.LONDON));
+        IntervalColumns columns = getThreeDaysColumns(now);
+
+        return summarize(columns, columns.weightedSum(cleanEnergy), now, 3);
+    }
+
+    /**
+     * Refreshes the slots read by the three-days summary and the charging window searches with a single
+     * upstream call, so the next request is answered without fetching. The rolling summary is brought up to date
+     * by the next {@link #calculateThreeDaysSummary()}, which the prefetcher calls once the refreshed forecast
+     * is the current version.
+     *
+     * @throws RuntimeException if the upstream call failed, the cache keeps the previous slots then.
+     */
 
+    public void refreshForecast() {
 
-        for (String targetDate : targetDates) {
-            if (groupedByDayIntervals.containsKey(targetDate)) {
-                List<EnergyMixInterval> intervalList = groupedByDayIntervals.get(targetDate);
+        LocalDate now = LocalDate.now(clock.withZone(DailyAccumulator.LONDON));
+        Instant from = Instant.ofEpochSecond(DailyAccumulator.startOfLondonDay(now));
+        Instant summaryTo = Instant.ofEpochSecond(DailyAccumulator.startOfLondonDay(now.plusDays(3)));
+        Instant chargingTo = HalfHourSlots.parse(now.plusDays(3).toString());
 
-                DailyEnergySummary dailyEnergySummary = calculateDailyEnergySummary(intervalList, targetDate);
+        forecastCache.refresh(from, chargingTo.isAfter(summaryTo) ? chargingTo : summaryTo, this::fetchEnergyData);
+    }
+
+    /**
+     * @return number of intervals re-applied to the rolling three-days summary since startup.
+     */
+
+    public long getSummaryAppliedIntervalCount() {
+        return threeDaysSummary.getAppliedIntervalCount();
+    }
+
+    /**
+     * @return forecast version the rolling three-days summary was last updated from, -1 if none or stale.
+     */
+
+    public long getSummaryForecastVersion() {
+        return threeDaysSummary.getForecastVersion();
+    }
+
+    /**
+     * Buckets intervals into Europe/London days and calculates the daily averages.
+     * Shared by the national and the regional summaries.
+     *
+     * @param columns  intervals covering the days
+     * @param firstDay first day of the summary
+     * @param dayCount number of days
+     * @return list of {@link DailyEnergySummary} objects sorted by date, days without data are skipped.
+     * @throws NoEnergyMixIntervalException if there are no intervals.
+     */
+
+    public List<DailyEnergySummary> calculateDailyEnergySummary(IntervalColumns columns, LocalDate firstDay, int dayCount) {
+
+        return summarize(columns, columns.sumPercents(cleanEnergyMask), firstDay, dayCount);
+    }
 
-                dailyEnergySummaryList.add(dailyEnergySummary);
+    private List<DailyEnergySummary> summarize(IntervalColumns columns, double[] cleanEnergyPercents,
+                                               LocalDate firstDay, int dayCount) {
+        if (columns.isEmpty()) {
+            throw new NoEnergyMixIntervalException("Returned list is empty");
+        }
+
+        long started = System.nanoTime();
+
+        DailyAccumulator[] days = new DailyAccumulator[dayCount];
+        for (int day = 0; day < days.length; day++) {
+            days[day] = new DailyAccumulator();
+        }
+
+        DailyAccumulator.accumulateLondonDays(columns, cleanEnergyPercents, firstDay, days);
+
+        List<DailyEnergySummary> dailyEnergySummaryList = new ArrayList<>();
+
+        for (int day = 0; day < days.length; day++) {
+            if (!days[day].isEmpty()) {
+                dailyEnergySummaryList.add(days[day].toSummary(firstDay.plusDays(day).toString()));
             }
         }
 
+        metrics.recordThreeDaysSummary(System.nanoTime() - started);
+
         return dailyEnergySummaryList;
     }
 
@@ -160,59 +256,224 @@ public class EnergyMixService {
      */
 
     public OptimalChargingWindow calculateOptimalChargingWindow(int windowLength) {
-        LocalDate now = LocalDate.now(ZoneId.of("Europe/London"));
+        validateWindowLength(windowLength);
 
-        String tomorrowStart = now.plusDays(1).toString();
-        String dayAfterTomorrowEnd = now.plusDays(3).toString();
+        return findOptimalChargingWindow(getChargingForecast(), windowLength);
+    }
 
-        EnergyResponse energyResponse = getEnergyData(tomorrowStart, dayAfterTomorrowEnd);
+    /**
+     * Variant of {@link #calculateOptimalChargingWindow(int)} with the clean energy definition given by the request,
+     * scored against the same cached forecast.
+     *
+     * @param windowLength duration of charging in hours
+     * @param cleanEnergy  clean energy definition, null for {@code energy.clean-types}
+     * @return {@link OptimalChargingWindow} with the highest average clean energy score.
+     */
 
-        if (energyResponse.data() == null || energyResponse.data().isEmpty()) {
-            throw new NoEnergyMixIntervalException("No intervals returned from API");
-        }
+    public OptimalChargingWindow calculateOptimalChargingWindow(int windowLength, FuelWeights cleanEnergy) {
+        validateWindowLength(windowLength);
+
+        IntervalColumns columns = getChargingForecast();
+
+        return findOptimalChargingWindow(columns, cleanEnergyPercents(columns, cleanEnergy), windowLength);
+    }
+
+    /**
+     * Finds the best time window for charging in the given intervals.
+     * Shared by the national and the regional charging window.
+     *
+     * @param columns      consecutive intervals
+     * @param windowLength duration of charging in hours
+     * @return {@link OptimalChargingWindow} with the highest average clean energy.
+     * @throws NoEnergyMixIntervalException if the window does not fit into the intervals.
+     */
+
+    public OptimalChargingWindow findOptimalChargingWindow(IntervalColumns columns, int windowLength) {
+        validateWindowLength(windowLength);
 
-        List<EnergyMixInterval> allIntervals = energyResponse.data();
+        return findOptimalChargingWindow(columns, columns.sumPercents(cleanEnergyMask), windowLength);
+    }
+
+    private OptimalChargingWindow findOptimalChargingWindow(IntervalColumns columns, double[] cleanEnergyPercents,
+                                                            int windowLength) {
+        long started = System.nanoTime();
+        ChargingWindowEngine engine = new ChargingWindowEngine(cleanEnergyPercents);
 
         int windowSize = windowLength * 2;
+        int startIndex = engine.findBestStart(windowSize);
+        metrics.recordWindowSearch(System.nanoTime() - started);
+
+        if (startIndex < 0) {
+            throw new NoEnergyMixIntervalException("No intervals found for given date");
+        }
+
+        return new OptimalChargingWindow(columns.formatStart(startIndex),
+                columns.formatEnd(startIndex + windowSize - 1),
+                engine.average(startIndex, windowSize));
+    }
 
-        double maxAverage = Double.NEGATIVE_INFINITY;
-        EnergyMixInterval bestStartInterval = null;
+    /**
+     * Finds the best charging window for every length in the given range using a single forecast,
+     * so the clean energy curve can be drawn with one request.
+     * Lengths which do not fit into the forecast are skipped.
+     *
+     * @param minWindowLength shortest duration of charging in hours
+     * @param maxWindowLength longest duration of charging in hours, at most the 48 hours of the forecast
+     * @return list of {@link ChargingWindowCurvePoint} ordered by window length.
+     * @throws IllegalArgumentException if the lengths are not positive, reversed or longer than the forecast.
+     */
+
+    public List<ChargingWindowCurvePoint> calculateOptimalChargingWindows(int minWindowLength, int maxWindowLength) {
+        validateWindowLength(minWindowLength);
+
+        if (maxWindowLength < minWindowLength) {
+            throw new IllegalArgumentException("maxWindowLength must not be lower than minWindowLength");
+        }
+        if (maxWindowLength > MAX_CURVE_WINDOW_LENGTH) {
+            throw new IllegalArgumentException("maxWindowLength must not be longer than "
+                    + MAX_CURVE_WINDOW_LENGTH + " hours");
+        }
+
+        IntervalColumns columns = getChargingForecast();
+        int fittingMaxWindowLength = Math.min(maxWindowLength, columns.size() / 2);
+
+        if (fittingMaxWindowLength < minWindowLength) {
+            throw new NoEnergyMixIntervalException("No intervals found for given date");
+        }
+
+        long started = System.nanoTime();
+        ChargingWindowEngine engine = new ChargingWindowEngine(columns.sumPercents(cleanEnergyMask));
 
-        for (int i = 0; i <= allIntervals.size() - windowSize; i++) {
+        int[] bestStarts = engine.findBestStarts(minWindowLength * 2, fittingMaxWindowLength * 2);
+        metrics.recordWindowCurveSearch(System.nanoTime() - started);
 
-            List<EnergyMixInterval> currWindow = allIntervals.subList(i, i + windowSize);
+        List<ChargingWindowCurvePoint> curve = new ArrayList<>();
 
-            double currentAverage = calculateWindowAverage(currWindow);
+        for (int windowLength = minWindowLength; windowLength <= fittingMaxWindowLength; windowLength++) {
+            int windowSize = windowLength * 2;
+            int startIndex = bestStarts[windowSize - minWindowLength * 2];
 
-            if (currentAverage > maxAverage) {
-                maxAverage = currentAverage;
-                bestStartInterval = allIntervals.get(i);
+            if (startIndex >= 0) {
+                curve.add(new ChargingWindowCurvePoint(windowLength,
+                        columns.formatStart(startIndex),
+                        columns.formatEnd(startIndex + windowSize - 1),
+                        engine.average(startIndex, windowSize)));
             }
         }
 
-        if (bestStartInterval == null) {
+        if (curve.isEmpty()) {
             throw new NoEnergyMixIntervalException("No intervals found for given date");
         }
 
-        int startIndex = allIntervals.indexOf(bestStartInterval);
-        int endIndex = startIndex + windowSize - 1;
-        EnergyMixInterval bestEndInterval = allIntervals.get(endIndex);
+        return curve;
+    }
+
+    /**
+     * Finds the best charging windows of one length between an earliest start and a deadline,
+     * so a charging schedule can fall back to the next candidates.
+     *
+     * @param windowLength   duration of charging in hours
+     * @param count          maximum number of windows, at most 48
+     * @param nonOverlapping if true, returned windows do not share any interval
+     * @param earliestStart  windows must not start before this instant, defaults to the start of tomorrow
+     * @param finishBy       windows must end by this instant, defaults to the end of the day after tomorrow
+     * @return list of {@link OptimalChargingWindow} ordered from the highest average clean energy.
+     * @throws NoEnergyMixIntervalException if no window fits between the constraints.
+     */
+
+    public List<OptimalChargingWindow> calculateTopChargingWindows(int windowLength, int count, boolean nonOverlapping,
+                                                                  Instant earliestStart, Instant finishBy) {
+        validateWindowLength(windowLength);
+
+        if (count <= 0 || count > MAX_TOP_WINDOWS) {
+            throw new IllegalArgumentException("count must be between 1 and " + MAX_TOP_WINDOWS);
+        }
+
+        LocalDate now = LocalDate.now(clock.withZone(DailyAccumulator.LONDON));
+        Instant from = earliestStart != null ? earliestStart : HalfHourSlots.parse(now.plusDays(1).toString());
+        Instant to = finishBy != null ? finishBy : HalfHourSlots.parse(now.plusDays(3).toString());
+
+        if (!to.isAfter(from)) {
+            throw new IllegalArgumentException("finishBy must be after earliestStart");
+        }
+        if (Duration.between(from, to).compareTo(MAX_TOP_WINDOW_SPAN) > 0) {
+            throw new IllegalArgumentException("earliestStart and finishBy must not be more than 7 days apart");
+        }
+
+        IntervalColumns columns = getEnergyColumns(from, to);
+
+        long started = System.nanoTime();
+        int windowSize = windowLength * 2;
+
+        int firstStart = 0;
+        while (firstStart < columns.size() && columns.start(firstStart) < from.getEpochSecond()) {
+            firstStart++;
+        }
+        int lastEnd = columns.size() - 1;
+        while (lastEnd >= 0 && columns.end(lastEnd) > to.getEpochSecond()) {
+            lastEnd--;
+        }
+
+        ChargingWindowEngine engine = new ChargingWindowEngine(columns.sumPercents(cleanEnergyMask));
+        int[] starts = engine.findTopStarts(windowSize, count, firstStart, lastEnd - windowSize + 1, nonOverlapping);
+        metrics.recordWindowTopSearch(System.nanoTime() - started);
+
+        if (starts.length == 0) {
+            throw new NoEnergyMixIntervalException("No charging window fits between given constraints");
+        }
+
+        List<OptimalChargingWindow> windows = new ArrayList<>(starts.length);
+
+        for (int startIndex : starts) {
+            windows.add(new OptimalChargingWindow(columns.formatStart(startIndex),
+                    columns.formatEnd(startIndex + windowSize - 1),
+                    engine.average(startIndex, windowSize)));
+        }
 
-        return new OptimalChargingWindow(bestStartInterval.from(), bestEndInterval.to(), maxAverage);
+        return windows;
     }
 
     /**
-     * Helper method that calculates the average percentage of clean energy in a given window
+     * Fetches the forecast for tomorrow and the day after tomorrow used by the charging window search.
      *
-     * @param window list of intervals
-     * @return average clean energy percentage for the window
+     * @return consecutive intervals.
+     * @throws NoEnergyMixIntervalException if the API returned no intervals.
      */
 
-    private double calculateWindowAverage(List<EnergyMixInterval> window) {
+    private IntervalColumns getThreeDaysColumns(LocalDate now) {
 
-        return window.stream()
-                .mapToDouble(this::calculateCleanEnergyPercent)
-                .average()
-                .orElse(0.0);
+        return getEnergyColumns(
+                Instant.ofEpochSecond(DailyAccumulator.startOfLondonDay(now)),
+                Instant.ofEpochSecond(DailyAccumulator.startOfLondonDay(now.plusDays(3))));
+    }
+
+    private boolean isDefault(FuelWeights cleanEnergy) {
+        return cleanEnergy == null || cleanEnergy.equals(defaultCleanEnergy);
+    }
+
+    private double[] cleanEnergyPercents(IntervalColumns columns, FuelWeights cleanEnergy) {
+        return isDefault(cleanEnergy) ? columns.sumPercents(cleanEnergyMask) : columns.weightedSum(cleanEnergy);
+    }
+
+    private IntervalColumns getChargingForecast() {
+        LocalDate now = LocalDate.now(clock.withZone(DailyAccumulator.LONDON));
+
+        String tomorrowStart = now.plusDays(1).toString();
+        String dayAfterTomorrowEnd = now.plusDays(3).toString();
+
+        IntervalColumns columns = getEnergyColumns(tomorrowStart, dayAfterTomorrowEnd);
+
+        if (columns.isEmpty()) {
+            throw new NoEnergyMixIntervalException("No intervals returned from API");
+        }
+
+        return columns;
+    }
+
+
+    private void validateWindowLength(int windowLength) {
+        if (windowLength <= 0) {
+            throw new IllegalArgumentException("windowLength must be a positive number of hours");
+        }
     }
 }
@@ -0,0 +1,162 @@
+package com.jerzymaj.energymixgbbackend.service;
+
+import com.jerzymaj.energymixgbbackend.DTOs.ChargingRequest;
+import com.jerzymaj.energymixgbbackend.DTOs.ChargingSchedule;
+import com.jerzymaj.energymixgbbackend.cache.HalfHourSlots;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+import com.jerzymaj.energymixgbbackend.metrics.EnergyMetrics;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A fleet scheduling batch bound to one forecast snapshot. Every distinct window length gets one
+ * {@link ChargingWindowEngine.WindowIndex}, so each request is answered in O(log n) for its bounds
+ * plus O(1) for the window, whatever the number of vehicles sharing the length.
+ */
+public final class FleetSchedule {
+
+    private static final int SEQUENTIAL_THRESHOLD = 256;
+
+    private final List<ChargingRequest> requests;
+    private final IntervalColumns columns;
+    private final Instant defaultStart;
+    private final Instant defaultFinish;
+    private final ForkJoinPool pool;
+    private final EnergyMetrics metrics;
+    private final ChargingWindowEngine engine;
+    private final ChargingWindowEngine.WindowIndex[] indexes;
+
+    FleetSchedule(List<ChargingRequest> requests, IntervalColumns columns, double[] cleanEnergyPercent,
+                  Instant defaultStart, Instant defaultFinish, ForkJoinPool pool, EnergyMetrics metrics) {
+        this.requests = requests;
+        this.columns = columns;
+        this.defaultStart = defaultStart;
+        this.defaultFinish = defaultFinish;
+        this.pool = pool;
+        this.metrics = metrics;
+
+        this.engine = new ChargingWindowEngine(cleanEnergyPercent);
+        this.indexes = new ChargingWindowEngine.WindowIndex[columns.size() + 1];
+
+        for (ChargingRequest request : requests) {
+            int windowSize = request.windowLength() * 2;
+
+            if (windowSize > 0 && windowSize < indexes.length && indexes[windowSize] == null) {
+                indexes[windowSize] = engine.indexWindows(windowSize);
+            }
+        }
+    }
+
+    /**
+     * Solves all requests on the fork-join pool, each worker writing its results into its own slots of one array,
+     * so the workers never block on the caller. Requests which cannot be satisfied get a result with an error
+     * instead of failing the batch.
+     *
+     * @return one {@link ChargingSchedule} per request, in request order.
+     */
+    public List<ChargingSchedule> solve() {
+        long started = System.nanoTime();
+        ChargingSchedule[] results = new ChargingSchedule[requests.size()];
+
+        pool.invoke(new SolveTask(0, requests.size(), results));
+
+        metrics.recordFleetSchedule(System.nanoTime() - started, requests.size());
+
+        return Arrays.asList(results);
+    }
+
+    private ChargingSchedule solve(int index) {
+        ChargingRequest request = requests.get(index);
+
+        if (request.windowLength() <= 0) {
+            return failure(index, request, "windowLength must be a positive number of hours");
+        }
+
+        Instant earliestStart = request.earliestStart() != null ? request.earliestStart() : defaultStart;
+        Instant finishBy = request.finishBy() != null ? request.finishBy() : defaultFinish;
+
+        if (!finishBy.isAfter(earliestStart)) {
+            return failure(index, request, "finishBy must be after earliestStart");
+        }
+
+        int windowSize = request.windowLength() * 2;
+        int firstStart = firstStartingAtOrAfter(earliestStart.getEpochSecond());
+        int lastEnd = firstStartingAtOrAfter(finishBy.getEpochSecond()) - 1;
+
+        while (lastEnd >= 0 && columns.end(lastEnd) > finishBy.getEpochSecond()) {
+            lastEnd--;
+        }
+
+        int start = windowSize > 0 && windowSize < indexes.length
+                ? indexes[windowSize].bestStart(firstStart, lastEnd - windowSize + 1)
+                : -1;
+
+        if (start < 0) {
+            return failure(index, request, "No charging window fits between given constraints");
+        }
+
+        int end = start + windowSize - 1;
+        double average = engine.average(start, windowSize);
+        Double cleanEnergyKwh = request.energyKwh() != null ? request.energyKwh() * average / 100 : null;
+
+        return new ChargingSchedule(index, request.vehicleId(),
+                columns.formatStart(start), columns.formatEnd(end),
+                average, cleanEnergyKwh, null);
+    }
+
+    /**
+     * @return first row starting at or after {@code epochSecond}, or the row count if there is none.
+     */
+    private int firstStartingAtOrAfter(long epochSecond) {
+        int low = 0;
+        int high = columns.size();
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (columns.start(middle) < epochSecond) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static ChargingSchedule failure(int index, ChargingRequest request, String error) {
+        return new ChargingSchedule(index, request.vehicleId(), null, null, null, null, error);
+    }
+
+    /**
+     * Splits the batch in halves until a chunk is small enough to be solved on one worker.
+     */
+    private final class SolveTask extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+        private final ChargingSchedule[] results;
+
+        private SolveTask(int from, int to, ChargingSchedule[] results) {
+            this.from = from;
+            this.to = to;
+            this.results = results;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int index = from; index < to; index++) {
+                    results[index] = solve(index);
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new SolveTask(from, middle, results), new SolveTask(middle, to, results));
+        }
+    }
+}
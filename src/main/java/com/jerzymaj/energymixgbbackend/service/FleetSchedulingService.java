@@ -0,0 +1,109 @@
+package com.jerzymaj.energymixgbbackend.service;
+
+import com.jerzymaj.energymixgbbackend.DTOs.ChargingRequest;
+import com.jerzymaj.energymixgbbackend.cache.HalfHourSlots;
+import com.jerzymaj.energymixgbbackend.columnar.FuelDictionary;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+import com.jerzymaj.energymixgbbackend.exceptions.NoEnergyMixIntervalException;
+import com.jerzymaj.energymixgbbackend.metrics.EnergyMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+@Service
+public class FleetSchedulingService {
+
+    private static final Duration MAX_SNAPSHOT_SPAN = Duration.ofDays(7);
+
+    private final EnergyMixService energyMixService;
+    private final Clock clock;
+    private final long cleanEnergyMask;
+    private final int maxBatchSize;
+    private final ForkJoinPool pool;
+    private final EnergyMetrics metrics;
+
+    public FleetSchedulingService(EnergyMixService energyMixService, Clock clock,
+                                  @Value("${energy.clean-types}") List<String> cleanEnergy,
+                                  @Value("${energy.fleet.max-batch-size:10000}") int maxBatchSize,
+                                  @Value("${energy.fleet.parallelism:0}") int parallelism,
+                                  EnergyMetrics metrics) {
+        this.energyMixService = energyMixService;
+        this.clock = clock;
+        this.cleanEnergyMask = FuelDictionary.maskOf(cleanEnergy);
+        this.maxBatchSize = maxBatchSize;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.metrics = metrics;
+    }
+
+    /**
+     * Fetches one forecast snapshot covering every request of the batch and prepares the window indexes,
+     * so the batch is solved without further upstream calls. Requests without bounds default to
+     * tomorrow and the day after tomorrow, like the single window search.
+     *
+     * @param requests charging requests of the fleet
+     * @return {@link FleetSchedule} solving the batch against the snapshot.
+     * @throws IllegalArgumentException     if the batch is empty, too large, contains null requests
+     *                                      or spans more than 7 days.
+     * @throws NoEnergyMixIntervalException if the API returned no intervals.
+     */
+
+    public FleetSchedule prepareSchedule(List<ChargingRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("At least one charging request is required");
+        }
+        if (requests.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch must not contain more than " + maxBatchSize + " requests");
+        }
+
+        LocalDate now = LocalDate.now(clock.withZone(DailyAccumulator.LONDON));
+        Instant defaultStart = HalfHourSlots.parse(now.plusDays(1).toString());
+        Instant defaultFinish = HalfHourSlots.parse(now.plusDays(3).toString());
+
+        Instant from = null;
+        Instant to = null;
+
+        for (int index = 0; index < requests.size(); index++) {
+            ChargingRequest request = requests.get(index);
+
+            if (request == null) {
+                throw new IllegalArgumentException("Charging request at index " + index + " must not be null");
+            }
+
+            Instant start = request.earliestStart() != null ? request.earliestStart() : defaultStart;
+            Instant finish = request.finishBy() != null ? request.finishBy() : defaultFinish;
+
+            if (finish.isAfter(start)) {
+                from = from == null || start.isBefore(from) ? start : from;
+                to = to == null || finish.isAfter(to) ? finish : to;
+            }
+        }
+
+        if (from == null) {
+            throw new IllegalArgumentException("finishBy must be after earliestStart");
+        }
+        if (Duration.between(from, to).compareTo(MAX_SNAPSHOT_SPAN) > 0) {
+            throw new IllegalArgumentException("Requests of one batch must fit within 7 days");
+        }
+
+        IntervalColumns columns = energyMixService.getEnergyColumns(from, to);
+
+        if (columns.isEmpty()) {
+            throw new NoEnergyMixIntervalException("No intervals returned from API");
+        }
+
+        return new FleetSchedule(requests, columns, columns.sumPercents(cleanEnergyMask),
+                defaultStart, defaultFinish, pool, metrics);
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.shutdownNow();
+    }
+}
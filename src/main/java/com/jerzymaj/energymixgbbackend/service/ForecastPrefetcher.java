@@ -0,0 +1,123 @@
+package com.jerzymaj.energymixgbbackend.service;
+
+import com.jerzymaj.energymixgbbackend.cache.ForecastCache;
+import com.jerzymaj.energymixgbbackend.metrics.EnergyMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refreshes the forecast as soon as a new one is published, so neither the first request after a forecast update
+ * nor the first one after a deploy pays the upstream round trip. The first refresh runs as an
+ * {@link ApplicationRunner}, which Spring Boot completes before the readiness state changes to accepting traffic.
+ * Later ones run {@code energy.cache.publication-delay} after every half-hour boundary plus a random jitter of up
+ * to {@code energy.prefetch.jitter}, so several instances do not call upstream at the same instant.
+ * <p>
+ * Between the expiry of the previous forecast and the planned refresh, at most {@code energy.prefetch.max-hold}
+ * past its planned time, requests are answered from the previous forecast, which stays the current version
+ * until the refresh lands, instead of fetching. It is not marked as stale, upstream has not failed.
+ */
+@Component
+public class ForecastPrefetcher implements ApplicationRunner {
+
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("forecast-prefetch").factory());
+
+    private final EnergyMixService energyMixService;
+    private final ForecastCache forecastCache;
+    private final Clock clock;
+    private final EnergyMetrics metrics;
+    private final boolean enabled;
+    private final Duration jitter;
+    private final Duration maxHold;
+
+    public ForecastPrefetcher(EnergyMixService energyMixService, ForecastCache forecastCache, Clock clock,
+                              EnergyMetrics metrics,
+                              @Value("${energy.prefetch.enabled:true}") boolean enabled,
+                              @Value("${energy.prefetch.jitter:PT20S}") Duration jitter,
+                              @Value("${energy.prefetch.max-hold:PT30S}") Duration maxHold) {
+        this.energyMixService = energyMixService;
+        this.forecastCache = forecastCache;
+        this.clock = clock;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.jitter = jitter;
+        this.maxHold = maxHold;
+    }
+
+    /**
+     * Warms the cache before the application reports ready and schedules the refreshes.
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+
+        prefetch();
+        scheduleNext();
+    }
+
+    /**
+     * Refreshes the forecast once, releases the hold so the refreshed forecast is the current version and then
+     * rebuilds the rolling summary from it. Failures are swallowed, requests then fetch the forecast themselves
+     * or fall back to the stale slots.
+     *
+     * @return true if the forecast was refreshed.
+     */
+    public boolean prefetch() {
+        long started = System.nanoTime();
+
+        try {
+            energyMixService.refreshForecast();
+            forecastCache.holdExpiredUntil(Instant.MIN);
+            energyMixService.calculateThreeDaysSummary();
+            metrics.recordPrefetch(true, System.nanoTime() - started);
+            return true;
+        } catch (RuntimeException ex) {
+            metrics.recordPrefetch(false, System.nanoTime() - started);
+            return false;
+        } finally {
+            forecastCache.holdExpiredUntil(Instant.MIN);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.shutdownNow();
+        forecastCache.holdExpiredUntil(Instant.MIN);
+    }
+
+    private void scheduleNext() {
+        Instant fireAt = forecastCache.forecastExpiry(forecastCache.currentForecastVersion())
+                .plusMillis(ThreadLocalRandom.current().nextLong(jitter.toMillis() + 1));
+
+        try {
+            forecastCache.holdExpiredUntil(fireAt.plus(maxHold));
+            scheduler.schedule(this::runScheduled,
+                    Duration.between(clock.instant(), fireAt).toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            // Shutting down, no more refreshes.
+            forecastCache.holdExpiredUntil(Instant.MIN);
+        }
+    }
+
+    private void runScheduled() {
+        try {
+            prefetch();
+        } finally {
+            scheduleNext();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.jerzymaj.energymixgbbackend.service;
+
+import com.jerzymaj.energymixgbbackend.DTOs.DailyEnergySummary;
+import com.jerzymaj.energymixgbbackend.columnar.FuelDictionary;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+import com.jerzymaj.energymixgbbackend.exceptions.NoEnergyMixIntervalException;
+import com.jerzymaj.energymixgbbackend.metrics.EnergyMetrics;
+import com.jerzymaj.energymixgbbackend.store.GenerationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class HistoricalSummaryService {
+
+    private final GenerationRepository generationRepository;
+    private final long cleanEnergyMask;
+    private final int chunkDays;
+    private final int maxConcurrency;
+    private final int maxDays;
+    private final EnergyMetrics metrics;
+
+    public HistoricalSummaryService(GenerationRepository generationRepository,
+                                    @Value("${energy.clean-types}") List<String> cleanEnergy,
+                                    @Value("${energy.range.chunk-days:7}") int chunkDays,
+                                    @Value("${energy.range.max-concurrency:4}") int maxConcurrency,
+                                    @Value("${energy.range.max-days:366}") int maxDays,
+                                    EnergyMetrics metrics) {
+        this.generationRepository = generationRepository;
+        this.cleanEnergyMask = FuelDictionary.maskOf(cleanEnergy);
+        this.chunkDays = chunkDays;
+        this.maxConcurrency = maxConcurrency;
+        this.maxDays = maxDays;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Calculates daily summaries for an arbitrary range of Europe/London days.
+     * The range is split into chunks of {@code energy.range.chunk-days} which are fetched concurrently
+     * on virtual threads, at most {@code energy.range.max-concurrency} at a time.
+     * Each chunk is folded into its days' running sums as soon as it arrives.
+     *
+     * @param from first day (inclusive)
+     * @param to   last day (inclusive)
+     * @return list of {@link DailyEnergySummary} objects sorted by date, days without data are skipped.
+     * @throws NoEnergyMixIntervalException if the API returned no intervals for the whole range.
+     */
+
+    public List<DailyEnergySummary> calculateRangeSummary(LocalDate from, LocalDate to) {
+        long dayCount = ChronoUnit.DAYS.between(from, to) + 1;
+
+        if (dayCount <= 0) {
+            throw new IllegalArgumentException("'to' must not be before 'from'");
+        }
+        if (dayCount > maxDays) {
+            throw new IllegalArgumentException("Range must not be longer than " + maxDays + " days");
+        }
+
+        DailyAccumulator[] days = new DailyAccumulator[(int) dayCount];
+        for (int day = 0; day < days.length; day++) {
+            days[day] = new DailyAccumulator();
+        }
+
+        ChunkedFetch.fetchAll(ChunkedFetch.split(from, to.plusDays(1), chunkDays), maxConcurrency,
+                chunk -> fetchChunk(from, chunk, days));
+
+        List<DailyEnergySummary> dailyEnergySummaryList = new ArrayList<>();
+
+        for (int day = 0; day < days.length; day++) {
+            if (!days[day].isEmpty()) {
+                dailyEnergySummaryList.add(days[day].toSummary(from.plusDays(day).toString()));
+            }
+        }
+
+        if (dailyEnergySummaryList.isEmpty()) {
+            throw new NoEnergyMixIntervalException("No intervals found for given range");
+        }
+
+        return dailyEnergySummaryList;
+    }
+
+    /**
+     * Fetches the days of the chunk and adds them to their accumulators.
+     * Chunks never share a day, so accumulators are written by a single thread.
+     */
+    private void fetchChunk(LocalDate rangeStart, ChunkedFetch.Chunk chunk, DailyAccumulator[] days) {
+        IntervalColumns columns = generationRepository.fetchGeneration(
+                Instant.ofEpochSecond(DailyAccumulator.startOfLondonDay(chunk.first())),
+                Instant.ofEpochSecond(DailyAccumulator.startOfLondonDay(chunk.end())));
+
+        long started = System.nanoTime();
+
+        DailyAccumulator[] chunkDays = new DailyAccumulator[(int) ChronoUnit.DAYS.between(chunk.first(), chunk.end())];
+        System.arraycopy(days, (int) ChronoUnit.DAYS.between(rangeStart, chunk.first()), chunkDays, 0,
+                chunkDays.length);
+
+        DailyAccumulator.accumulateLondonDays(columns, columns.sumPercents(cleanEnergyMask), chunk.first(), chunkDays);
+
+        metrics.recordRangeSummary(System.nanoTime() - started);
+    }
+}
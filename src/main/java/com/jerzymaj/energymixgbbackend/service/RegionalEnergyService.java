@@ -0,0 +1,150 @@
+package com.jerzymaj.energymixgbbackend.service;
+
+import com.jerzymaj.energymixgbbackend.DTOs.RegionalChargingWindow;
+import com.jerzymaj.energymixgbbackend.DTOs.RegionalEnergySummary;
+import com.jerzymaj.energymixgbbackend.cache.ForecastCache;
+import com.jerzymaj.energymixgbbackend.cache.HalfHourSlots;
+import com.jerzymaj.energymixgbbackend.cache.SingleFlight;
+import com.jerzymaj.energymixgbbackend.client.CarbonIntensityClient;
+import com.jerzymaj.energymixgbbackend.client.DnoRegion;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+import com.jerzymaj.energymixgbbackend.exceptions.NoEnergyMixIntervalException;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Energy mix of the DNO regions. Every region has its own {@link ForecastCache}, so a region is only fetched
+ * when its own slots expire. Requests fan out to all regions at once on virtual threads and each region is
+ * aggregated on the thread which fetched it, so the latency is that of the slowest region, not the sum.
+ */
+@Service
+public class RegionalEnergyService {
+
+    private final Map<DnoRegion, ForecastCache> regionCaches = new EnumMap<>(DnoRegion.class);
+    private final SingleFlight<String, IntervalColumns> upstreamFetches = new SingleFlight<>();
+
+    private final CarbonIntensityClient carbonIntensityClient;
+    private final EnergyMixService energyMixService;
+    private final Clock clock;
+
+    public RegionalEnergyService(CarbonIntensityClient carbonIntensityClient, EnergyMixService energyMixService,
+                                 ForecastCache forecastCache, Clock clock) {
+        this.carbonIntensityClient = carbonIntensityClient;
+        this.energyMixService = energyMixService;
+        this.clock = clock;
+
+        for (DnoRegion region : DnoRegion.values()) {
+            regionCaches.put(region, forecastCache.emptyCopy());
+        }
+    }
+
+    /**
+     * @return forecast cache of every region, for the cache metrics.
+     */
+    public Map<DnoRegion, ForecastCache> getRegionCaches() {
+        return Collections.unmodifiableMap(regionCaches);
+    }
+
+    /**
+     * Calculates the summary of today and the next 2 days for every region.
+     *
+     * @return list of {@link RegionalEnergySummary} ordered by region id.
+     * @throws NoEnergyMixIntervalException if the API returned no intervals for a region.
+     */
+
+    public List<RegionalEnergySummary> calculateRegionalThreeDaysSummary() {
+
+        LocalDate now = LocalDate.now(clock.withZone(DailyAccumulator.LONDON));
+        Instant from = Instant.ofEpochSecond(DailyAccumulator.startOfLondonDay(now));
+        Instant to = Instant.ofEpochSecond(DailyAccumulator.startOfLondonDay(now.plusDays(3)));
+
+        return fanOut(region -> new RegionalEnergySummary(region.id(), region.shortName(), region.dnoRegion(),
+                energyMixService.calculateDailyEnergySummary(getRegionalColumns(region, from, to), now, 3)));
+    }
+
+    /**
+     * Finds the best charging window of tomorrow and the day after tomorrow for every region.
+     *
+     * @param windowLength duration of charging in hours
+     * @return list of {@link RegionalChargingWindow} ordered by region id.
+     * @throws NoEnergyMixIntervalException if the window does not fit into the forecast of a region.
+     */
+
+    public List<RegionalChargingWindow> calculateRegionalOptimalChargingWindows(int windowLength) {
+        if (windowLength <= 0) {
+            throw new IllegalArgumentException("windowLength must be a positive number of hours");
+        }
+
+        LocalDate now = LocalDate.now(clock.withZone(DailyAccumulator.LONDON));
+        Instant from = HalfHourSlots.parse(now.plusDays(1).toString());
+        Instant to = HalfHourSlots.parse(now.plusDays(3).toString());
+
+        return fanOut(region -> new RegionalChargingWindow(region.id(), region.shortName(), region.dnoRegion(),
+                energyMixService.findOptimalChargingWindow(getRegionalColumns(region, from, to), windowLength)));
+    }
+
+    /**
+     * @return true if upstream failed for at least one region and its expired slots are served in its place.
+     */
+    public boolean isServingStale() {
+        for (ForecastCache regionCache : regionCaches.values()) {
+            if (regionCache.isServingStale()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private IntervalColumns getRegionalColumns(DnoRegion region, Instant from, Instant to) {
+
+        return regionCaches.get(region).getIntervals(from, to, (slotFrom, slotTo) ->
+                upstreamFetches.execute(region.id() + ":" + slotFrom + "/" + slotTo,
+                        () -> carbonIntensityClient.fetchRegionalGeneration(region, slotFrom, slotTo)));
+    }
+
+    /**
+     * Runs {@code perRegion} for all regions concurrently and returns the results in region order.
+     */
+    private <T> List<T> fanOut(Function<DnoRegion, T> perRegion) {
+        List<Future<T>> regions = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (DnoRegion region : DnoRegion.values()) {
+                regions.add(executor.submit(() -> perRegion.apply(region)));
+            }
+
+            List<T> results = new ArrayList<>(regions.size());
+            for (Future<T> region : regions) {
+                results.add(awaitRegion(region));
+            }
+            return results;
+        }
+    }
+
+    private <T> T awaitRegion(Future<T> region) {
+        try {
+            return region.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching regions", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.jerzymaj.energymixgbbackend.service;
+
+import com.jerzymaj.energymixgbbackend.DTOs.DailyEnergySummary;
+import com.jerzymaj.energymixgbbackend.cache.HalfHourSlots;
+import com.jerzymaj.energymixgbbackend.columnar.FuelDictionary;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-day and per-fuel running sums kept across forecast refreshes. An update re-applies only the intervals
+ * which are new or whose values changed, removes intervals which disappeared and retires the days which ended,
+ * so reading the summaries is O(days) whatever the number of intervals.
+ * <p>
+ * Changed intervals are replaced by subtracting their previous values, which may leave rounding differences
+ * in the last bits of a day's averages compared to summing from scratch.
+ */
+public class RollingDailyAggregate {
+
+    private final TreeMap<Long, Contribution> slots = new TreeMap<>();
+    private final TreeMap<LocalDate, DailyAccumulator> days = new TreeMap<>();
+    private long currentVersion = -1;
+    private LocalDate currentFirstDay;
+    private long appliedIntervals;
+    private long unchangedIntervals;
+
+    /**
+     * @return the summaries if the sums were last updated from the given forecast version and first day,
+     * null if they have to be updated first.
+     */
+    public synchronized List<DailyEnergySummary> summariesIfCurrent(long forecastVersion, LocalDate firstDay,
+                                                                    int dayCount) {
+        if (forecastVersion != currentVersion || !firstDay.equals(currentFirstDay)) {
+            return null;
+        }
+        return summaries(firstDay, dayCount);
+    }
+
+    /**
+     * Brings the sums of the Europe/London days [firstDay, firstDay + dayCount) in line with {@code columns}.
+     *
+     * @param columns             intervals covering the days, ordered by start time
+     * @param cleanEnergyPercents clean energy percentage per interval
+     * @param firstDay            first day of the summary, earlier days are retired
+     * @param dayCount            number of days
+     * @param forecastVersion     version the intervals belong to, or -1 if they may still change within it
+     * @return number of intervals which were added, replaced or removed.
+     */
+    public synchronized int update(IntervalColumns columns, double[] cleanEnergyPercents, LocalDate firstDay,
+                                   int dayCount, long forecastVersion) {
+        long rangeStart = DailyAccumulator.startOfLondonDay(firstDay);
+        long rangeEnd = DailyAccumulator.startOfLondonDay(firstDay.plusDays(dayCount));
+
+        days.headMap(firstDay).clear();
+        slots.headMap(rangeStart).clear();
+
+        boolean[] seen = new boolean[(int) ((rangeEnd - rangeStart) / HalfHourSlots.SLOT_SECONDS) + 1];
+        int applied = 0;
+
+        for (int row = 0; row < columns.size(); row++) {
+            long start = columns.start(row);
+
+            if (start < rangeStart || start >= rangeEnd) {
+                continue;
+            }
+            seen[(int) ((start - rangeStart) / HalfHourSlots.SLOT_SECONDS)] = true;
+
+            Contribution previous = slots.get(start);
+
+            if (previous != null && previous.matches(columns, row, cleanEnergyPercents[row], columns.fuels(row))) {
+                unchangedIntervals++;
+                continue;
+            }
+
+            double[] percents = new double[FuelDictionary.SIZE];
+            columns.copyRow(row, percents);
+            Contribution contribution = new Contribution(cleanEnergyPercents[row], percents, columns.fuels(row));
+
+            DailyAccumulator day = days.computeIfAbsent(dayOf(start), date -> new DailyAccumulator());
+            if (previous != null) {
+                day.remove(previous.cleanEnergyPercent(), previous.percents(), previous.fuels());
+            }
+            day.add(contribution.cleanEnergyPercent(), contribution.percents(), contribution.fuels());
+
+            slots.put(start, contribution);
+            applied++;
+        }
+
+        Iterator<Map.Entry<Long, Contribution>> inRange = slots.subMap(rangeStart, rangeEnd).entrySet().iterator();
+        while (inRange.hasNext()) {
+            Map.Entry<Long, Contribution> slot = inRange.next();
+
+            if (!seen[(int) ((slot.getKey() - rangeStart) / HalfHourSlots.SLOT_SECONDS)]) {
+                removeFromDay(slot.getKey(), slot.getValue());
+                inRange.remove();
+                applied++;
+            }
+        }
+
+        appliedIntervals += applied;
+        currentVersion = forecastVersion;
+        currentFirstDay = firstDay;
+
+        return applied;
+    }
+
+    /**
+     * @return {@link DailyEnergySummary} per day with data, ordered by date.
+     */
+    public synchronized List<DailyEnergySummary> summaries(LocalDate firstDay, int dayCount) {
+        List<DailyEnergySummary> dailyEnergySummaryList = new ArrayList<>(dayCount);
+
+        for (int offset = 0; offset < dayCount; offset++) {
+            LocalDate date = firstDay.plusDays(offset);
+            DailyAccumulator day = days.get(date);
+
+            if (day != null && !day.isEmpty()) {
+                dailyEnergySummaryList.add(day.toSummary(date.toString()));
+            }
+        }
+
+        return dailyEnergySummaryList;
+    }
+
+    /**
+     * @return forecast version of the last update, -1 if there was none or it may still change.
+     */
+    public synchronized long getForecastVersion() {
+        return currentVersion;
+    }
+
+    /**
+     * @return number of intervals added, replaced or removed since creation.
+     */
+    public synchronized long getAppliedIntervalCount() {
+        return appliedIntervals;
+    }
+
+    /**
+     * @return number of intervals skipped by updates because their values did not change.
+     */
+    public synchronized long getUnchangedIntervalCount() {
+        return unchangedIntervals;
+    }
+
+    private void removeFromDay(long start, Contribution contribution) {
+        LocalDate date = dayOf(start);
+        DailyAccumulator day = days.get(date);
+
+        day.remove(contribution.cleanEnergyPercent(), contribution.percents(), contribution.fuels());
+        if (day.isEmpty()) {
+            days.remove(date);
+        }
+    }
+
+    private static LocalDate dayOf(long start) {
+        return Instant.ofEpochSecond(start).atZone(DailyAccumulator.LONDON).toLocalDate();
+    }
+
+    /**
+     * Values of one interval as they were added to its day.
+     */
+    private record Contribution(double cleanEnergyPercent, double[] percents, long fuels) {
+
+        boolean matches(IntervalColumns columns, int row, double cleanEnergyPercent, long fuels) {
+            if (this.cleanEnergyPercent != cleanEnergyPercent || this.fuels != fuels) {
+                return false;
+            }
+            for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+                if (percents[fuel] != columns.percent(fuel, row)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.jerzymaj.energymixgbbackend.store;
+
+import com.jerzymaj.energymixgbbackend.analytics.IntervalAnalytics;
+import com.jerzymaj.energymixgbbackend.cache.HalfHourSlots;
+import com.jerzymaj.energymixgbbackend.client.CarbonIntensityClient;
+import com.jerzymaj.energymixgbbackend.columnar.FuelDictionary;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Source of generation mix for any range, combining the {@link IntervalFileStore} with the upstream API.
+ * Slots which finished more than {@code energy.store.settle-delay} ago are served from the store,
+ * missing ones are backfilled from upstream and appended. Slots upstream had no data for are requested
+ * again once they were marked longer than {@code energy.store.gap-retry} ago. Newer slots, including forecasts,
+ * are always fetched from upstream. Settled slots of every fetch are recorded in {@link IntervalAnalytics},
+ * together with the settled slots the store holds as gaps.
+ */
+@Component
+public class GenerationRepository {
+
+    private final CarbonIntensityClient carbonIntensityClient;
+    private final IntervalFileStore intervalFileStore;
+    private final IntervalAnalytics intervalAnalytics;
+    private final Clock clock;
+    private final Duration settleDelay;
+    private final Duration gapRetry;
+    private final LongAdder storedSlots = new LongAdder();
+    private final LongAdder backfilledSlots = new LongAdder();
+
+    public GenerationRepository(CarbonIntensityClient carbonIntensityClient, IntervalFileStore intervalFileStore,
+                                IntervalAnalytics intervalAnalytics, Clock clock,
+                                @Value("${energy.store.settle-delay:PT2H}") Duration settleDelay,
+                                @Value("${energy.store.gap-retry:PT6H}") Duration gapRetry) {
+        this.carbonIntensityClient = carbonIntensityClient;
+        this.intervalFileStore = intervalFileStore;
+        this.intervalAnalytics = intervalAnalytics;
+        this.clock = clock;
+        this.settleDelay = settleDelay;
+        this.gapRetry = gapRetry;
+    }
+
+    /**
+     * Returns the intervals starting in [from, to) ordered by start time.
+     *
+     * @param from start of the range
+     * @param to   end of the range
+     * @return intervals, empty if there was no data.
+     */
+    public IntervalColumns fetchGeneration(Instant from, Instant to) {
+        long settledBefore = HalfHourSlots.floor(clock.instant().minus(settleDelay).getEpochSecond());
+
+        IntervalColumns columns = intervalFileStore.isEnabled()
+                ? fetchStoredAndRecent(from, to, settledBefore)
+                : carbonIntensityClient.fetchGeneration(from, to);
+
+        intervalAnalytics.record(columns, settledBefore);
+        return columns;
+    }
+
+    /**
+     * @return number of settled slots served from the store without an upstream call since startup.
+     */
+    public long getStoredSlotCount() {
+        return storedSlots.sum();
+    }
+
+    /**
+     * @return number of settled slots fetched from upstream and appended to the store since startup.
+     */
+    public long getBackfilledSlotCount() {
+        return backfilledSlots.sum();
+    }
+
+    private IntervalColumns fetchStoredAndRecent(Instant from, Instant to, long settledBefore) {
+        long fromSlot = HalfHourSlots.floor(from.getEpochSecond());
+        long toSlot = HalfHourSlots.ceil(to.getEpochSecond());
+        long settledEnd = Math.min(toSlot, settledBefore);
+        long recentStart = Math.max(fromSlot, settledEnd);
+
+        if (settledEnd > fromSlot) {
+            backfill(fromSlot, settledEnd);
+        }
+
+        IntervalColumns recent = IntervalColumns.EMPTY;
+        if (toSlot > recentStart) {
+            recent = carbonIntensityClient.fetchGeneration(Instant.ofEpochSecond(recentStart), Instant.ofEpochSecond(toSlot));
+        }
+
+        IntervalColumns.Builder builder = IntervalColumns.builder((int) ((toSlot - fromSlot) / HalfHourSlots.SLOT_SECONDS));
+        builder.timestampsWithSeconds(recent.timestampsWithSeconds());
+        intervalFileStore.read(fromSlot, settledEnd, builder);
+
+        double[] row = new double[FuelDictionary.SIZE];
+        for (int index = 0; index < recent.size(); index++) {
+            long start = recent.start(index);
+
+            if (start >= recentStart && start < toSlot) {
+                recent.copyRow(index, row);
+                builder.addRow(start, row, recent.fuels(index));
+            }
+        }
+
+        IntervalColumns columns = builder.build();
+
+        if (settledEnd > fromSlot) {
+            intervalAnalytics.recordGaps(columns, fromSlot, settledEnd);
+        }
+        return columns;
+    }
+
+    /**
+     * Fetches every contiguous run of slots missing from the store, or marked as gaps before the retry interval,
+     * with one upstream call each.
+     */
+    private void backfill(long fromSlot, long toSlot) {
+        long now = clock.instant().getEpochSecond();
+        long retryMarkedBefore = now - gapRetry.toSeconds();
+        long runStart = -1;
+
+        for (long slot = fromSlot; slot <= toSlot; slot += HalfHourSlots.SLOT_SECONDS) {
+            boolean missing = slot < toSlot && !intervalFileStore.contains(slot, retryMarkedBefore);
+
+            if (slot < toSlot) {
+                (missing ? backfilledSlots : storedSlots).increment();
+            }
+
+            if (missing && runStart < 0) {
+                runStart = slot;
+            } else if (!missing && runStart >= 0) {
+                IntervalColumns fetched = carbonIntensityClient.fetchGeneration(
+                        Instant.ofEpochSecond(runStart), Instant.ofEpochSecond(slot));
+                intervalFileStore.append(fetched, runStart, slot, now);
+                runStart = -1;
+            }
+        }
+    }
+}
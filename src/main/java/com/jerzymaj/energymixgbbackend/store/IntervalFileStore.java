@@ -0,0 +1,244 @@
+package com.jerzymaj.energymixgbbackend.store;
+
+import com.jerzymaj.energymixgbbackend.cache.HalfHourSlots;
+import com.jerzymaj.energymixgbbackend.columnar.FuelDictionary;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Append-only, memory-mapped file of finished half-hour intervals. Published generation data never
+ * changes, so once a slot is stored it is served from the page cache on every later read and survives
+ * restarts.
+ * <p>
+ * Layout: a 64 byte header (magic, version, record size, fuel count, committed record count) followed by
+ * fixed-width records of {@code start epoch second (long), fuel mask (long), one double per fuel}.
+ * A record with an empty fuel mask marks a slot for which upstream had no data; in place of the percentages
+ * it holds the epoch second it was written at, so the gap can be requested again later. A later record of the
+ * same slot supersedes the earlier one. The record count is written after the record itself, so a crash can
+ * only lose the last, uncommitted record.
+ * <p>
+ * Reads use absolute accessors on the mapped segments and are lock-free, appends are serialized.
+ */
+@Component
+public class IntervalFileStore {
+
+    private static final int MAGIC = 0x454D4742;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int COUNT_OFFSET = 16;
+    private static final int RECORD_BYTES = Long.BYTES * 2 + Double.BYTES * FuelDictionary.SIZE;
+    private static final int SEGMENT_RECORDS = 65_536;
+    private static final long SEGMENT_BYTES = (long) SEGMENT_RECORDS * RECORD_BYTES;
+
+    private final boolean enabled;
+    private final Path path;
+
+    private final ConcurrentSkipListMap<Long, Integer> index = new ConcurrentSkipListMap<>();
+    private final List<MappedByteBuffer> segments = new CopyOnWriteArrayList<>();
+
+    private FileChannel channel;
+    private MappedByteBuffer header;
+    private int recordCount;
+
+    public IntervalFileStore(@Value("${energy.store.enabled:true}") boolean enabled,
+                             @Value("${energy.store.path:data/generation.store}") Path path) {
+        this.enabled = enabled;
+        this.path = path;
+
+        if (enabled && Files.exists(path)) {
+            open();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * @param retryMarkedBefore epoch second, slots marked as having no data before it count as missing
+     * @return true if the slot is stored with data, or was marked as having no data since {@code retryMarkedBefore}.
+     */
+    public boolean contains(long slot, long retryMarkedBefore) {
+        Integer record = index.get(slot);
+
+        if (record == null) {
+            return false;
+        }
+
+        MappedByteBuffer segment = segments.get(record / SEGMENT_RECORDS);
+        int offset = (record % SEGMENT_RECORDS) * RECORD_BYTES;
+
+        return segment.getLong(offset + Long.BYTES) != 0 || segment.getLong(offset + Long.BYTES * 2) >= retryMarkedBefore;
+    }
+
+    /**
+     * Copies the stored intervals starting in [fromSlot, toSlot) into the builder, in start order.
+     * Slots marked as having no data are skipped.
+     */
+    public void read(long fromSlot, long toSlot, IntervalColumns.Builder builder) {
+        if (fromSlot >= toSlot) {
+            return;
+        }
+
+        for (Map.Entry<Long, Integer> entry : index.subMap(fromSlot, toSlot).entrySet()) {
+            int record = entry.getValue();
+            MappedByteBuffer segment = segments.get(record / SEGMENT_RECORDS);
+            int offset = (record % SEGMENT_RECORDS) * RECORD_BYTES;
+
+            long fuels = segment.getLong(offset + Long.BYTES);
+            if (fuels == 0) {
+                continue;
+            }
+
+            int row = builder.addInterval(segment.getLong(offset));
+            int percentOffset = offset + Long.BYTES * 2;
+
+            for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+                builder.setPercent(row, fuel, segment.getDouble(percentOffset + fuel * Double.BYTES));
+            }
+            builder.addFuels(row, fuels);
+        }
+    }
+
+    /**
+     * Appends the rows of {@code columns} starting in [fromSlot, toSlot) and marks the slots of that
+     * range upstream returned nothing for. Slots already stored with data are left untouched, earlier marks
+     * are superseded.
+     *
+     * @param markedAt epoch second written into the marks
+     */
+    public synchronized void append(IntervalColumns columns, long fromSlot, long toSlot, long markedAt) {
+        if (!enabled) {
+            return;
+        }
+        if (channel == null) {
+            open();
+        }
+
+        for (int row = 0; row < columns.size(); row++) {
+            long slot = HalfHourSlots.floor(columns.start(row));
+
+            if (slot >= fromSlot && slot < toSlot && !containsData(slot)) {
+                writeRecord(slot, columns, row, markedAt);
+            }
+        }
+
+        for (long slot = fromSlot; slot < toSlot; slot += HalfHourSlots.SLOT_SECONDS) {
+            if (!containsData(slot)) {
+                writeRecord(slot, null, -1, markedAt);
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+
+        try {
+            header.force();
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+            channel.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            channel = null;
+        }
+    }
+
+    private boolean containsData(long slot) {
+        return contains(slot, Long.MAX_VALUE);
+    }
+
+    private void writeRecord(long slot, IntervalColumns columns, int row, long markedAt) {
+        int record = recordCount;
+        MappedByteBuffer segment = segmentFor(record);
+        int offset = (record % SEGMENT_RECORDS) * RECORD_BYTES;
+
+        segment.putLong(offset, slot);
+        segment.putLong(offset + Long.BYTES, columns == null ? 0 : columns.fuels(row));
+
+        if (columns == null) {
+            segment.putLong(offset + Long.BYTES * 2, markedAt);
+        } else {
+            for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+                segment.putDouble(offset + Long.BYTES * 2 + fuel * Double.BYTES, columns.percent(fuel, row));
+            }
+        }
+
+        recordCount++;
+        header.putLong(COUNT_OFFSET, recordCount);
+        index.put(slot, record);
+    }
+
+    private MappedByteBuffer segmentFor(int record) {
+        int segmentIndex = record / SEGMENT_RECORDS;
+
+        while (segments.size() <= segmentIndex) {
+            segments.add(map(segments.size()));
+        }
+
+        return segments.get(segmentIndex);
+    }
+
+    private MappedByteBuffer map(int segmentIndex) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + segmentIndex * SEGMENT_BYTES, SEGMENT_BYTES);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not map segment " + segmentIndex + " of " + path, ex);
+        }
+    }
+
+    private void open() {
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            boolean created = channel.size() == 0;
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+
+            if (created) {
+                header.putInt(0, MAGIC);
+                header.putInt(4, VERSION);
+                header.putInt(8, RECORD_BYTES);
+                header.putInt(12, FuelDictionary.SIZE);
+                header.putLong(COUNT_OFFSET, 0);
+            } else if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+                    || header.getInt(8) != RECORD_BYTES || header.getInt(12) != FuelDictionary.SIZE) {
+                throw new IllegalStateException("Incompatible interval store file: " + path);
+            }
+
+            recordCount = (int) header.getLong(COUNT_OFFSET);
+
+            for (int record = 0; record < recordCount; record++) {
+                MappedByteBuffer segment = segmentFor(record);
+                index.put(segment.getLong((record % SEGMENT_RECORDS) * RECORD_BYTES), record);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not open interval store " + path, ex);
+        }
+    }
+}
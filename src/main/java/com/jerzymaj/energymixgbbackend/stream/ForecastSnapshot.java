@@ -0,0 +1,59 @@
+package com.jerzymaj.energymixgbbackend.stream;
+
+import com.jerzymaj.energymixgbbackend.DTOs.DailyEnergySummary;
+import com.jerzymaj.energymixgbbackend.DTOs.ForecastUpdate;
+import com.jerzymaj.energymixgbbackend.DTOs.OptimalChargingWindow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Summary and best windows of one forecast version, shared by all subscribers.
+ *
+ * @param days    summary by date, in date order
+ * @param windows best window by window length, null where no window fits
+ * @param stale   true if computed while the forecast cache served stale slots
+ */
+record ForecastSnapshot(long version, Map<String, DailyEnergySummary> days,
+                        Map<Integer, OptimalChargingWindow> windows, boolean stale) {
+
+    boolean covers(int windowLength) {
+        return windows.containsKey(windowLength);
+    }
+
+    ForecastUpdate full(int windowLength) {
+        return new ForecastUpdate(version, List.copyOf(days.values()), List.of(), windows.get(windowLength));
+    }
+
+    /**
+     * @return what changed since {@code previous} for a subscriber of the given window length,
+     * or null if nothing did.
+     */
+    ForecastUpdate deltaFrom(ForecastSnapshot previous, int windowLength) {
+        List<DailyEnergySummary> changed = new ArrayList<>();
+        for (DailyEnergySummary day : days.values()) {
+            if (!day.equals(previous.days.get(day.date()))) {
+                changed.add(day);
+            }
+        }
+
+        List<String> removed = new ArrayList<>();
+        for (String date : previous.days.keySet()) {
+            if (!days.containsKey(date)) {
+                removed.add(date);
+            }
+        }
+
+        OptimalChargingWindow window = windows.get(windowLength);
+        if (Objects.equals(window, previous.windows.get(windowLength))) {
+            window = null;
+        }
+
+        if (changed.isEmpty() && removed.isEmpty() && window == null) {
+            return null;
+        }
+        return new ForecastUpdate(version, changed, removed, window);
+    }
+}
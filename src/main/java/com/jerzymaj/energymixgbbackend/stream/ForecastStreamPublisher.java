@@ -0,0 +1,265 @@
+package com.jerzymaj.energymixgbbackend.stream;
+
+import com.jerzymaj.energymixgbbackend.DTOs.DailyEnergySummary;
+import com.jerzymaj.energymixgbbackend.DTOs.ForecastUpdate;
+import com.jerzymaj.energymixgbbackend.DTOs.OptimalChargingWindow;
+import com.jerzymaj.energymixgbbackend.cache.ForecastCache;
+import com.jerzymaj.energymixgbbackend.exceptions.NoEnergyMixIntervalException;
+import com.jerzymaj.energymixgbbackend.service.EnergyMixService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes forecast changes to Server-Sent Events subscribers, so dashboards do not have to poll.
+ * A background task checks every {@code energy.stream.refresh-interval} whether a new forecast version was
+ * published and recomputes the summary and the best window of every subscribed length once per version.
+ * <p>
+ * Idle subscribers hold no thread, only their emitter. A virtual thread is started for a subscriber only while
+ * it has something to send, so a slow client blocks nobody else. Updates are conflated: a subscriber which falls
+ * behind gets one delta from the last state it received to the newest one, never a backlog.
+ * Heartbeat comments keep proxies from closing idle connections and detect clients which went away.
+ */
+@Component
+public class ForecastStreamPublisher {
+
+    private final Set<ForecastSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("forecast-stream").factory());
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile ForecastSnapshot current;
+
+    private final EnergyMixService energyMixService;
+    private final ForecastCache forecastCache;
+    private final int maxSubscribers;
+    private final Duration connectionTimeout;
+
+    public ForecastStreamPublisher(EnergyMixService energyMixService, ForecastCache forecastCache,
+                                   @Value("${energy.stream.max-subscribers:10000}") int maxSubscribers,
+                                   @Value("${energy.stream.connection-timeout:PT30M}") Duration connectionTimeout,
+                                   @Value("${energy.stream.refresh-interval:PT30S}") Duration refreshInterval,
+                                   @Value("${energy.stream.heartbeat:PT15S}") Duration heartbeat) {
+        this.energyMixService = energyMixService;
+        this.forecastCache = forecastCache;
+        this.maxSubscribers = maxSubscribers;
+        this.connectionTimeout = connectionTimeout;
+
+        scheduler.scheduleWithFixedDelay(this::refresh,
+                refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(this::heartbeat,
+                heartbeat.toMillis(), heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registers an emitter and sends it a {@code snapshot} event with the whole summary and the best window.
+     * Every later {@code update} event carries only what changed.
+     *
+     * @param emitter      emitter of the new connection
+     * @param windowLength duration of charging in hours of the streamed best window
+     * @return false if the maximum number of subscribers is reached, nothing was sent then.
+     * @throws IllegalArgumentException     if the window length is not positive.
+     * @throws NoEnergyMixIntervalException if the API returned no intervals.
+     */
+
+    public boolean subscribe(SseEmitter emitter, int windowLength) {
+        if (windowLength <= 0) {
+            throw new IllegalArgumentException("windowLength must be a positive number of hours");
+        }
+        if (subscribers.size() >= maxSubscribers) {
+            return false;
+        }
+
+        ForecastSnapshot snapshot = snapshotCovering(windowLength);
+        ForecastSubscriber subscriber = new ForecastSubscriber(emitter, windowLength, snapshot);
+
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onError(ex -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+
+        try {
+            emitter.send(SseEmitter.event()
+                    .name("snapshot")
+                    .id(Long.toString(snapshot.version()))
+                    .data(snapshot.full(windowLength)));
+        } catch (IOException ex) {
+            emitter.completeWithError(ex);
+            return true;
+        }
+
+        subscribers.add(subscriber);
+        dispatch(subscriber);
+
+        return true;
+    }
+
+    /**
+     * Recomputes the snapshot if a new forecast version was published, the last one was computed from stale
+     * slots or a new window length was subscribed, and wakes every subscriber whose state is behind.
+     * Failures are swallowed, subscribers keep the last forecast until the next attempt.
+     */
+    public void refresh() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        try {
+            ForecastSnapshot snapshot = current;
+            Set<Integer> windowLengths = subscribedWindowLengths();
+
+            if (snapshot == null || isOutdated(snapshot) || !snapshot.windows().keySet().containsAll(windowLengths)) {
+                snapshot = rebuild(windowLengths);
+            }
+
+            for (ForecastSubscriber subscriber : subscribers) {
+                if (subscriber.lastSent() != snapshot) {
+                    dispatch(subscriber);
+                }
+            }
+        } catch (RuntimeException ex) {
+            // Upstream is failing, subscribers keep the last forecast until the next attempt.
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public Duration getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.shutdownNow();
+        for (ForecastSubscriber subscriber : subscribers) {
+            subscriber.emitter().complete();
+        }
+        subscribers.clear();
+        senders.shutdownNow();
+    }
+
+    private void heartbeat() {
+        for (ForecastSubscriber subscriber : subscribers) {
+            subscriber.requestHeartbeat();
+            dispatch(subscriber);
+        }
+    }
+
+    private ForecastSnapshot snapshotCovering(int windowLength) {
+        ForecastSnapshot snapshot = current;
+
+        if (snapshot != null && !isOutdated(snapshot) && snapshot.covers(windowLength)) {
+            return snapshot;
+        }
+
+        Set<Integer> windowLengths = subscribedWindowLengths();
+        windowLengths.add(windowLength);
+
+        return rebuild(windowLengths);
+    }
+
+    private boolean isOutdated(ForecastSnapshot snapshot) {
+        return snapshot.stale() || snapshot.version() != forecastCache.currentForecastVersion();
+    }
+
+    /**
+     * Computes the summary and the windows from the forecast cache. Synchronized so concurrent
+     * connects right after a new forecast version build it once.
+     */
+    private synchronized ForecastSnapshot rebuild(Set<Integer> windowLengths) {
+        ForecastSnapshot snapshot = current;
+        long version = forecastCache.currentForecastVersion();
+
+        if (snapshot != null && !snapshot.stale() && snapshot.version() == version
+                && snapshot.windows().keySet().containsAll(windowLengths)) {
+            return snapshot;
+        }
+
+        Map<String, DailyEnergySummary> days = new LinkedHashMap<>();
+        for (DailyEnergySummary day : energyMixService.calculateThreeDaysSummary()) {
+            days.put(day.date(), day);
+        }
+
+        Map<Integer, OptimalChargingWindow> windows = new HashMap<>();
+        for (int windowLength : windowLengths) {
+            try {
+                windows.put(windowLength, energyMixService.calculateOptimalChargingWindow(windowLength));
+            } catch (NoEnergyMixIntervalException ex) {
+                windows.put(windowLength, null);
+            }
+        }
+
+        snapshot = new ForecastSnapshot(version, Collections.unmodifiableMap(days),
+                Collections.unmodifiableMap(windows), forecastCache.isServingStale());
+        current = snapshot;
+
+        return snapshot;
+    }
+
+    private Set<Integer> subscribedWindowLengths() {
+        Set<Integer> windowLengths = new TreeSet<>();
+        for (ForecastSubscriber subscriber : subscribers) {
+            windowLengths.add(subscriber.windowLength());
+        }
+        return windowLengths;
+    }
+
+    private void dispatch(ForecastSubscriber subscriber) {
+        if (subscriber.signal()) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    /**
+     * Sends until the subscriber has caught up with the current snapshot. A blocking write only
+     * holds this subscriber's virtual thread.
+     */
+    private void drain(ForecastSubscriber subscriber) {
+        try {
+            do {
+                while (subscriber.takePending()) {
+                    sendPending(subscriber);
+                }
+            } while (subscriber.release());
+        } catch (IOException | IllegalStateException ex) {
+            // The client went away or the emitter completed, the container reports it through onError.
+            subscribers.remove(subscriber);
+        }
+    }
+
+    private void sendPending(ForecastSubscriber subscriber) throws IOException {
+        ForecastSnapshot snapshot = current;
+        boolean heartbeat = subscriber.takeHeartbeat();
+        ForecastUpdate update = snapshot == null || snapshot == subscriber.lastSent()
+                ? null
+                : snapshot.deltaFrom(subscriber.lastSent(), subscriber.windowLength());
+
+        if (update != null) {
+            subscriber.emitter().send(SseEmitter.event()
+                    .name("update")
+                    .id(Long.toString(snapshot.version()))
+                    .data(update));
+        } else if (heartbeat) {
+            subscriber.emitter().send(SseEmitter.event().comment("heartbeat"));
+        }
+
+        if (snapshot != null) {
+            subscriber.sent(snapshot);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.jerzymaj.energymixgbbackend.stream;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One open stream. At most one sender works on it at a time; signals arriving while it sends are
+ * folded into a single further pass, so a slow client never accumulates a backlog.
+ */
+final class ForecastSubscriber {
+
+    private final SseEmitter emitter;
+    private final int windowLength;
+    private final AtomicBoolean sending = new AtomicBoolean();
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final AtomicBoolean heartbeatDue = new AtomicBoolean();
+    private volatile ForecastSnapshot lastSent;
+
+    ForecastSubscriber(SseEmitter emitter, int windowLength, ForecastSnapshot lastSent) {
+        this.emitter = emitter;
+        this.windowLength = windowLength;
+        this.lastSent = lastSent;
+    }
+
+    SseEmitter emitter() {
+        return emitter;
+    }
+
+    int windowLength() {
+        return windowLength;
+    }
+
+    ForecastSnapshot lastSent() {
+        return lastSent;
+    }
+
+    void sent(ForecastSnapshot snapshot) {
+        lastSent = snapshot;
+    }
+
+    void requestHeartbeat() {
+        heartbeatDue.set(true);
+    }
+
+    boolean takeHeartbeat() {
+        return heartbeatDue.getAndSet(false);
+    }
+
+    /**
+     * @return true if the caller became the sender and has to start a pass.
+     */
+    boolean signal() {
+        pending.set(true);
+        return sending.compareAndSet(false, true);
+    }
+
+    /**
+     * @return true if there is something to send, clearing the signal.
+     */
+    boolean takePending() {
+        return pending.getAndSet(false);
+    }
+
+    /**
+     * @return true if a signal arrived after the last pass and the caller is still the sender.
+     */
+    boolean release() {
+        sending.set(false);
+        return pending.get() && sending.compareAndSet(false, true);
+    }
+}
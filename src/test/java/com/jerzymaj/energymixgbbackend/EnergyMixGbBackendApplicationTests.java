@@ -3,7 +3,7 @@ package com.jerzymaj.energymixgbbackend;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "energy.prefetch.enabled=false")
 class EnergyMixGbBackendApplicationTests {
 
     @Test
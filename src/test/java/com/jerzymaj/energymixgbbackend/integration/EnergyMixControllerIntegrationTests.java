@@ -1,26 +1,72 @@
 package com.jerzymaj.energymixgbbackend.integration;
 
+import com.jerzymaj.energymixgbbackend.DTOs.ChargingWindowCurvePoint;
 import com.jerzymaj.energymixgbbackend.DTOs.DailyEnergySummary;
+import com.jerzymaj.energymixgbbackend.DTOs.EnergyDistribution;
+import com.jerzymaj.energymixgbbackend.DTOs.EnergyMixInterval;
+import com.jerzymaj.energymixgbbackend.DTOs.Fuel;
 import com.jerzymaj.energymixgbbackend.DTOs.OptimalChargingWindow;
+import com.jerzymaj.energymixgbbackend.DTOs.RegionalEnergySummary;
+import com.jerzymaj.energymixgbbackend.cache.ForecastCache;
+import com.jerzymaj.energymixgbbackend.cache.ResponseCache;
+import com.jerzymaj.energymixgbbackend.columnar.FuelWeights;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+import com.jerzymaj.energymixgbbackend.configuration.ClockConfig;
 import com.jerzymaj.energymixgbbackend.controller.EnergyMixController;
+import com.jerzymaj.energymixgbbackend.metrics.EnergyMetrics;
+import com.jerzymaj.energymixgbbackend.service.EnergyAnalyticsService;
 import com.jerzymaj.energymixgbbackend.service.EnergyMixService;
+import com.jerzymaj.energymixgbbackend.service.FleetSchedulingService;
+import com.jerzymaj.energymixgbbackend.service.HistoricalSummaryService;
+import com.jerzymaj.energymixgbbackend.service.RegionalEnergyService;
+import com.jerzymaj.energymixgbbackend.stream.ForecastStreamPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.http.MediaType.APPLICATION_CBOR;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(EnergyMixController.class)
+@Import({ResponseCache.class, ForecastCache.class, ClockConfig.class, EnergyMetrics.class, SimpleMeterRegistry.class,
+        FleetSchedulingService.class})
 public class EnergyMixControllerIntegrationTests {
 
     @Autowired
@@ -29,6 +75,26 @@ public class EnergyMixControllerIntegrationTests {
     @MockitoBean
     private EnergyMixService energyMixService;
 
+    @MockitoBean
+    private HistoricalSummaryService historicalSummaryService;
+
+    @MockitoBean
+    private EnergyAnalyticsService energyAnalyticsService;
+
+    @MockitoBean
+    private ForecastStreamPublisher forecastStreamPublisher;
+
+    @MockitoBean
+    private RegionalEnergyService regionalEnergyService;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    @BeforeEach
+    public void setUp() {
+        responseCache.clear();
+    }
+
     @Test
     public void calculateThreeDaysSummary() throws Exception {
 
@@ -65,4 +131,338 @@ public class EnergyMixControllerIntegrationTests {
                 .andExpect(jsonPath("$.endingDateTime").value("2025-12-14T14:00:00Z"))
                 .andExpect(jsonPath("$.averageCleanEnergyPercent").value(85.5));
     }
+
+    @Test
+    public void calculateThreeDaysSummary_ShouldScoreRequestedFuelWeights() throws Exception {
+
+        FuelWeights weights = FuelWeights.parse(List.of("wind:1", "nuclear:0.5"));
+
+        when(energyMixService.calculateThreeDaysSummary(weights)).thenReturn(List.of(
+                new DailyEnergySummary("2025-12-14", 62.5, Map.of("wind", 50.0, "nuclear", 25.0))));
+
+        mockMvc.perform(get("/energy-mix/three-days-summary")
+                        .param("weights", "wind:1", "nuclear:0.5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].cleanEnergyPercent").value(62.5));
+
+        mockMvc.perform(get("/energy-mix/three-days-summary")
+                        .param("weights", "wind:1", "nuclear:0.5"))
+                .andExpect(status().isOk());
+
+        verify(energyMixService, times(2)).calculateThreeDaysSummary(weights);
+    }
+
+    @Test
+    public void calculateOptimalChargingWindow_ShouldReturnBadRequestForUnknownCleanType() throws Exception {
+
+        mockMvc.perform(get("/energy-mix/optimal-charging-window")
+                        .param("windowLength", "2")
+                        .param("cleanTypes", "wind", "peat"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void calculateRegionalThreeDaysSummary_ShouldFlagAndNotCacheStaleRegions() throws Exception {
+
+        when(regionalEnergyService.calculateRegionalThreeDaysSummary()).thenReturn(List.of(
+                new RegionalEnergySummary(4, "Yorkshire", "NPG Yorkshire",
+                        List.of(new DailyEnergySummary("2025-12-14", 40.0, Map.of("wind", 40.0))))));
+        when(regionalEnergyService.isServingStale()).thenReturn(true);
+
+        for (int request = 0; request < 2; request++) {
+            mockMvc.perform(get("/energy-mix/regional/three-days-summary"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(EnergyMixController.STALE_HEADER, "true"))
+                    .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("max-age=0")))
+                    .andExpect(jsonPath("$[0].regionId").value(4));
+        }
+
+        verify(regionalEnergyService, times(2)).calculateRegionalThreeDaysSummary();
+    }
+
+    @Test
+    public void calculateThreeDaysSummaryAsync_ShouldRenderOnRequestExecutor() throws Exception {
+
+        when(energyMixService.calculateThreeDaysSummary()).thenReturn(List.of(
+                new DailyEnergySummary("2025-12-14", 50.0, Map.of("wind", 50.0))));
+
+        MvcResult result = mockMvc.perform(get("/energy-mix/three-days-summary/async"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$[0].date").value("2025-12-14"));
+
+        // Rendered for the current forecast, the next request completes without a thread switch.
+        mockMvc.perform(get("/energy-mix/three-days-summary/async"))
+                .andExpect(request().asyncStarted());
+        verify(energyMixService, times(1)).calculateThreeDaysSummary();
+    }
+
+    @Test
+    public void calculateOptimalChargingWindowAsync_ShouldAnswerInvalidLengthWithBadRequest() throws Exception {
+
+        when(energyMixService.calculateOptimalChargingWindow(anyInt()))
+                .thenThrow(new IllegalArgumentException("windowLength must be a positive number of hours"));
+
+        MvcResult result = mockMvc.perform(get("/energy-mix/optimal-charging-window/async")
+                        .param("windowLength", "0"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void calculateThreeDaysSummary_ShouldNegotiateBinaryFormats() throws Exception {
+
+        List<DailyEnergySummary> summaries = List.of(
+                new DailyEnergySummary("2025-12-14", 50.0, Map.of("wind", 50.0, "gas", 50.0)),
+                new DailyEnergySummary("2025-12-15", 40.0, Map.of("wind", 40.0, "gas", 60.0)));
+
+        when(energyMixService.calculateThreeDaysSummary()).thenReturn(summaries);
+
+        MvcResult cbor = mockMvc.perform(get("/energy-mix/three-days-summary")
+                        .header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(APPLICATION_CBOR))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem("Accept, Accept-Encoding")))
+                .andReturn();
+
+        DailyEnergySummary[] decoded = CBORMapper.builder().build()
+                .readValue(cbor.getResponse().getContentAsByteArray(), DailyEnergySummary[].class);
+        assertEquals(summaries, List.of(decoded));
+
+        MvcResult json = mockMvc.perform(get("/energy-mix/three-days-summary"))
+                .andExpect(content().contentType(APPLICATION_JSON))
+                .andReturn();
+
+        mockMvc.perform(get("/energy-mix/three-days-summary")
+                        .header(HttpHeaders.ACCEPT, "application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andExpect(header().string(HttpHeaders.ETAG,
+                        not(json.getResponse().getHeader(HttpHeaders.ETAG))));
+    }
+
+    @Test
+    public void calculateThreeDaysSummary_ShouldAnswerIfNoneMatchWithNotModified() throws Exception {
+
+        when(energyMixService.calculateThreeDaysSummary()).thenReturn(List.of(
+                new DailyEnergySummary("2025-12-14", 50.0, Map.of("wind", 50.0, "coal", 50.0))));
+
+        MvcResult first = mockMvc.perform(get("/energy-mix/three-days-summary"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("max-age=")))
+                .andReturn();
+
+        String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/energy-mix/three-days-summary")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag));
+
+        verify(energyMixService, times(1)).calculateThreeDaysSummary();
+    }
+
+    @Test
+    public void calculateOptimalChargingWindow_ShouldServeGzipVariantPerWindowLength() throws Exception {
+
+        when(energyMixService.calculateOptimalChargingWindow(anyInt()))
+                .thenReturn(new OptimalChargingWindow("2025-12-14T12:00Z", "2025-12-14T14:00Z", 85.5));
+
+        mockMvc.perform(get("/energy-mix/optimal-charging-window")
+                        .param("windowLength", "2")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, endsWith("-gzip\"")));
+
+        mockMvc.perform(get("/energy-mix/optimal-charging-window")
+                        .param("windowLength", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.averageCleanEnergyPercent").value(85.5));
+
+        mockMvc.perform(get("/energy-mix/optimal-charging-window")
+                        .param("windowLength", "3"))
+                .andExpect(status().isOk());
+
+        verify(energyMixService, times(1)).calculateOptimalChargingWindow(2);
+        verify(energyMixService, times(1)).calculateOptimalChargingWindow(3);
+    }
+
+    @Test
+    public void calculateOptimalChargingWindows() throws Exception {
+
+        List<ChargingWindowCurvePoint> curve = List.of(
+                new ChargingWindowCurvePoint(1, "2025-12-14T12:00:00Z", "2025-12-14T13:00:00Z", 90.0),
+                new ChargingWindowCurvePoint(2, "2025-12-14T12:00:00Z", "2025-12-14T14:00:00Z", 85.5)
+        );
+
+        when(energyMixService.calculateOptimalChargingWindows(eq(1), eq(2))).thenReturn(curve);
+
+        mockMvc.perform(get("/energy-mix/optimal-charging-windows")
+                        .param("minWindowLength", "1")
+                        .param("maxWindowLength", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(2))
+                .andExpect(jsonPath("$[1].windowLength").value(2))
+                .andExpect(jsonPath("$[1].averageCleanEnergyPercent").value(85.5));
+    }
+
+    @Test
+    public void calculateOptimalChargingWindow_ShouldReturnBadRequestForInvalidLength() throws Exception {
+
+        when(energyMixService.calculateOptimalChargingWindow(anyInt()))
+                .thenThrow(new IllegalArgumentException("windowLength must be a positive number of hours"));
+
+        mockMvc.perform(get("/energy-mix/optimal-charging-window")
+                        .param("windowLength", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void scheduleFleetCharging_ShouldStreamOneLinePerRequest() throws Exception {
+
+        IntervalColumns forecast = IntervalColumns.fromIntervals(List.of(
+                new EnergyMixInterval("2025-12-14T12:00Z", "2025-12-14T12:30Z", List.of(new Fuel("wind", 40.0))),
+                new EnergyMixInterval("2025-12-14T12:30Z", "2025-12-14T13:00Z", List.of(new Fuel("wind", 80.0)))));
+
+        when(energyMixService.getEnergyColumns(any(Instant.class), any(Instant.class))).thenReturn(forecast);
+
+        MvcResult result = mockMvc.perform(post("/energy-mix/fleet-charging-schedule")
+                        .contentType(APPLICATION_JSON)
+                        .content("""
+                                [{"vehicleId": "van-1", "windowLength": 1,
+                                  "earliestStart": "2025-12-14T12:00:00Z", "finishBy": "2025-12-14T13:00:00Z"},
+                                 {"vehicleId": "van-2", "windowLength": 2,
+                                  "earliestStart": "2025-12-14T12:00:00Z", "finishBy": "2025-12-14T13:00:00Z"}]
+                                """))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.trim().split("\n");
+
+        assertEquals(2, lines.length);
+        assertTrue(body.contains("\"vehicleId\":\"van-1\",\"startingDateTime\":\"2025-12-14T12:00Z\""));
+        assertTrue(body.contains("\"averageCleanEnergyPercent\":60.0"));
+        assertTrue(body.contains("\"error\":\"No charging window fits between given constraints\""));
+    }
+
+    @Test
+    public void scheduleFleetCharging_ShouldRejectEmptyBatch() throws Exception {
+
+        mockMvc.perform(post("/energy-mix/fleet-charging-schedule")
+                        .contentType(APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void scheduleFleetCharging_ShouldRejectNullRequest() throws Exception {
+
+        mockMvc.perform(post("/energy-mix/fleet-charging-schedule")
+                        .contentType(APPLICATION_JSON)
+                        .content("[{\"vehicleId\": \"van-1\", \"windowLength\": 1}, null]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void streamForecast_ShouldAnswerServiceUnavailableWhenFull() throws Exception {
+
+        when(forecastStreamPublisher.getConnectionTimeout()).thenReturn(Duration.ofMinutes(30));
+        when(forecastStreamPublisher.subscribe(any(SseEmitter.class), eq(2))).thenReturn(false);
+
+        mockMvc.perform(get("/energy-mix/forecast-stream")
+                        .param("windowLength", "2"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "30"));
+    }
+
+    @Test
+    public void calculateRangeSummary() throws Exception {
+
+        List<DailyEnergySummary> summaries = List.of(
+                new DailyEnergySummary("2025-06-01", 60.0, Map.of("wind", 60.0, "gas", 40.0)),
+                new DailyEnergySummary("2025-06-02", 40.0, Map.of("wind", 40.0, "gas", 60.0))
+        );
+
+        when(historicalSummaryService.calculateRangeSummary(LocalDate.parse("2025-06-01"), LocalDate.parse("2025-06-02")))
+                .thenReturn(summaries);
+
+        mockMvc.perform(get("/energy-mix/range-summary")
+                        .param("from", "2025-06-01")
+                        .param("to", "2025-06-02"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(2))
+                .andExpect(jsonPath("$[1].date").value("2025-06-02"))
+                .andExpect(jsonPath("$[1].fuelSpec.wind").value(40.0));
+    }
+
+    @Test
+    public void calculateRangeSummary_ShouldNegotiateSmile() throws Exception {
+
+        List<DailyEnergySummary> summaries = List.of(
+                new DailyEnergySummary("2025-06-01", 60.0, Map.of("wind", 60.0, "gas", 40.0)));
+
+        when(historicalSummaryService.calculateRangeSummary(LocalDate.parse("2025-06-01"), LocalDate.parse("2025-06-01")))
+                .thenReturn(summaries);
+
+        MvcResult result = mockMvc.perform(get("/energy-mix/range-summary")
+                        .param("from", "2025-06-01")
+                        .param("to", "2025-06-01")
+                        .header(HttpHeaders.ACCEPT, "application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn();
+
+        DailyEnergySummary[] decoded = SmileMapper.builder().build()
+                .readValue(result.getResponse().getContentAsByteArray(), DailyEnergySummary[].class);
+        assertEquals(summaries, List.of(decoded));
+    }
+
+    @Test
+    public void retrieveAnalytics_ShouldReturnDistributionPerGroup() throws Exception {
+
+        EnergyDistribution monday = new EnergyDistribution("MONDAY", 480, 12.5, 88.0, 51.2,
+                Map.of("p50", 50.5, "p95", 80.0), List.of(0L, 10L, 40L, 80L, 100L, 100L, 80L, 40L, 20L, 10L));
+
+        when(energyAnalyticsService.calculateDistribution(
+                LocalDate.parse("2025-01-01"), LocalDate.parse("2025-03-31"), "weekday", "wind"))
+                .thenReturn(List.of(monday));
+
+        mockMvc.perform(get("/energy-mix/analytics")
+                        .param("from", "2025-01-01")
+                        .param("to", "2025-03-31")
+                        .param("groupBy", "weekday")
+                        .param("metric", "wind"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].group").value("MONDAY"))
+                .andExpect(jsonPath("$[0].intervals").value(480))
+                .andExpect(jsonPath("$[0].percentiles.p50").value(50.5))
+                .andExpect(jsonPath("$[0].bandCounts.size()").value(10));
+    }
+
+    @Test
+    public void retrieveAnalytics_ShouldReturnBadRequestForUnknownMetric() throws Exception {
+
+        when(energyAnalyticsService.calculateDistribution(any(), any(), eq("hour"), eq("peat")))
+                .thenThrow(new IllegalArgumentException("metric must be clean or a fuel"));
+
+        mockMvc.perform(get("/energy-mix/analytics")
+                        .param("from", "2025-01-01")
+                        .param("to", "2025-01-31")
+                        .param("metric", "peat"))
+                .andExpect(status().isBadRequest());
+    }
 }
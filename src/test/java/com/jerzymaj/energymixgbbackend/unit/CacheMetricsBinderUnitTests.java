@@ -0,0 +1,71 @@
+package com.jerzymaj.energymixgbbackend.unit;
+
+import com.jerzymaj.energymixgbbackend.analytics.IntervalAnalytics;
+import com.jerzymaj.energymixgbbackend.cache.ForecastCache;
+import com.jerzymaj.energymixgbbackend.cache.ResponseCache;
+import com.jerzymaj.energymixgbbackend.client.CarbonIntensityClient;
+import com.jerzymaj.energymixgbbackend.client.DnoRegion;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+import com.jerzymaj.energymixgbbackend.metrics.CacheMetricsBinder;
+import com.jerzymaj.energymixgbbackend.service.EnergyMixService;
+import com.jerzymaj.energymixgbbackend.service.RegionalEnergyService;
+import com.jerzymaj.energymixgbbackend.store.GenerationRepository;
+import com.jerzymaj.energymixgbbackend.store.IntervalFileStore;
+import com.jerzymaj.energymixgbbackend.stream.ForecastStreamPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(MockitoExtension.class)
+public class CacheMetricsBinderUnitTests {
+
+    @Mock
+    private ResponseCache responseCache;
+    @Mock
+    private GenerationRepository generationRepository;
+    @Mock
+    private IntervalFileStore intervalFileStore;
+    @Mock
+    private EnergyMixService energyMixService;
+    @Mock
+    private ForecastStreamPublisher forecastStreamPublisher;
+    @Mock
+    private IntervalAnalytics intervalAnalytics;
+    @Mock
+    private CarbonIntensityClient carbonIntensityClient;
+
+    @Test
+    public void bindTo_ShouldTagForecastCacheMetersByRegion() {
+
+        Clock clock = Clock.fixed(Instant.parse("2025-12-14T10:05:00Z"), ZoneOffset.UTC);
+        ForecastCache forecastCache = new ForecastCache(clock, 100, Duration.ofHours(24), Duration.ofMinutes(2),
+                Duration.ofHours(6), Duration.ofHours(1));
+        RegionalEnergyService regionalEnergyService =
+                new RegionalEnergyService(carbonIntensityClient, energyMixService, forecastCache, clock);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        new CacheMetricsBinder(forecastCache, responseCache, generationRepository, intervalFileStore,
+                energyMixService, forecastStreamPublisher, intervalAnalytics, regionalEnergyService).bindTo(registry);
+
+        regionalEnergyService.getRegionCaches().get(DnoRegion.LONDON).getIntervals(
+                Instant.parse("2025-12-14T12:00:00Z"), Instant.parse("2025-12-14T13:00:00Z"),
+                (from, to) -> IntervalColumns.EMPTY);
+
+        assertEquals(DnoRegion.values().length + 1, registry.get("energy.cache.size").gauges().size());
+        assertEquals(2.0, registry.get("energy.cache.slots")
+                .tags("region", "London", "result", "miss").functionCounter().count());
+        assertEquals(0.0, registry.get("energy.cache.slots")
+                .tags("region", "national", "result", "miss").functionCounter().count());
+        assertEquals(0.0, registry.get("energy.cache.slots")
+                .tags("region", "London", "result", "stale").functionCounter().count());
+    }
+}
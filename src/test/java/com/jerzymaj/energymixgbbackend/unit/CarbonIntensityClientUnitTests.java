@@ -0,0 +1,179 @@
+package com.jerzymaj.energymixgbbackend.unit;
+
+import com.jerzymaj.energymixgbbackend.client.CarbonIntensityClient;
+import com.jerzymaj.energymixgbbackend.columnar.FuelDictionary;
+import com.jerzymaj.energymixgbbackend.columnar.GenerationStreamDecoder;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+import com.jerzymaj.energymixgbbackend.metrics.EnergyMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+public class CarbonIntensityClientUnitTests {
+
+    private static final String GENERATION_URL = "https://upstream/generation/2025-12-14T12%3A00Z/2025-12-14T13%3A00Z";
+
+    private static final String PAYLOAD = """
+            {"data": [
+              {"from": "2025-12-14T12:00Z", "to": "2025-12-14T12:30Z",
+               "generationmix": [{"fuel": "wind", "perc": 60.0}, {"fuel": "gas", "perc": 40.0}]},
+              {"from": "2025-12-14T12:30Z", "to": "2025-12-14T13:00Z",
+               "generationmix": [{"fuel": "wind", "perc": 55.0}, {"fuel": "gas", "perc": 45.0}]}
+            ]}
+            """;
+
+    private MockRestServiceServer server;
+    private RestClient restClient;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        RestClient.Builder builder = RestClient.builder().baseUrl("https://upstream");
+        server = MockRestServiceServer.bindTo(builder).build();
+        restClient = builder.build();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void fetchGeneration_ShouldDecodeStreamingAndBindingAlike() {
+
+        server.expect(requestTo(GENERATION_URL)).andRespond(withSuccess(PAYLOAD, APPLICATION_JSON));
+        server.expect(requestTo(GENERATION_URL)).andRespond(withSuccess(PAYLOAD, APPLICATION_JSON));
+
+        IntervalColumns streamed = fetch(true);
+        IntervalColumns bound = fetch(false);
+
+        assertEquals(2, streamed.size());
+        assertEquals(bound.size(), streamed.size());
+        assertEquals(55.0, streamed.percent(FuelDictionary.indexOf("wind"), 1));
+        assertEquals(bound.percent(FuelDictionary.indexOf("gas"), 1), streamed.percent(FuelDictionary.indexOf("gas"), 1));
+        server.verify();
+    }
+
+    @Test
+    public void fetchGeneration_ShouldThrowOnUpstreamError() {
+
+        server.expect(requestTo(GENERATION_URL)).andRespond(withServerError());
+
+        assertThrows(RestClientResponseException.class, () -> fetch(true));
+    }
+
+    @Test
+    public void fetchGeneration_ShouldRecordUpstreamLatencyByStatusAndRange() {
+
+        server.expect(requestTo(GENERATION_URL)).andRespond(withSuccess(PAYLOAD, APPLICATION_JSON));
+        server.expect(requestTo(GENERATION_URL)).andRespond(withServerError());
+
+        fetch(true);
+        assertThrows(RestClientResponseException.class, () -> fetch(true));
+
+        assertEquals(1, meterRegistry.get("energy.upstream").tags("feed", "national", "status", "200", "range", "1d").timer().count());
+        assertEquals(1, meterRegistry.get("energy.upstream").tags("feed", "national", "status", "500", "range", "1d").timer().count());
+        assertEquals(1, meterRegistry.get("energy.decode").timer().count());
+        assertEquals(2.0, meterRegistry.get("energy.upstream.intervals").summary().totalAmount());
+    }
+
+    @Test
+    public void fetchGeneration_ShouldUseHedgedRequestWhenFirstOneIsSlow() {
+
+        AtomicInteger requests = new AtomicInteger();
+        AtomicReference<Thread> primaryThread = new AtomicReference<>();
+        AtomicBoolean primaryCancelled = new AtomicBoolean();
+        RestClient slowFirstRequest = slowFirstRequest(requests, primaryThread, primaryCancelled);
+
+        CarbonIntensityClient client = new CarbonIntensityClient(slowFirstRequest, new GenerationStreamDecoder(), true,
+                Duration.ofMillis(50), 1, new EnergyMetrics(meterRegistry));
+
+        long started = System.nanoTime();
+        IntervalColumns result = client.fetchGeneration(Instant.parse("2025-12-14T12:00:00Z"), Instant.parse("2025-12-14T13:00:00Z"));
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+        assertEquals(2, result.size());
+        assertEquals(2, requests.get());
+        assertTrue(elapsed.compareTo(Duration.ofSeconds(1)) < 0);
+        assertEquals(1.0, meterRegistry.get("energy.upstream.hedged").counter().count());
+        assertSame(Thread.currentThread(), primaryThread.get());
+        assertTrue(primaryCancelled.get());
+        assertFalse(Thread.currentThread().isInterrupted());
+
+        client.close();
+    }
+
+    @Test
+    public void fetchGeneration_ShouldNotHedgeWithoutPermits() {
+
+        AtomicInteger requests = new AtomicInteger();
+        RestClient slowFirstRequest = slowFirstRequest(requests, new AtomicReference<>(), new AtomicBoolean());
+
+        CarbonIntensityClient client = new CarbonIntensityClient(slowFirstRequest, new GenerationStreamDecoder(), true,
+                Duration.ofMillis(50), 0, new EnergyMetrics(meterRegistry));
+
+        IntervalColumns result = client.fetchGeneration(Instant.parse("2025-12-14T12:00:00Z"), Instant.parse("2025-12-14T13:00:00Z"));
+
+        assertEquals(2, result.size());
+        assertEquals(1, requests.get());
+        assertEquals(0.0, meterRegistry.get("energy.upstream.hedged").counter().count());
+
+        client.close();
+    }
+
+    /**
+     * Answers every request with {@link #PAYLOAD}, the first one after 500 ms unless it is interrupted.
+     */
+    private static RestClient slowFirstRequest(AtomicInteger requests, AtomicReference<Thread> primaryThread,
+                                               AtomicBoolean primaryCancelled) {
+        return RestClient.builder()
+                .baseUrl("https://upstream")
+                .requestFactory((uri, method) -> new MockClientHttpRequest(method, uri) {
+                    @Override
+                    protected ClientHttpResponse executeInternal() throws IOException {
+                        if (requests.incrementAndGet() == 1) {
+                            primaryThread.set(Thread.currentThread());
+                            try {
+                                Thread.sleep(500);
+                            } catch (InterruptedException ex) {
+                                primaryCancelled.set(true);
+                                throw new InterruptedIOException("Request cancelled");
+                            }
+                        }
+
+                        MockClientHttpResponse response = new MockClientHttpResponse(PAYLOAD.getBytes(), HttpStatus.OK);
+                        response.getHeaders().setContentType(APPLICATION_JSON);
+                        return response;
+                    }
+                })
+                .build();
+    }
+
+    private IntervalColumns fetch(boolean streamingDecode) {
+        CarbonIntensityClient client = new CarbonIntensityClient(restClient, new GenerationStreamDecoder(), streamingDecode,
+                Duration.ZERO, 0, new EnergyMetrics(meterRegistry));
+
+        return client.fetchGeneration(Instant.parse("2025-12-14T12:00:00Z"), Instant.parse("2025-12-14T13:00:00Z"));
+    }
+}
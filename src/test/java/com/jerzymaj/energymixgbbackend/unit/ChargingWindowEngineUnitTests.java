@@ -0,0 +1,124 @@
+package com.jerzymaj.energymixgbbackend.unit;
+
+import com.jerzymaj.energymixgbbackend.service.ChargingWindowEngine;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChargingWindowEngineUnitTests {
+
+    @Test
+    public void findBestStart_ShouldMatchBruteForce() {
+
+        double[] cleanEnergyPercents = new Random(7).doubles(200, 0, 100).toArray();
+        ChargingWindowEngine engine = new ChargingWindowEngine(cleanEnergyPercents);
+
+        for (int windowSize = 1; windowSize <= 48; windowSize++) {
+            int expectedStart = bruteForceBestStart(cleanEnergyPercents, windowSize);
+            int actualStart = engine.findBestStart(windowSize);
+
+            assertEquals(expectedStart, actualStart);
+        }
+    }
+
+    @Test
+    public void findBestStart_ShouldPreferEarliestWindowOnTie() {
+
+        ChargingWindowEngine engine = new ChargingWindowEngine(new double[]{10, 50, 10, 50, 10});
+
+        assertEquals(1, engine.findBestStart(1));
+        assertEquals(30.0, engine.average(0, 2));
+    }
+
+    @Test
+    public void findBestStarts_ShouldReturnMinusOneWhenWindowDoesNotFit() {
+
+        ChargingWindowEngine engine = new ChargingWindowEngine(new double[]{10, 20, 30});
+
+        assertArrayEquals(new int[]{2, 1, 0, -1}, engine.findBestStarts(1, 4));
+    }
+
+    @Test
+    public void findTopStarts_ShouldReturnBestWindowsInOrder() {
+
+        ChargingWindowEngine engine = new ChargingWindowEngine(new double[]{10, 90, 20, 80, 30, 70});
+
+        assertArrayEquals(new int[]{1, 3, 5}, engine.findTopStarts(1, 3, 0, 5, false));
+        assertArrayEquals(new int[]{1, 3, 0}, engine.findTopStarts(2, 3, 0, 4, false));
+    }
+
+    @Test
+    public void findTopStarts_ShouldSkipOverlappingWindows() {
+
+        ChargingWindowEngine engine = new ChargingWindowEngine(new double[]{10, 90, 95, 80, 30, 70, 75, 10});
+
+        assertArrayEquals(new int[]{1, 5}, engine.findTopStarts(2, 2, 0, 6, true));
+        assertArrayEquals(new int[]{1, 5, 3}, engine.findTopStarts(2, 5, 0, 6, true));
+    }
+
+    @Test
+    public void findTopStarts_ShouldRespectStartRange() {
+
+        ChargingWindowEngine engine = new ChargingWindowEngine(new double[]{90, 10, 20, 30, 95});
+
+        assertArrayEquals(new int[]{3, 2}, engine.findTopStarts(1, 2, 1, 3, false));
+        assertArrayEquals(new int[0], engine.findTopStarts(3, 2, 3, 4, false));
+    }
+
+    @Test
+    public void findTopStarts_ShouldMatchBruteForce() {
+
+        double[] cleanEnergyPercents = new Random(11).doubles(150, 0, 100).toArray();
+        ChargingWindowEngine engine = new ChargingWindowEngine(cleanEnergyPercents);
+
+        for (int windowSize = 1; windowSize <= 12; windowSize++) {
+            int[] topStarts = engine.findTopStarts(windowSize, 5, 0, cleanEnergyPercents.length, false);
+
+            assertEquals(5, topStarts.length);
+            assertEquals(bruteForceBestStart(cleanEnergyPercents, windowSize), topStarts[0]);
+            for (int i = 1; i < topStarts.length; i++) {
+                assertTrue(engine.average(topStarts[i - 1], windowSize) >= engine.average(topStarts[i], windowSize));
+            }
+        }
+    }
+
+    @Test
+    public void indexWindows_ShouldMatchBruteForceForEveryRange() {
+
+        double[] cleanEnergyPercents = new Random(13).doubles(60, 0, 100).toArray();
+        ChargingWindowEngine engine = new ChargingWindowEngine(cleanEnergyPercents);
+
+        for (int windowSize = 1; windowSize <= 8; windowSize++) {
+            ChargingWindowEngine.WindowIndex index = engine.indexWindows(windowSize);
+
+            for (int firstStart = 0; firstStart < cleanEnergyPercents.length; firstStart++) {
+                for (int lastStart = firstStart; lastStart < cleanEnergyPercents.length; lastStart++) {
+                    int[] expected = engine.findTopStarts(windowSize, 1, firstStart, lastStart, false);
+
+                    assertEquals(expected.length == 0 ? -1 : expected[0], index.bestStart(firstStart, lastStart));
+                }
+            }
+        }
+    }
+
+    private int bruteForceBestStart(double[] values, int windowSize) {
+        int bestStart = -1;
+        double bestAverage = Double.NEGATIVE_INFINITY;
+
+        for (int start = 0; start + windowSize <= values.length; start++) {
+            double sum = 0;
+            for (int i = start; i < start + windowSize; i++) {
+                sum += values[i];
+            }
+            if (sum / windowSize > bestAverage + 1e-9) {
+                bestAverage = sum / windowSize;
+                bestStart = start;
+            }
+        }
+        return bestStart;
+    }
+}
@@ -0,0 +1,63 @@
+package com.jerzymaj.energymixgbbackend.unit;
+
+import com.jerzymaj.energymixgbbackend.DTOs.EnergyResponse;
+import com.jerzymaj.energymixgbbackend.configuration.DtoRuntimeHints;
+import com.jerzymaj.energymixgbbackend.exceptions.ErrorDetails;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DtoRuntimeHintsUnitTests {
+
+    @Test
+    public void registerHints_ShouldCoverEveryDtoRecord() throws Exception {
+
+        RuntimeHints hints = new RuntimeHints();
+        new DtoRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        List<Class<?>> records = new ArrayList<>(dtoRecords());
+        records.add(ErrorDetails.class);
+
+        assertFalse(records.isEmpty());
+
+        for (Class<?> record : records) {
+            Class<?>[] parameterTypes = Arrays.stream(record.getRecordComponents())
+                    .map(RecordComponent::getType)
+                    .toArray(Class<?>[]::new);
+
+            assertTrue(RuntimeHintsPredicates.reflection()
+                    .onConstructorInvocation(record.getDeclaredConstructor(parameterTypes)).test(hints), record.getName());
+
+            for (RecordComponent component : record.getRecordComponents()) {
+                assertTrue(RuntimeHintsPredicates.reflection()
+                        .onMethodInvocation(component.getAccessor()).test(hints), component.toString());
+            }
+        }
+    }
+
+    private static List<Class<?>> dtoRecords() throws ClassNotFoundException {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter((reader, factory) -> true);
+
+        List<Class<?>> records = new ArrayList<>();
+        for (BeanDefinition candidate : scanner.findCandidateComponents(EnergyResponse.class.getPackageName())) {
+            Class<?> type = ClassUtils.forName(candidate.getBeanClassName(), DtoRuntimeHintsUnitTests.class.getClassLoader());
+
+            if (type.isRecord()) {
+                records.add(type);
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,121 @@
+package com.jerzymaj.energymixgbbackend.unit;
+
+import com.jerzymaj.energymixgbbackend.DTOs.EnergyDistribution;
+import com.jerzymaj.energymixgbbackend.DTOs.EnergyMixInterval;
+import com.jerzymaj.energymixgbbackend.DTOs.Fuel;
+import com.jerzymaj.energymixgbbackend.analytics.IntervalAnalytics;
+import com.jerzymaj.energymixgbbackend.cache.HalfHourSlots;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+import com.jerzymaj.energymixgbbackend.exceptions.NoEnergyMixIntervalException;
+import com.jerzymaj.energymixgbbackend.service.EnergyAnalyticsService;
+import com.jerzymaj.energymixgbbackend.store.GenerationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class EnergyAnalyticsServiceUnitTests {
+
+    @Mock
+    private GenerationRepository generationRepository;
+
+    private IntervalAnalytics intervalAnalytics;
+    private EnergyAnalyticsService energyAnalyticsService;
+
+    @BeforeEach
+    public void setUp() {
+        intervalAnalytics = new IntervalAnalytics(List.of("wind"), 24);
+        energyAnalyticsService = new EnergyAnalyticsService(generationRepository, intervalAnalytics,
+                Clock.fixed(Instant.parse("2025-07-01T12:00:00Z"), ZoneOffset.UTC), Duration.ofHours(2), 7, 2, 366);
+    }
+
+    /**
+     * Stands in for the repository, which records every interval it returns into the analytics;
+     * the wind share equals the day of month in Europe/London time.
+     */
+    private IntervalColumns upstream(Instant from, Instant to) {
+        List<EnergyMixInterval> intervals = new ArrayList<>();
+
+        for (Instant slot = from; slot.isBefore(to); slot = slot.plusSeconds(HalfHourSlots.SLOT_SECONDS)) {
+            double wind = LocalDate.ofInstant(slot, ZoneId.of("Europe/London")).getDayOfMonth();
+
+            intervals.add(new EnergyMixInterval(HalfHourSlots.format(slot),
+                    HalfHourSlots.format(slot.plusSeconds(HalfHourSlots.SLOT_SECONDS)),
+                    List.of(new Fuel("wind", wind), new Fuel("gas", 100.0 - wind))));
+        }
+
+        IntervalColumns columns = IntervalColumns.fromIntervals(intervals);
+        intervalAnalytics.record(columns, Long.MAX_VALUE);
+        return columns;
+    }
+
+    @Test
+    public void calculateDistribution_ShouldFetchMissingDaysOnlyOnce() {
+
+        when(generationRepository.fetchGeneration(any(), any()))
+                .thenAnswer(invocation -> upstream(invocation.getArgument(0), invocation.getArgument(1)));
+
+        List<EnergyDistribution> actualResult = energyAnalyticsService.calculateDistribution(
+                LocalDate.parse("2025-06-01"), LocalDate.parse("2025-06-10"), "month", "clean");
+
+        assertEquals(1, actualResult.size());
+        assertEquals("JUNE", actualResult.getFirst().group());
+        assertEquals(480, actualResult.getFirst().intervals());
+        assertEquals(1.0, actualResult.getFirst().min());
+        assertEquals(10.0, actualResult.getFirst().max());
+        assertEquals(5.5, actualResult.getFirst().mean(), 1e-9);
+
+        verify(generationRepository).fetchGeneration(
+                Instant.parse("2025-05-31T23:00:00Z"), Instant.parse("2025-06-07T23:00:00Z"));
+        verify(generationRepository).fetchGeneration(
+                Instant.parse("2025-06-07T23:00:00Z"), Instant.parse("2025-06-10T23:00:00Z"));
+
+        energyAnalyticsService.calculateDistribution(
+                LocalDate.parse("2025-06-03"), LocalDate.parse("2025-06-08"), "hour", "wind");
+
+        verify(generationRepository, times(2)).fetchGeneration(any(), any());
+    }
+
+    @Test
+    public void calculateDistribution_ShouldThrowWhenNothingWasRecorded() {
+
+        assertThrows(NoEnergyMixIntervalException.class, () -> energyAnalyticsService.calculateDistribution(
+                LocalDate.parse("2025-07-02"), LocalDate.parse("2025-07-03"), "hour", "clean"));
+
+        verifyNoInteractions(generationRepository);
+    }
+
+    @Test
+    public void calculateDistribution_ShouldRejectInvalidParameters() {
+
+        assertThrows(IllegalArgumentException.class, () -> energyAnalyticsService.calculateDistribution(
+                LocalDate.parse("2025-06-10"), LocalDate.parse("2025-06-01"), "hour", "clean"));
+        assertThrows(IllegalArgumentException.class, () -> energyAnalyticsService.calculateDistribution(
+                LocalDate.parse("2024-01-01"), LocalDate.parse("2025-06-01"), "hour", "clean"));
+        assertThrows(IllegalArgumentException.class, () -> energyAnalyticsService.calculateDistribution(
+                LocalDate.parse("2025-06-01"), LocalDate.parse("2025-06-10"), "minute", "clean"));
+        assertThrows(IllegalArgumentException.class, () -> energyAnalyticsService.calculateDistribution(
+                LocalDate.parse("2025-06-01"), LocalDate.parse("2025-06-10"), "hour", "peat"));
+
+        verifyNoInteractions(generationRepository);
+    }
+}
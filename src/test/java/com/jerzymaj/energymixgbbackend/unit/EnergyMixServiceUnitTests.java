@@ -1,23 +1,38 @@
 package com.jerzymaj.energymixgbbackend.unit;
 
 import com.jerzymaj.energymixgbbackend.DTOs.*;
+import com.jerzymaj.energymixgbbackend.analytics.IntervalAnalytics;
+import com.jerzymaj.energymixgbbackend.cache.ForecastCache;
+import com.jerzymaj.energymixgbbackend.client.CarbonIntensityClient;
+import com.jerzymaj.energymixgbbackend.columnar.FuelWeights;
+import com.jerzymaj.energymixgbbackend.columnar.GenerationStreamDecoder;
 import com.jerzymaj.energymixgbbackend.exceptions.NoEnergyMixIntervalException;
+import com.jerzymaj.energymixgbbackend.metrics.EnergyMetrics;
 import com.jerzymaj.energymixgbbackend.service.EnergyMixService;
+import com.jerzymaj.energymixgbbackend.store.GenerationRepository;
+import com.jerzymaj.energymixgbbackend.store.IntervalFileStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Answers;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.web.client.RestClient;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,7 +41,6 @@ public class EnergyMixServiceUnitTests {
     @Mock(answer = Answers.RETURNS_DEEP_STUBS)
     private RestClient restClient;
 
-    @InjectMocks
     private EnergyMixService energyMixService;
 
     private EnergyMixInterval intervalFirst;
@@ -35,6 +49,8 @@ public class EnergyMixServiceUnitTests {
 
     @BeforeEach
     public void setUp() {
+        energyMixService = serviceAt("2025-12-14T10:00:00Z");
+
         intervalFirst = new EnergyMixInterval(
                 "2025-12-14T12:00:00Z", "2025-12-14T12:30:00Z",
                 List.of(new Fuel("hydro", 30.0), new Fuel("coal", 70.0))
@@ -51,6 +67,23 @@ public class EnergyMixServiceUnitTests {
         );
     }
 
+    private EnergyMixService serviceAt(String instant) {
+        Clock clock = Clock.fixed(Instant.parse(instant), ZoneOffset.UTC);
+        ForecastCache forecastCache = new ForecastCache(clock, 8192, Duration.ofHours(48), Duration.ofMinutes(2),
+                Duration.ofHours(6), Duration.ofSeconds(30));
+        EnergyMetrics metrics = new EnergyMetrics(new SimpleMeterRegistry());
+
+        CarbonIntensityClient carbonIntensityClient =
+                new CarbonIntensityClient(restClient, new GenerationStreamDecoder(), false, Duration.ZERO, 0, metrics);
+
+        GenerationRepository generationRepository = new GenerationRepository(carbonIntensityClient,
+                new IntervalFileStore(false, null), new IntervalAnalytics(List.of("hydro"), 24), clock,
+                Duration.ofHours(2), Duration.ofHours(6));
+
+        return new EnergyMixService(generationRepository, forecastCache, clock,
+                List.of("biomass", "nuclear", "hydro", "wind", "solar"), metrics);
+    }
+
     @Test
     public void calculateThreeDaysSummary_ShouldReturnCorrectData() {
 
@@ -71,6 +104,8 @@ public class EnergyMixServiceUnitTests {
     @Test
     public void calculateOptimalChargingWindow() {
 
+        energyMixService = serviceAt("2025-12-13T10:00:00Z");
+
         EnergyResponse mockedResponse = new EnergyResponse(List.of(intervalFirst, intervalSecond, intervalThird));
 
         when(restClient.get()
@@ -86,6 +121,116 @@ public class EnergyMixServiceUnitTests {
         assertEquals("2025-12-14T13:30:00Z", actualResult.endingDateTime());
     }
 
+    @Test
+    public void calculateThreeDaysSummary_ShouldScoreCustomFuelWeights() {
+
+        EnergyResponse mockedResponse = new EnergyResponse(List.of(intervalFirst));
+
+        when(restClient.get()
+                .uri(anyString(), any(), any())
+                .retrieve()
+                .body(EnergyResponse.class))
+                .thenReturn(mockedResponse);
+
+        List<DailyEnergySummary> defaultResult = energyMixService.calculateThreeDaysSummary();
+        List<DailyEnergySummary> customResult =
+                energyMixService.calculateThreeDaysSummary(FuelWeights.parse(List.of("hydro:1", "coal:0.5")));
+
+        assertEquals(30.0, defaultResult.getFirst().cleanEnergyPercent());
+        assertEquals(65.0, customResult.getFirst().cleanEnergyPercent());
+        verify(restClient.get().uri(anyString(), any(), any()).retrieve(), times(1)).body(EnergyResponse.class);
+    }
+
+    @Test
+    public void calculateOptimalChargingWindow_ShouldScoreCustomCleanTypes() {
+
+        energyMixService = serviceAt("2025-12-13T10:00:00Z");
+
+        EnergyResponse mockedResponse = new EnergyResponse(List.of(intervalFirst, intervalSecond, intervalThird));
+
+        when(restClient.get()
+                .uri(anyString(), any(), any())
+                .retrieve()
+                .body(EnergyResponse.class))
+                .thenReturn(mockedResponse);
+
+        OptimalChargingWindow actualResult =
+                energyMixService.calculateOptimalChargingWindow(1, FuelWeights.ofFuels(List.of("coal")));
+
+        assertEquals(65.0, actualResult.averageCleanEnergyPercent());
+        assertEquals("2025-12-14T12:00:00Z", actualResult.startingDateTime());
+    }
+
+    @Test
+    public void calculateOptimalChargingWindows_ShouldReturnBestWindowPerLength() {
+
+        energyMixService = serviceAt("2025-12-13T10:00:00Z");
+
+        EnergyResponse mockedResponse = new EnergyResponse(List.of(intervalFirst, intervalSecond, intervalThird));
+
+        when(restClient.get()
+                .uri(anyString(), any(), any())
+                .retrieve()
+                .body(EnergyResponse.class))
+                .thenReturn(mockedResponse);
+
+        List<ChargingWindowCurvePoint> actualResult = energyMixService.calculateOptimalChargingWindows(1, 3);
+
+        assertEquals(1, actualResult.size());
+        assertEquals(1, actualResult.getFirst().windowLength());
+        assertEquals(55.0, actualResult.getFirst().averageCleanEnergyPercent());
+        assertEquals("2025-12-14T12:30:00Z", actualResult.getFirst().startingDateTime());
+    }
+
+    @Test
+    public void calculateOptimalChargingWindows_ShouldRejectLengthsLongerThanForecast() {
+
+        assertThrows(IllegalArgumentException.class,
+                () -> energyMixService.calculateOptimalChargingWindows(1, 49));
+        assertThrows(IllegalArgumentException.class,
+                () -> energyMixService.calculateOptimalChargingWindows(1, Integer.MAX_VALUE));
+
+        verifyNoInteractions(restClient);
+    }
+
+    @Test
+    public void calculateTopChargingWindows_ShouldRespectDeadline() {
+
+        energyMixService = serviceAt("2025-12-13T10:00:00Z");
+
+        EnergyResponse mockedResponse = new EnergyResponse(List.of(intervalFirst, intervalSecond, intervalThird));
+
+        when(restClient.get()
+                .uri(anyString(), any(), any())
+                .retrieve()
+                .body(EnergyResponse.class))
+                .thenReturn(mockedResponse);
+
+        List<OptimalChargingWindow> actualResult = energyMixService.calculateTopChargingWindows(1, 3, false,
+                Instant.parse("2025-12-14T12:00:00Z"), Instant.parse("2025-12-14T13:00:00Z"));
+
+        assertEquals(1, actualResult.size());
+        assertEquals(35.0, actualResult.getFirst().averageCleanEnergyPercent());
+        assertEquals("2025-12-14T12:00:00Z", actualResult.getFirst().startingDateTime());
+    }
+
+    @Test
+    public void calculateTopChargingWindows_ShouldRejectDeadlineBeforeStart() {
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            energyMixService.calculateTopChargingWindows(1, 3, true,
+                    Instant.parse("2025-12-15T12:00:00Z"), Instant.parse("2025-12-15T10:00:00Z"));
+        });
+    }
+
+    @Test
+    public void calculateOptimalChargingWindow_ShouldRejectNonPositiveLength() {
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            energyMixService.calculateOptimalChargingWindow(0);
+        });
+    }
+
     @Test
     public void calculateThreeDaysSummary_ShouldThrowException() {
 
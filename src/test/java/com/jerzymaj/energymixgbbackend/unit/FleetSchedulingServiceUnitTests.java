@@ -0,0 +1,148 @@
+package com.jerzymaj.energymixgbbackend.unit;
+
+import com.jerzymaj.energymixgbbackend.DTOs.ChargingRequest;
+import com.jerzymaj.energymixgbbackend.DTOs.ChargingSchedule;
+import com.jerzymaj.energymixgbbackend.DTOs.EnergyMixInterval;
+import com.jerzymaj.energymixgbbackend.DTOs.Fuel;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+import com.jerzymaj.energymixgbbackend.metrics.EnergyMetrics;
+import com.jerzymaj.energymixgbbackend.service.EnergyMixService;
+import com.jerzymaj.energymixgbbackend.service.FleetSchedulingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class FleetSchedulingServiceUnitTests {
+
+    @Mock
+    private EnergyMixService energyMixService;
+
+    private FleetSchedulingService fleetSchedulingService;
+
+    @BeforeEach
+    public void setUp() {
+        Clock clock = Clock.fixed(Instant.parse("2025-12-13T10:00:00Z"), ZoneOffset.UTC);
+
+        fleetSchedulingService = new FleetSchedulingService(energyMixService, clock,
+                List.of("biomass", "nuclear", "hydro", "wind", "solar"), 5000, 4,
+                new EnergyMetrics(new SimpleMeterRegistry()));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        fleetSchedulingService.close();
+    }
+
+    @Test
+    public void prepareSchedule_ShouldSolveAllRequestsAgainstOneSnapshot() {
+
+        when(energyMixService.getEnergyColumns(any(Instant.class), any(Instant.class)))
+                .thenReturn(forecast(10, 90, 80, 20, 70, 60));
+
+        List<ChargingRequest> requests = List.of(
+                new ChargingRequest("van-1", 1, null, null, 40.0),
+                new ChargingRequest("van-2", 1, Instant.parse("2025-12-14T13:00:00Z"), null, null),
+                new ChargingRequest("van-3", 1, null, Instant.parse("2025-12-14T13:00:00Z"), null),
+                new ChargingRequest("van-4", 4, null, null, null),
+                new ChargingRequest("van-5", 0, null, null, null));
+
+        List<ChargingSchedule> results = solve(requests);
+
+        assertEquals(5, results.size());
+
+        assertEquals("2025-12-14T12:30:00Z", results.get(0).startingDateTime());
+        assertEquals(85.0, results.get(0).averageCleanEnergyPercent());
+        assertEquals(34.0, results.get(0).cleanEnergyKwh());
+
+        assertEquals("2025-12-14T14:00:00Z", results.get(1).startingDateTime());
+        assertEquals(65.0, results.get(1).averageCleanEnergyPercent());
+        assertNull(results.get(1).cleanEnergyKwh());
+
+        assertEquals("2025-12-14T12:00:00Z", results.get(2).startingDateTime());
+        assertEquals("2025-12-14T13:00:00Z", results.get(2).endingDateTime());
+
+        assertEquals("No charging window fits between given constraints", results.get(3).error());
+        assertEquals("windowLength must be a positive number of hours", results.get(4).error());
+
+        verify(energyMixService, times(1)).getEnergyColumns(any(Instant.class), any(Instant.class));
+    }
+
+    @Test
+    public void prepareSchedule_ShouldSolveEveryRequestOfLargeBatchInOrder() {
+
+        when(energyMixService.getEnergyColumns(any(Instant.class), any(Instant.class)))
+                .thenReturn(forecast(10, 90, 80, 20, 70, 60));
+
+        List<ChargingRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            requests.add(new ChargingRequest("car-" + i, 1 + i % 2, null, null, null));
+        }
+
+        List<ChargingSchedule> results = solve(requests);
+
+        assertEquals(3000, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            ChargingSchedule result = results.get(i);
+
+            assertEquals(i, result.index());
+            assertEquals("car-" + i, result.vehicleId());
+            assertEquals(result.index() % 2 == 0 ? 85.0 : 65.0, result.averageCleanEnergyPercent());
+        }
+    }
+
+    @Test
+    public void prepareSchedule_ShouldRejectBatchSpanningMoreThanSevenDays() {
+
+        List<ChargingRequest> requests = List.of(
+                new ChargingRequest("van-1", 1, Instant.parse("2025-12-14T00:00:00Z"), null, null),
+                new ChargingRequest("van-2", 1, null, Instant.parse("2025-12-22T00:00:00Z"), null));
+
+        assertThrows(IllegalArgumentException.class, () -> fleetSchedulingService.prepareSchedule(requests));
+    }
+
+    @Test
+    public void prepareSchedule_ShouldRejectNullRequest() {
+
+        List<ChargingRequest> requests = Arrays.asList(new ChargingRequest("van-1", 1, null, null, null), null);
+
+        assertThrows(IllegalArgumentException.class, () -> fleetSchedulingService.prepareSchedule(requests));
+        verifyNoInteractions(energyMixService);
+    }
+
+    private List<ChargingSchedule> solve(List<ChargingRequest> requests) {
+        return fleetSchedulingService.prepareSchedule(requests).solve();
+    }
+
+    private static IntervalColumns forecast(double... windPercents) {
+        List<EnergyMixInterval> intervals = new ArrayList<>();
+        Instant start = Instant.parse("2025-12-14T12:00:00Z");
+
+        for (int i = 0; i < windPercents.length; i++) {
+            intervals.add(new EnergyMixInterval(
+                    start.plusSeconds(1800L * i).toString(), start.plusSeconds(1800L * (i + 1)).toString(),
+                    List.of(new Fuel("wind", windPercents[i]), new Fuel("gas", 100 - windPercents[i]))));
+        }
+        return IntervalColumns.fromIntervals(intervals);
+    }
+}
@@ -0,0 +1,215 @@
+package com.jerzymaj.energymixgbbackend.unit;
+
+import com.jerzymaj.energymixgbbackend.DTOs.EnergyMixInterval;
+import com.jerzymaj.energymixgbbackend.DTOs.Fuel;
+import com.jerzymaj.energymixgbbackend.cache.ForecastCache;
+import com.jerzymaj.energymixgbbackend.cache.HalfHourSlots;
+import com.jerzymaj.energymixgbbackend.cache.ResponseCache;
+import com.jerzymaj.energymixgbbackend.cache.ResponseFormat;
+import com.jerzymaj.energymixgbbackend.cache.SerializedResponse;
+import com.jerzymaj.energymixgbbackend.columnar.FuelDictionary;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ForecastCacheUnitTests {
+
+    private MutableClock clock;
+    private ForecastCache forecastCache;
+    private List<Instant[]> upstreamCalls;
+
+    @BeforeEach
+    public void setUp() {
+        clock = new MutableClock(Instant.parse("2025-12-14T10:05:00Z"));
+        forecastCache = new ForecastCache(clock, 100, Duration.ofHours(24), Duration.ofMinutes(2),
+                Duration.ofHours(6), Duration.ofHours(1));
+        upstreamCalls = new ArrayList<>();
+    }
+
+    private IntervalColumns upstream(Instant from, Instant to) {
+        upstreamCalls.add(new Instant[]{from, to});
+
+        List<EnergyMixInterval> intervals = new ArrayList<>();
+        for (Instant slot = from; slot.isBefore(to); slot = slot.plusSeconds(HalfHourSlots.SLOT_SECONDS)) {
+            intervals.add(new EnergyMixInterval(HalfHourSlots.format(slot),
+                    HalfHourSlots.format(slot.plusSeconds(HalfHourSlots.SLOT_SECONDS)),
+                    List.of(new Fuel("wind", 50.0), new Fuel("gas", 50.0))));
+        }
+        return IntervalColumns.fromIntervals(intervals);
+    }
+
+    @Test
+    public void getIntervals_ShouldFetchOnlyMissingSlots() {
+
+        forecastCache.getIntervals(Instant.parse("2025-12-14T12:00:00Z"), Instant.parse("2025-12-14T14:00:00Z"), this::upstream);
+
+        IntervalColumns actualResult = forecastCache.getIntervals(
+                Instant.parse("2025-12-14T11:00:00Z"), Instant.parse("2025-12-14T15:00:00Z"), this::upstream);
+
+        assertEquals(8, actualResult.size());
+        assertEquals(Instant.parse("2025-12-14T11:00:00Z").getEpochSecond(), actualResult.start(0));
+        assertEquals("2025-12-14T11:00Z", actualResult.toEnergyResponse().data().getFirst().from());
+        assertEquals(3, upstreamCalls.size());
+        assertEquals(Instant.parse("2025-12-14T11:00:00Z"), upstreamCalls.get(1)[0]);
+        assertEquals(Instant.parse("2025-12-14T12:00:00Z"), upstreamCalls.get(1)[1]);
+        assertEquals(Instant.parse("2025-12-14T14:00:00Z"), upstreamCalls.get(2)[0]);
+        assertEquals(Instant.parse("2025-12-14T15:00:00Z"), upstreamCalls.get(2)[1]);
+    }
+
+    @Test
+    public void getIntervals_ShouldExpireForecastAtNextBoundary() {
+
+        Instant from = Instant.parse("2025-12-14T12:00:00Z");
+        Instant to = Instant.parse("2025-12-14T13:00:00Z");
+
+        forecastCache.getIntervals(from, to, this::upstream);
+
+        clock.set(Instant.parse("2025-12-14T10:31:00Z"));
+        forecastCache.getIntervals(from, to, this::upstream);
+        assertEquals(1, upstreamCalls.size());
+
+        clock.set(Instant.parse("2025-12-14T10:32:00Z"));
+        forecastCache.getIntervals(from, to, this::upstream);
+        assertEquals(2, upstreamCalls.size());
+    }
+
+    @Test
+    public void getIntervals_ShouldKeepFinishedSlotsUntilRetention() {
+
+        Instant from = Instant.parse("2025-12-14T08:00:00Z");
+        Instant to = Instant.parse("2025-12-14T09:00:00Z");
+
+        forecastCache.getIntervals(from, to, this::upstream);
+
+        clock.set(Instant.parse("2025-12-14T20:00:00Z"));
+        forecastCache.getIntervals(from, to, this::upstream);
+        assertEquals(1, upstreamCalls.size());
+
+        clock.set(Instant.parse("2025-12-15T09:00:00Z"));
+        forecastCache.getIntervals(Instant.parse("2025-12-15T12:00:00Z"), Instant.parse("2025-12-15T12:30:00Z"), this::upstream);
+        assertEquals(1, forecastCache.size());
+    }
+
+    @Test
+    public void getIntervals_ShouldStayWithinMaxIntervals() {
+
+        forecastCache.getIntervals(Instant.parse("2025-12-14T12:00:00Z"), Instant.parse("2025-12-17T12:00:00Z"), this::upstream);
+
+        assertEquals(100, forecastCache.size());
+    }
+
+    @Test
+    public void getIntervals_ShouldServeStaleSlotsWhenUpstreamFails() {
+
+        Instant from = Instant.parse("2025-12-14T12:00:00Z");
+        Instant to = Instant.parse("2025-12-14T13:00:00Z");
+
+        forecastCache.getIntervals(from, to, this::upstream);
+        clock.set(Instant.parse("2025-12-14T10:32:00Z"));
+
+        IntervalColumns stale = forecastCache.getIntervals(from, to, this::failingUpstream);
+
+        assertEquals(2, stale.size());
+        assertEquals(50.0, stale.percent(FuelDictionary.indexOf("wind"), 0));
+        assertTrue(forecastCache.isServingStale());
+
+        // The background refresh is running, so the next request does not wait for upstream.
+        forecastCache.getIntervals(from, to, this::upstream);
+        assertEquals(1, upstreamCalls.size());
+        assertEquals(4, forecastCache.getStaleCount());
+    }
+
+    @Test
+    public void getIntervals_ShouldPropagateUpstreamFailureWithoutStaleSlots() {
+
+        assertThrows(ResourceAccessException.class, () -> forecastCache.getIntervals(
+                Instant.parse("2025-12-14T12:00:00Z"), Instant.parse("2025-12-14T13:00:00Z"), this::failingUpstream));
+        assertFalse(forecastCache.isServingStale());
+    }
+
+    @Test
+    public void getIntervals_ShouldServeExpiredSlotsWhileRefreshIsAnnounced() {
+
+        Instant from = Instant.parse("2025-12-14T12:00:00Z");
+        Instant to = Instant.parse("2025-12-14T13:00:00Z");
+        long previousVersion = forecastCache.currentForecastVersion();
+
+        forecastCache.getIntervals(from, to, this::upstream);
+        forecastCache.holdExpiredUntil(Instant.parse("2025-12-14T10:33:00Z"));
+        clock.set(Instant.parse("2025-12-14T10:32:10Z"));
+
+        assertEquals(2, forecastCache.getIntervals(from, to, this::failingUpstream).size());
+        assertFalse(forecastCache.isServingStale());
+        assertEquals(0, forecastCache.getStaleCount());
+        assertEquals(previousVersion, forecastCache.currentForecastVersion());
+
+        forecastCache.refresh(from, to, this::upstream);
+        forecastCache.holdExpiredUntil(Instant.MIN);
+
+        assertEquals(2, forecastCache.getIntervals(from, to, this::failingUpstream).size());
+        assertFalse(forecastCache.isServingStale());
+        assertEquals(previousVersion + HalfHourSlots.SLOT_SECONDS, forecastCache.currentForecastVersion());
+        assertEquals(2, upstreamCalls.size());
+    }
+
+    @Test
+    public void responseCache_ShouldKeepServingPreviousResponseWithoutStaleFlagDuringHold() {
+
+        ResponseCache responseCache = new ResponseCache(forecastCache, JsonMapper.builder().build(), clock);
+        Instant from = Instant.parse("2025-12-14T12:00:00Z");
+        Instant to = Instant.parse("2025-12-14T13:00:00Z");
+        AtomicInteger renders = new AtomicInteger();
+        Supplier<Integer> producer = () -> {
+            renders.incrementAndGet();
+            return forecastCache.getIntervals(from, to, this::failingUpstream).size();
+        };
+
+        forecastCache.getIntervals(from, to, this::upstream);
+        SerializedResponse previous = responseCache.get("intervals", ResponseFormat.JSON, producer);
+        forecastCache.holdExpiredUntil(Instant.parse("2025-12-14T10:33:00Z"));
+        clock.set(Instant.parse("2025-12-14T10:32:10Z"));
+
+        SerializedResponse held = responseCache.get("intervals", ResponseFormat.JSON, producer);
+
+        assertFalse(held.stale());
+        assertEquals(previous.eTag(), held.eTag());
+        assertEquals(1, renders.get());
+
+        // Once the hold is released, a failing upstream is stale again.
+        forecastCache.holdExpiredUntil(Instant.MIN);
+
+        assertTrue(responseCache.get("intervals", ResponseFormat.JSON, producer).stale());
+        assertEquals(2, renders.get());
+    }
+
+    @Test
+    public void refresh_ShouldKeepCachedSlotsWhenUpstreamFails() {
+
+        Instant from = Instant.parse("2025-12-14T12:00:00Z");
+        Instant to = Instant.parse("2025-12-14T13:00:00Z");
+
+        forecastCache.getIntervals(from, to, this::upstream);
+
+        assertThrows(ResourceAccessException.class, () -> forecastCache.refresh(from, to, this::failingUpstream));
+        assertEquals(2, forecastCache.getIntervals(from, to, this::failingUpstream).size());
+        assertEquals(1, upstreamCalls.size());
+    }
+
+    private IntervalColumns failingUpstream(Instant from, Instant to) {
+        throw new ResourceAccessException("Read timed out");
+    }
+}
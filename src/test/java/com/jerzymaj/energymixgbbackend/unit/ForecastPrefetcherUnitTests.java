@@ -0,0 +1,97 @@
+package com.jerzymaj.energymixgbbackend.unit;
+
+import com.jerzymaj.energymixgbbackend.DTOs.EnergyMixInterval;
+import com.jerzymaj.energymixgbbackend.DTOs.EnergyResponse;
+import com.jerzymaj.energymixgbbackend.DTOs.Fuel;
+import com.jerzymaj.energymixgbbackend.analytics.IntervalAnalytics;
+import com.jerzymaj.energymixgbbackend.cache.ForecastCache;
+import com.jerzymaj.energymixgbbackend.cache.HalfHourSlots;
+import com.jerzymaj.energymixgbbackend.client.CarbonIntensityClient;
+import com.jerzymaj.energymixgbbackend.columnar.GenerationStreamDecoder;
+import com.jerzymaj.energymixgbbackend.metrics.EnergyMetrics;
+import com.jerzymaj.energymixgbbackend.service.EnergyMixService;
+import com.jerzymaj.energymixgbbackend.service.ForecastPrefetcher;
+import com.jerzymaj.energymixgbbackend.store.GenerationRepository;
+import com.jerzymaj.energymixgbbackend.store.IntervalFileStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ForecastPrefetcherUnitTests {
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private RestClient restClient;
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-12-14T10:05:00Z"));
+    private ForecastCache forecastCache;
+    private EnergyMixService energyMixService;
+    private ForecastPrefetcher forecastPrefetcher;
+
+    @BeforeEach
+    public void setUp() {
+        forecastCache = new ForecastCache(clock, 8192, Duration.ofHours(48), Duration.ofMinutes(2),
+                Duration.ofHours(6), Duration.ofSeconds(30));
+        EnergyMetrics metrics = new EnergyMetrics(new SimpleMeterRegistry());
+
+        CarbonIntensityClient carbonIntensityClient =
+                new CarbonIntensityClient(restClient, new GenerationStreamDecoder(), false, Duration.ZERO, 0, metrics);
+
+        GenerationRepository generationRepository = new GenerationRepository(carbonIntensityClient,
+                new IntervalFileStore(false, null), new IntervalAnalytics(List.of("hydro"), 24), clock,
+                Duration.ofHours(2), Duration.ofHours(6));
+
+        energyMixService = new EnergyMixService(generationRepository, forecastCache, clock,
+                List.of("biomass", "nuclear", "hydro", "wind", "solar"), metrics);
+        forecastPrefetcher = new ForecastPrefetcher(energyMixService, forecastCache, clock, metrics, true,
+                Duration.ZERO, Duration.ofSeconds(30));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        forecastPrefetcher.close();
+    }
+
+    @Test
+    public void prefetch_ShouldRebuildSummaryFromRefreshedForecastVersion() {
+
+        when(restClient.get()
+                .uri(anyString(), any(), any())
+                .retrieve()
+                .body(EnergyResponse.class))
+                .thenReturn(new EnergyResponse(List.of(new EnergyMixInterval(
+                        "2025-12-14T12:00:00Z", "2025-12-14T12:30:00Z",
+                        List.of(new Fuel("hydro", 30.0), new Fuel("coal", 70.0))))));
+
+        assertTrue(forecastPrefetcher.prefetch());
+        long previousVersion = forecastCache.currentForecastVersion();
+        assertEquals(previousVersion, energyMixService.getSummaryForecastVersion());
+
+        // The next refresh is announced before the forecast is published and lands after it.
+        clock.set(Instant.parse("2025-12-14T10:31:00Z"));
+        forecastCache.holdExpiredUntil(Instant.parse("2025-12-14T10:33:00Z"));
+        clock.set(Instant.parse("2025-12-14T10:32:10Z"));
+
+        assertEquals(previousVersion, forecastCache.currentForecastVersion());
+        assertTrue(forecastPrefetcher.prefetch());
+
+        assertEquals(previousVersion + HalfHourSlots.SLOT_SECONDS, forecastCache.currentForecastVersion());
+        assertEquals(forecastCache.currentForecastVersion(), energyMixService.getSummaryForecastVersion());
+    }
+}
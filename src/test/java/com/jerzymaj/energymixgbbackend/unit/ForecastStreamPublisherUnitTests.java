@@ -0,0 +1,127 @@
+package com.jerzymaj.energymixgbbackend.unit;
+
+import com.jerzymaj.energymixgbbackend.DTOs.DailyEnergySummary;
+import com.jerzymaj.energymixgbbackend.DTOs.ForecastUpdate;
+import com.jerzymaj.energymixgbbackend.DTOs.OptimalChargingWindow;
+import com.jerzymaj.energymixgbbackend.cache.ForecastCache;
+import com.jerzymaj.energymixgbbackend.service.EnergyMixService;
+import com.jerzymaj.energymixgbbackend.stream.ForecastStreamPublisher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ForecastStreamPublisherUnitTests {
+
+    @Mock
+    private EnergyMixService energyMixService;
+
+    @Mock
+    private ForecastCache forecastCache;
+
+    private ForecastStreamPublisher publisher;
+
+    private final DailyEnergySummary today = new DailyEnergySummary("2025-12-14", 40.0, Map.of("wind", 40.0));
+    private final DailyEnergySummary tomorrow = new DailyEnergySummary("2025-12-15", 50.0, Map.of("wind", 50.0));
+    private final OptimalChargingWindow window = new OptimalChargingWindow("2025-12-15T02:00Z", "2025-12-15T04:00Z", 70.0);
+
+    @BeforeEach
+    public void setUp() {
+        publisher = new ForecastStreamPublisher(energyMixService, forecastCache, 2, Duration.ofMinutes(30),
+                Duration.ofHours(1), Duration.ofHours(1));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        publisher.close();
+    }
+
+    @Test
+    public void subscribe_ShouldSendSnapshotThenOnlyChanges() throws Exception {
+
+        when(forecastCache.currentForecastVersion()).thenReturn(1_000L);
+        when(energyMixService.calculateThreeDaysSummary()).thenReturn(List.of(today, tomorrow));
+        when(energyMixService.calculateOptimalChargingWindow(2)).thenReturn(window);
+
+        RecordingEmitter emitter = new RecordingEmitter();
+        assertTrue(publisher.subscribe(emitter, 2));
+
+        ForecastUpdate snapshot = emitter.next();
+        assertEquals(1_000L, snapshot.forecastVersion());
+        assertEquals(List.of(today, tomorrow), snapshot.summary());
+        assertEquals(window, snapshot.window());
+
+        DailyEnergySummary revisedTomorrow = new DailyEnergySummary("2025-12-15", 55.0, Map.of("wind", 55.0));
+        when(forecastCache.currentForecastVersion()).thenReturn(2_800L);
+        when(energyMixService.calculateThreeDaysSummary()).thenReturn(List.of(today, revisedTomorrow));
+
+        publisher.refresh();
+
+        ForecastUpdate update = emitter.next();
+        assertEquals(2_800L, update.forecastVersion());
+        assertEquals(List.of(revisedTomorrow), update.summary());
+        assertNull(update.window());
+
+        publisher.refresh();
+
+        assertNull(emitter.events.poll(200, TimeUnit.MILLISECONDS));
+        verify(energyMixService, times(2)).calculateThreeDaysSummary();
+    }
+
+    @Test
+    public void subscribe_ShouldShareSnapshotAndRejectOverCapacity() throws Exception {
+
+        when(forecastCache.currentForecastVersion()).thenReturn(1_000L);
+        when(energyMixService.calculateThreeDaysSummary()).thenReturn(List.of(today));
+        when(energyMixService.calculateOptimalChargingWindow(2)).thenReturn(window);
+
+        assertTrue(publisher.subscribe(new RecordingEmitter(), 2));
+        assertTrue(publisher.subscribe(new RecordingEmitter(), 2));
+        assertFalse(publisher.subscribe(new RecordingEmitter(), 2));
+
+        assertEquals(2, publisher.getSubscriberCount());
+        verify(energyMixService, times(1)).calculateThreeDaysSummary();
+    }
+
+    /**
+     * Collects the payloads instead of writing them to a response.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final BlockingQueue<ForecastUpdate> events = new LinkedBlockingQueue<>();
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            for (ResponseBodyEmitter.DataWithMediaType data : builder.build()) {
+                if (data.getData() instanceof ForecastUpdate update) {
+                    events.add(update);
+                }
+            }
+        }
+
+        ForecastUpdate next() throws InterruptedException {
+            return events.poll(5, TimeUnit.SECONDS);
+        }
+    }
+}
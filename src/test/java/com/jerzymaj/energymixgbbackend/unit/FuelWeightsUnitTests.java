@@ -0,0 +1,66 @@
+package com.jerzymaj.energymixgbbackend.unit;
+
+import com.jerzymaj.energymixgbbackend.DTOs.EnergyMixInterval;
+import com.jerzymaj.energymixgbbackend.DTOs.Fuel;
+import com.jerzymaj.energymixgbbackend.columnar.FuelDictionary;
+import com.jerzymaj.energymixgbbackend.columnar.FuelWeights;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FuelWeightsUnitTests {
+
+    private final IntervalColumns columns = IntervalColumns.fromIntervals(List.of(
+            new EnergyMixInterval("2025-12-14T12:00:00Z", "2025-12-14T12:30:00Z",
+                    List.of(new Fuel("wind", 40.0), new Fuel("nuclear", 20.0), new Fuel("gas", 40.0))),
+            new EnergyMixInterval("2025-12-14T12:30:00Z", "2025-12-14T13:00:00Z",
+                    List.of(new Fuel("wind", 10.0), new Fuel("nuclear", 30.0), new Fuel("gas", 60.0)))
+    ));
+
+    @Test
+    public void weightedSum_ShouldMatchSumPercentsForPlainFuelSet() {
+
+        FuelWeights weights = FuelWeights.fromRequest(List.of("wind", "nuclear"), null);
+
+        assertArrayEquals(columns.sumPercents(FuelDictionary.maskOf(List.of("wind", "nuclear"))),
+                columns.weightedSum(weights), 1e-9);
+    }
+
+    @Test
+    public void weightedSum_ShouldWeightEachFuel() {
+
+        FuelWeights weights = FuelWeights.fromRequest(null, List.of("wind:1", "nuclear:0.5"));
+
+        assertArrayEquals(new double[]{50.0, 25.0}, columns.weightedSum(weights), 1e-9);
+        assertEquals("nuclear:0.5,wind:1.0", weights.key());
+    }
+
+    @Test
+    public void fromRequest_ShouldReturnNullWithoutParameters() {
+
+        assertNull(FuelWeights.fromRequest(null, List.of()));
+    }
+
+    @Test
+    public void fromRequest_ShouldRejectInvalidDefinitions() {
+
+        assertThrows(IllegalArgumentException.class, () -> FuelWeights.fromRequest(List.of("wind"), List.of("wind:1")));
+        assertThrows(IllegalArgumentException.class, () -> FuelWeights.fromRequest(List.of("peat"), null));
+        assertThrows(IllegalArgumentException.class, () -> FuelWeights.fromRequest(null, List.of("wind:1.5")));
+        assertThrows(IllegalArgumentException.class, () -> FuelWeights.fromRequest(null, List.of("wind")));
+        assertThrows(IllegalArgumentException.class, () -> FuelWeights.fromRequest(null, List.of("wind:high")));
+    }
+
+    @Test
+    public void maskOf_ShouldRejectUnknownCleanType() {
+
+        assertEquals(FuelDictionary.maskOf(List.of("wind", "solar")), FuelDictionary.maskOf(List.of(" wind", "solar ")));
+        assertThrows(IllegalArgumentException.class, () -> FuelDictionary.maskOf(List.of("wind", "wnd")));
+    }
+}
@@ -0,0 +1,102 @@
+package com.jerzymaj.energymixgbbackend.unit;
+
+import com.jerzymaj.energymixgbbackend.DTOs.EnergyResponse;
+import com.jerzymaj.energymixgbbackend.columnar.FuelDictionary;
+import com.jerzymaj.energymixgbbackend.columnar.GenerationStreamDecoder;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class GenerationStreamDecoderUnitTests {
+
+    private static final String PAYLOAD = """
+            {"data": [
+              {"from": "2024-02-29T23:30Z", "to": "2024-03-01T00:00Z", "generationmix": [
+                {"fuel": "wind", "perc": 40.5}, {"fuel": "gas", "perc": 30}, {"fuel": "coal", "perc": 0.0},
+                {"fuel": "tidal", "perc": 2.5}, {"fuel": "solar", "perc": 27.0, "note": {"ignored": [1, 2]}}
+              ]},
+              {"to": "2024-03-01T00:30:00Z", "from": "2024-03-01T00:00:00Z", "intensity": {"forecast": 120},
+               "generationmix": [{"perc": 100.0, "fuel": "nuclear"}]}
+            ], "meta": {"source": "test"}}
+            """;
+
+    private final GenerationStreamDecoder decoder = new GenerationStreamDecoder();
+
+    @Test
+    public void decode_ShouldWriteIntervalsIntoColumns() {
+
+        IntervalColumns actualResult = decode(PAYLOAD);
+
+        assertEquals(2, actualResult.size());
+        assertEquals(Instant.parse("2024-02-29T23:30:00Z").getEpochSecond(), actualResult.start(0));
+        assertEquals(Instant.parse("2024-03-01T00:00:00Z").getEpochSecond(), actualResult.start(1));
+        assertEquals(40.5, actualResult.percent(FuelDictionary.indexOf("wind"), 0));
+        assertEquals(2.5, actualResult.percent(FuelDictionary.OTHER, 0));
+        assertEquals(100.0, actualResult.percent(FuelDictionary.indexOf("nuclear"), 1));
+        assertEquals(0.0, actualResult.percent(FuelDictionary.indexOf("wind"), 1));
+    }
+
+    @Test
+    public void decode_ShouldMatchBindingDecode() {
+
+        EnergyResponse bound = JsonMapper.builder().build().readValue(PAYLOAD, EnergyResponse.class);
+        IntervalColumns expectedResult = IntervalColumns.fromIntervals(bound.data());
+
+        IntervalColumns actualResult = decode(PAYLOAD);
+
+        assertEquals(expectedResult.size(), actualResult.size());
+        assertEquals(expectedResult.presentFuels(), actualResult.presentFuels());
+
+        for (int row = 0; row < expectedResult.size(); row++) {
+            assertEquals(expectedResult.start(row), actualResult.start(row));
+            assertEquals(expectedResult.fuels(row), actualResult.fuels(row));
+
+            for (int fuel = 0; fuel < FuelDictionary.SIZE; fuel++) {
+                assertEquals(expectedResult.percent(fuel, row), actualResult.percent(fuel, row));
+            }
+        }
+    }
+
+    @Test
+    public void decode_ShouldReuseBuffersBetweenCalls() {
+
+        decode(PAYLOAD);
+        IntervalColumns actualResult = decode("{\"data\": []}");
+
+        assertEquals(0, actualResult.size());
+        assertEquals(0, decode("").size());
+    }
+
+    @Test
+    public void decode_ShouldNotShareBuffersBetweenConcurrentCalls() throws Exception {
+
+        List<Future<IntervalColumns>> results = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 64; i++) {
+                results.add(executor.submit(() -> decode(PAYLOAD)));
+            }
+        }
+
+        for (Future<IntervalColumns> result : results) {
+            assertEquals(2, result.get().size());
+            assertEquals(40.5, result.get().percent(FuelDictionary.indexOf("wind"), 0));
+            assertEquals(100.0, result.get().percent(FuelDictionary.indexOf("nuclear"), 1));
+        }
+    }
+
+    private IntervalColumns decode(String json) {
+        return decoder.decode(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,114 @@
+package com.jerzymaj.energymixgbbackend.unit;
+
+import com.jerzymaj.energymixgbbackend.DTOs.DailyEnergySummary;
+import com.jerzymaj.energymixgbbackend.DTOs.EnergyMixInterval;
+import com.jerzymaj.energymixgbbackend.DTOs.Fuel;
+import com.jerzymaj.energymixgbbackend.cache.HalfHourSlots;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+import com.jerzymaj.energymixgbbackend.exceptions.NoEnergyMixIntervalException;
+import com.jerzymaj.energymixgbbackend.metrics.EnergyMetrics;
+import com.jerzymaj.energymixgbbackend.service.HistoricalSummaryService;
+import com.jerzymaj.energymixgbbackend.store.GenerationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class HistoricalSummaryServiceUnitTests {
+
+    @Mock
+    private GenerationRepository generationRepository;
+
+    private HistoricalSummaryService historicalSummaryService;
+
+    @BeforeEach
+    public void setUp() {
+        historicalSummaryService = new HistoricalSummaryService(generationRepository,
+                List.of("biomass", "nuclear", "hydro", "wind", "solar"), 7, 2, 366,
+                new EnergyMetrics(new SimpleMeterRegistry()));
+    }
+
+    /**
+     * Upstream stub where the wind share equals the day of month in Europe/London time,
+     * so any interval bucketed into the wrong day changes that day's average.
+     */
+    private IntervalColumns upstream(Instant from, Instant to) {
+        List<EnergyMixInterval> intervals = new ArrayList<>();
+
+        for (Instant slot = from; slot.isBefore(to); slot = slot.plusSeconds(HalfHourSlots.SLOT_SECONDS)) {
+            double wind = LocalDate.ofInstant(slot, ZoneId.of("Europe/London")).getDayOfMonth();
+
+            intervals.add(new EnergyMixInterval(HalfHourSlots.format(slot),
+                    HalfHourSlots.format(slot.plusSeconds(HalfHourSlots.SLOT_SECONDS)),
+                    List.of(new Fuel("wind", wind), new Fuel("gas", 100.0 - wind))));
+        }
+        return IntervalColumns.fromIntervals(intervals);
+    }
+
+    @Test
+    public void calculateRangeSummary_ShouldBucketByLondonDaysAcrossChunks() {
+
+        when(generationRepository.fetchGeneration(any(), any()))
+                .thenAnswer(invocation -> upstream(invocation.getArgument(0), invocation.getArgument(1)));
+
+        List<DailyEnergySummary> actualResult = historicalSummaryService.calculateRangeSummary(
+                LocalDate.parse("2025-06-01"), LocalDate.parse("2025-06-20"));
+
+        assertEquals(20, actualResult.size());
+        for (int day = 0; day < actualResult.size(); day++) {
+            assertEquals(LocalDate.parse("2025-06-01").plusDays(day).toString(), actualResult.get(day).date());
+            assertEquals(day + 1.0, actualResult.get(day).cleanEnergyPercent(), 1e-9);
+        }
+
+        verify(generationRepository).fetchGeneration(
+                Instant.parse("2025-05-31T23:00:00Z"), Instant.parse("2025-06-07T23:00:00Z"));
+        verify(generationRepository, times(3)).fetchGeneration(any(), any());
+    }
+
+    @Test
+    public void calculateRangeSummary_ShouldHandleClockChangeDay() {
+
+        when(generationRepository.fetchGeneration(any(), any()))
+                .thenAnswer(invocation -> upstream(invocation.getArgument(0), invocation.getArgument(1)));
+
+        List<DailyEnergySummary> actualResult = historicalSummaryService.calculateRangeSummary(
+                LocalDate.parse("2025-03-30"), LocalDate.parse("2025-03-30"));
+
+        assertEquals(1, actualResult.size());
+        assertEquals(30.0, actualResult.getFirst().cleanEnergyPercent(), 1e-9);
+    }
+
+    @Test
+    public void calculateRangeSummary_ShouldRejectInvalidRange() {
+
+        assertThrows(IllegalArgumentException.class, () -> historicalSummaryService.calculateRangeSummary(
+                LocalDate.parse("2025-06-02"), LocalDate.parse("2025-06-01")));
+        assertThrows(IllegalArgumentException.class, () -> historicalSummaryService.calculateRangeSummary(
+                LocalDate.parse("2024-01-01"), LocalDate.parse("2025-06-01")));
+    }
+
+    @Test
+    public void calculateRangeSummary_ShouldThrowWhenNoData() {
+
+        when(generationRepository.fetchGeneration(any(), any())).thenReturn(IntervalColumns.EMPTY);
+
+        assertThrows(NoEnergyMixIntervalException.class, () -> historicalSummaryService.calculateRangeSummary(
+                LocalDate.parse("2025-06-01"), LocalDate.parse("2025-06-02")));
+    }
+}
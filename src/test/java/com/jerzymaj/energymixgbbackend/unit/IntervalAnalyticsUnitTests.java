@@ -0,0 +1,224 @@
+package com.jerzymaj.energymixgbbackend.unit;
+
+import com.jerzymaj.energymixgbbackend.DTOs.EnergyDistribution;
+import com.jerzymaj.energymixgbbackend.analytics.AnalyticsGrouping;
+import com.jerzymaj.energymixgbbackend.analytics.IntervalAnalytics;
+import com.jerzymaj.energymixgbbackend.analytics.PercentHistogram;
+import com.jerzymaj.energymixgbbackend.cache.HalfHourSlots;
+import com.jerzymaj.energymixgbbackend.columnar.FuelDictionary;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+import com.jerzymaj.energymixgbbackend.service.DailyAccumulator;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IntervalAnalyticsUnitTests {
+
+    private static final int WIND = FuelDictionary.indexOf("wind");
+    private static final int GAS = FuelDictionary.indexOf("gas");
+    private static final double TOLERANCE = PercentHistogram.BIN_WIDTH + 0.01;
+
+    private static IntervalColumns intervals(LocalDate from, LocalDate to, long seed) {
+        Random random = new Random(seed);
+        IntervalColumns.Builder builder = IntervalColumns.builder(1024);
+
+        for (long start = DailyAccumulator.startOfLondonDay(from); start < DailyAccumulator.startOfLondonDay(to);
+             start += HalfHourSlots.SLOT_SECONDS) {
+            double wind = random.nextInt(1001) / 10.0;
+            int row = builder.addInterval(start);
+
+            builder.addPercent(row, WIND, wind);
+            builder.addPercent(row, GAS, 100 - wind);
+        }
+        return builder.build();
+    }
+
+    private static double exactQuantile(double[] sorted, double quantile) {
+        return sorted[(int) Math.max(0, Math.ceil(quantile * sorted.length) - 1)];
+    }
+
+    @Test
+    public void quantile_ShouldMatchSortedValuesWithinBinWidth() {
+        Random random = new Random(7);
+        PercentHistogram first = new PercentHistogram();
+        PercentHistogram second = new PercentHistogram();
+        double[] values = new double[5000];
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 100 * random.nextDouble() * random.nextDouble();
+            (i % 2 == 0 ? first : second).add(values[i]);
+        }
+        first.merge(second);
+        Arrays.sort(values);
+
+        assertEquals(values.length, first.count());
+        assertEquals(values[0], first.min());
+        assertEquals(values[values.length - 1], first.max());
+        assertEquals(Arrays.stream(values).average().orElseThrow(), first.mean(), 1e-9);
+        for (double quantile : new double[]{0.01, 0.05, 0.25, 0.5, 0.75, 0.95, 0.99}) {
+            assertEquals(exactQuantile(values, quantile), first.quantile(quantile), PercentHistogram.BIN_WIDTH);
+        }
+        assertEquals(values.length, Arrays.stream(first.bandCounts(10)).sum());
+    }
+
+    @Test
+    public void distribution_ShouldMatchRecordedIntervalsForWholeAndPartialMonths() {
+        IntervalAnalytics analytics = new IntervalAnalytics(List.of("wind"), 24);
+        IntervalColumns columns = intervals(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 4, 1), 42);
+        LocalDate from = LocalDate.of(2025, 1, 20);
+        LocalDate to = LocalDate.of(2025, 3, 10);
+
+        analytics.record(columns, Long.MAX_VALUE);
+
+        List<EnergyDistribution> distributions = analytics.distribution(from, to, AnalyticsGrouping.WEEKDAY,
+                IntervalAnalytics.metricOf(IntervalAnalytics.CLEAN_METRIC));
+
+        assertEquals(7, distributions.size());
+        for (int weekday = 0; weekday < 7; weekday++) {
+            List<Double> expected = new ArrayList<>();
+
+            for (int row = 0; row < columns.size(); row++) {
+                LocalDate date = Instant.ofEpochSecond(columns.start(row)).atZone(DailyAccumulator.LONDON).toLocalDate();
+
+                if (!date.isBefore(from) && !date.isAfter(to) && date.getDayOfWeek().ordinal() == weekday) {
+                    expected.add(columns.percent(WIND, row));
+                }
+            }
+            double[] sorted = expected.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+            EnergyDistribution distribution = distributions.get(weekday);
+
+            assertEquals(AnalyticsGrouping.WEEKDAY.label(weekday), distribution.group());
+            assertEquals(sorted.length, distribution.intervals());
+            assertEquals(sorted[0], distribution.min(), 0.01);
+            assertEquals(sorted[sorted.length - 1], distribution.max(), 0.01);
+            assertEquals(exactQuantile(sorted, 0.5), distribution.percentiles().get("p50"), TOLERANCE);
+            assertEquals(exactQuantile(sorted, 0.95), distribution.percentiles().get("p95"), TOLERANCE);
+            assertEquals(sorted.length, distribution.bandCounts().stream().mapToLong(Long::longValue).sum());
+        }
+    }
+
+    @Test
+    public void distribution_ShouldGroupFuelByHourAndMonth() {
+        IntervalAnalytics analytics = new IntervalAnalytics(List.of("wind"), 24);
+        LocalDate from = LocalDate.of(2025, 3, 1);
+        LocalDate to = LocalDate.of(2025, 4, 30);
+
+        analytics.record(intervals(from, to.plusDays(1), 3), Long.MAX_VALUE);
+
+        List<EnergyDistribution> hours = analytics.distribution(from, to, AnalyticsGrouping.HOUR,
+                IntervalAnalytics.metricOf("gas"));
+        List<EnergyDistribution> months = analytics.distribution(from, to, AnalyticsGrouping.MONTH,
+                IntervalAnalytics.metricOf("gas"));
+
+        assertEquals(24, hours.size());
+        assertEquals("07:00", hours.get(7).group());
+        assertEquals(List.of("MARCH", "APRIL"), months.stream().map(EnergyDistribution::group).toList());
+        assertEquals(31 * 48 - 2, months.get(0).intervals());
+        assertEquals(30 * 48, months.get(1).intervals());
+        assertEquals(hours.stream().mapToLong(EnergyDistribution::intervals).sum(),
+                months.stream().mapToLong(EnergyDistribution::intervals).sum());
+    }
+
+    @Test
+    public void record_ShouldSkipUnsettledAndAlreadyRecordedIntervals() {
+        IntervalAnalytics analytics = new IntervalAnalytics(List.of("wind"), 24);
+        LocalDate day = LocalDate.of(2025, 6, 2);
+        IntervalColumns columns = intervals(day, day.plusDays(1), 1);
+        long noon = DailyAccumulator.startOfLondonDay(day) + 24 * HalfHourSlots.SLOT_SECONDS;
+
+        analytics.record(columns, noon);
+
+        assertEquals(24, analytics.getRecordedIntervalCount());
+        assertFalse(analytics.isComplete(day));
+
+        analytics.record(columns, Long.MAX_VALUE);
+        analytics.record(columns, Long.MAX_VALUE);
+
+        assertEquals(48, analytics.getRecordedIntervalCount());
+        assertTrue(analytics.isComplete(day));
+    }
+
+    @Test
+    public void recordGaps_ShouldCompleteDayAndStillRecordIntervalsArrivingLater() {
+        IntervalAnalytics analytics = new IntervalAnalytics(List.of("wind"), 24);
+        LocalDate day = LocalDate.of(2025, 6, 2);
+        IntervalColumns columns = intervals(day, day.plusDays(1), 1);
+        long dayStart = DailyAccumulator.startOfLondonDay(day);
+        long dayEnd = DailyAccumulator.startOfLondonDay(day.plusDays(1));
+        long gapStart = dayStart + 10 * HalfHourSlots.SLOT_SECONDS;
+
+        analytics.record(columns, gapStart);
+        assertFalse(analytics.isComplete(day));
+
+        IntervalColumns.Builder afterGap = IntervalColumns.builder(columns.size());
+        double[] row = new double[FuelDictionary.SIZE];
+        for (int index = 12; index < columns.size(); index++) {
+            columns.copyRow(index, row);
+            afterGap.addRow(columns.start(index), row, columns.fuels(index));
+        }
+        analytics.record(afterGap.build(), Long.MAX_VALUE);
+        analytics.recordGaps(afterGap.build(), gapStart, dayEnd);
+
+        assertEquals(46, analytics.getRecordedIntervalCount());
+        assertTrue(analytics.isComplete(day));
+
+        analytics.record(columns, Long.MAX_VALUE);
+
+        assertEquals(48, analytics.getRecordedIntervalCount());
+        assertTrue(analytics.isComplete(day));
+    }
+
+    @Test
+    public void record_ShouldSkipFuelsMissingFromAnInterval() {
+        IntervalAnalytics analytics = new IntervalAnalytics(List.of("wind"), 24);
+        LocalDate day = LocalDate.of(2025, 6, 2);
+        IntervalColumns.Builder builder = IntervalColumns.builder(48);
+
+        for (int slot = 0; slot < 48; slot++) {
+            int row = builder.addInterval(DailyAccumulator.startOfLondonDay(day) + slot * HalfHourSlots.SLOT_SECONDS);
+
+            builder.addPercent(row, WIND, 50.0);
+            if (slot < 12) {
+                builder.addPercent(row, GAS, 50.0);
+            }
+        }
+        analytics.record(builder.build(), Long.MAX_VALUE);
+
+        List<EnergyDistribution> gas = analytics.distribution(day, day, AnalyticsGrouping.MONTH,
+                IntervalAnalytics.metricOf("gas"));
+
+        assertEquals(12, gas.getFirst().intervals());
+        assertEquals(50.0, gas.getFirst().min());
+    }
+
+    @Test
+    public void distribution_ShouldDropLeastRecentlyUsedMonths() {
+        IntervalAnalytics analytics = new IntervalAnalytics(List.of("wind"), 2);
+        LocalDate january = LocalDate.of(2025, 1, 1);
+
+        analytics.record(intervals(january, january.plusMonths(3), 5), Long.MAX_VALUE);
+
+        assertFalse(analytics.isComplete(january));
+        assertTrue(analytics.isComplete(january.plusMonths(2)));
+        assertTrue(analytics.distribution(january, january.plusMonths(1).minusDays(1), AnalyticsGrouping.HOUR,
+                IntervalAnalytics.metricOf("wind")).isEmpty());
+    }
+
+    @Test
+    public void metricOf_ShouldRejectUnknownMetric() {
+        assertEquals(0, IntervalAnalytics.metricOf(IntervalAnalytics.CLEAN_METRIC));
+        assertEquals(WIND + 1, IntervalAnalytics.metricOf("wind"));
+        assertThrows(IllegalArgumentException.class, () -> IntervalAnalytics.metricOf("peat"));
+        assertThrows(IllegalArgumentException.class, () -> AnalyticsGrouping.parse("minute"));
+    }
+}
@@ -0,0 +1,260 @@
+package com.jerzymaj.energymixgbbackend.unit;
+
+import com.jerzymaj.energymixgbbackend.DTOs.EnergyMixInterval;
+import com.jerzymaj.energymixgbbackend.DTOs.Fuel;
+import com.jerzymaj.energymixgbbackend.analytics.IntervalAnalytics;
+import com.jerzymaj.energymixgbbackend.cache.HalfHourSlots;
+import com.jerzymaj.energymixgbbackend.client.CarbonIntensityClient;
+import com.jerzymaj.energymixgbbackend.columnar.FuelDictionary;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+import com.jerzymaj.energymixgbbackend.store.GenerationRepository;
+import com.jerzymaj.energymixgbbackend.store.IntervalFileStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IntervalFileStoreUnitTests {
+
+    private static final long MIDNIGHT = Instant.parse("2025-12-14T00:00:00Z").getEpochSecond();
+    private static final long MARKED_AT = MIDNIGHT + 12 * 1800;
+
+    @TempDir
+    private Path directory;
+
+    private static IntervalColumns intervals(long from, long to) {
+        List<EnergyMixInterval> intervals = new ArrayList<>();
+
+        for (long slot = from; slot < to; slot += HalfHourSlots.SLOT_SECONDS) {
+            double wind = (slot - MIDNIGHT) / HalfHourSlots.SLOT_SECONDS;
+
+            intervals.add(new EnergyMixInterval(HalfHourSlots.format(Instant.ofEpochSecond(slot)),
+                    HalfHourSlots.format(Instant.ofEpochSecond(slot + HalfHourSlots.SLOT_SECONDS)),
+                    List.of(new Fuel("wind", wind), new Fuel("gas", 100.0 - wind))));
+        }
+        return IntervalColumns.fromIntervals(intervals);
+    }
+
+    private static IntervalColumns read(IntervalFileStore store, long from, long to) {
+        IntervalColumns.Builder builder = IntervalColumns.builder(16);
+        store.read(from, to, builder);
+        return builder.build();
+    }
+
+    @Test
+    public void read_ShouldReturnAppendedIntervalsInOrder() {
+        IntervalFileStore store = new IntervalFileStore(true, directory.resolve("generation.store"));
+
+        store.append(intervals(MIDNIGHT + 4 * 1800, MIDNIGHT + 8 * 1800), MIDNIGHT + 4 * 1800, MIDNIGHT + 8 * 1800,
+                MARKED_AT);
+        store.append(intervals(MIDNIGHT, MIDNIGHT + 4 * 1800), MIDNIGHT, MIDNIGHT + 4 * 1800, MARKED_AT);
+
+        IntervalColumns result = read(store, MIDNIGHT + 2 * 1800, MIDNIGHT + 6 * 1800);
+
+        assertEquals(4, result.size());
+        assertEquals(MIDNIGHT + 2 * 1800, result.start(0));
+        assertEquals(5.0, result.percent(FuelDictionary.indexOf("wind"), 3));
+        assertEquals(95.0, result.percent(FuelDictionary.indexOf("gas"), 3));
+        assertTrue(FuelDictionary.contains(result.presentFuels(), FuelDictionary.indexOf("gas")));
+        assertFalse(FuelDictionary.contains(result.presentFuels(), FuelDictionary.indexOf("coal")));
+
+        store.close();
+    }
+
+    @Test
+    public void read_ShouldKeepFuelsOfEachInterval() {
+        IntervalFileStore store = new IntervalFileStore(true, directory.resolve("generation.store"));
+        IntervalColumns.Builder builder = IntervalColumns.builder(2);
+        int first = builder.addInterval(MIDNIGHT);
+        builder.addPercent(first, FuelDictionary.indexOf("wind"), 40.0);
+        builder.addPercent(first, FuelDictionary.indexOf("coal"), 60.0);
+        int second = builder.addInterval(MIDNIGHT + 1800);
+        builder.addPercent(second, FuelDictionary.indexOf("wind"), 100.0);
+
+        store.append(builder.build(), MIDNIGHT, MIDNIGHT + 2 * 1800, MARKED_AT);
+        IntervalColumns result = read(store, MIDNIGHT, MIDNIGHT + 2 * 1800);
+
+        assertTrue(FuelDictionary.contains(result.fuels(0), FuelDictionary.indexOf("coal")));
+        assertFalse(FuelDictionary.contains(result.fuels(1), FuelDictionary.indexOf("coal")));
+        assertTrue(FuelDictionary.contains(result.fuels(1), FuelDictionary.indexOf("wind")));
+
+        store.close();
+    }
+
+    @Test
+    public void append_ShouldMarkSlotsWithoutDataAndSkipThemOnRead() {
+        IntervalFileStore store = new IntervalFileStore(true, directory.resolve("generation.store"));
+
+        store.append(intervals(MIDNIGHT, MIDNIGHT + 2 * 1800), MIDNIGHT, MIDNIGHT + 4 * 1800, MARKED_AT);
+
+        assertEquals(4, store.size());
+        assertTrue(store.contains(MIDNIGHT + 3 * 1800, MARKED_AT));
+        assertFalse(store.contains(MIDNIGHT + 3 * 1800, MARKED_AT + 1));
+        assertTrue(store.contains(MIDNIGHT + 1800, Long.MAX_VALUE));
+        assertEquals(2, read(store, MIDNIGHT, MIDNIGHT + 4 * 1800).size());
+
+        store.close();
+    }
+
+    @Test
+    public void append_ShouldSupersedeMarkedSlotsAcrossRestart() {
+        Path path = directory.resolve("generation.store");
+
+        IntervalFileStore store = new IntervalFileStore(true, path);
+        store.append(intervals(MIDNIGHT, MIDNIGHT + 2 * 1800), MIDNIGHT, MIDNIGHT + 4 * 1800, MARKED_AT);
+        store.append(intervals(MIDNIGHT + 2 * 1800, MIDNIGHT + 3 * 1800), MIDNIGHT + 2 * 1800, MIDNIGHT + 4 * 1800,
+                MARKED_AT + 3600);
+        store.close();
+
+        IntervalFileStore reopened = new IntervalFileStore(true, path);
+
+        assertEquals(4, reopened.size());
+        assertEquals(3, read(reopened, MIDNIGHT, MIDNIGHT + 4 * 1800).size());
+        assertTrue(reopened.contains(MIDNIGHT + 2 * 1800, Long.MAX_VALUE));
+        assertTrue(reopened.contains(MIDNIGHT + 3 * 1800, MARKED_AT + 3600));
+        assertFalse(reopened.contains(MIDNIGHT + 3 * 1800, MARKED_AT + 3601));
+
+        reopened.close();
+    }
+
+    @Test
+    public void open_ShouldRestoreIntervalsWrittenBeforeRestart() {
+        Path path = directory.resolve("generation.store");
+
+        IntervalFileStore store = new IntervalFileStore(true, path);
+        store.append(intervals(MIDNIGHT, MIDNIGHT + 48 * 1800), MIDNIGHT, MIDNIGHT + 48 * 1800, MARKED_AT);
+        store.close();
+
+        IntervalFileStore reopened = new IntervalFileStore(true, path);
+        IntervalColumns result = read(reopened, MIDNIGHT, MIDNIGHT + 48 * 1800);
+
+        assertEquals(48, reopened.size());
+        assertEquals(48, result.size());
+        assertEquals(47.0, result.percent(FuelDictionary.indexOf("wind"), 47));
+
+        reopened.close();
+    }
+
+    @Test
+    public void fetchGeneration_ShouldOnlyRequestSlotsMissingFromStoreAndRecentSlots() {
+        IntervalFileStore store = new IntervalFileStore(true, directory.resolve("generation.store"));
+        store.append(intervals(MIDNIGHT + 4 * 1800, MIDNIGHT + 8 * 1800), MIDNIGHT + 4 * 1800, MIDNIGHT + 8 * 1800,
+                MARKED_AT);
+
+        List<long[]> upstreamCalls = new ArrayList<>();
+        CarbonIntensityClient client = mock(CarbonIntensityClient.class);
+        when(client.fetchGeneration(any(Instant.class), any(Instant.class))).thenAnswer(invocation -> {
+            long from = invocation.<Instant>getArgument(0).getEpochSecond();
+            long to = invocation.<Instant>getArgument(1).getEpochSecond();
+            upstreamCalls.add(new long[]{from, to});
+            return intervals(from, to);
+        });
+
+        Clock clock = Clock.fixed(Instant.ofEpochSecond(MIDNIGHT + 12 * 1800), ZoneOffset.UTC);
+        GenerationRepository repository = new GenerationRepository(client, store,
+                new IntervalAnalytics(List.of("wind", "solar"), 24), clock, Duration.ofHours(2), Duration.ofHours(6));
+
+        IntervalColumns result = repository.fetchGeneration(Instant.ofEpochSecond(MIDNIGHT),
+                Instant.ofEpochSecond(MIDNIGHT + 16 * 1800));
+
+        assertEquals(16, result.size());
+        for (int row = 0; row < result.size(); row++) {
+            assertEquals(MIDNIGHT + row * 1800L, result.start(row));
+            assertEquals(row, result.percent(FuelDictionary.indexOf("wind"), row));
+        }
+
+        assertEquals(2, upstreamCalls.size());
+        assertEquals(MIDNIGHT, upstreamCalls.get(0)[0]);
+        assertEquals(MIDNIGHT + 4 * 1800, upstreamCalls.get(0)[1]);
+        assertEquals(MIDNIGHT + 8 * 1800, upstreamCalls.get(1)[0]);
+        assertEquals(MIDNIGHT + 16 * 1800, upstreamCalls.get(1)[1]);
+        assertEquals(8, store.size());
+
+        repository.fetchGeneration(Instant.ofEpochSecond(MIDNIGHT), Instant.ofEpochSecond(MIDNIGHT + 8 * 1800));
+        assertEquals(2, upstreamCalls.size());
+
+        store.close();
+    }
+
+    @Test
+    public void fetchGeneration_ShouldRequestGapsAgainAfterRetryInterval() {
+        IntervalFileStore store = new IntervalFileStore(true, directory.resolve("generation.store"));
+        store.append(intervals(MIDNIGHT, MIDNIGHT + 2 * 1800), MIDNIGHT, MIDNIGHT + 4 * 1800, MARKED_AT);
+
+        List<long[]> upstreamCalls = new ArrayList<>();
+        CarbonIntensityClient client = mock(CarbonIntensityClient.class);
+        when(client.fetchGeneration(any(Instant.class), any(Instant.class))).thenAnswer(invocation -> {
+            long from = invocation.<Instant>getArgument(0).getEpochSecond();
+            long to = invocation.<Instant>getArgument(1).getEpochSecond();
+            upstreamCalls.add(new long[]{from, to});
+            return intervals(from, to);
+        });
+
+        Clock withinRetry = Clock.fixed(Instant.ofEpochSecond(MARKED_AT + 3600), ZoneOffset.UTC);
+        new GenerationRepository(client, store, new IntervalAnalytics(List.of("wind"), 24), withinRetry,
+                Duration.ofHours(2), Duration.ofHours(6))
+                .fetchGeneration(Instant.ofEpochSecond(MIDNIGHT), Instant.ofEpochSecond(MIDNIGHT + 4 * 1800));
+
+        assertEquals(0, upstreamCalls.size());
+
+        Clock afterRetry = Clock.fixed(Instant.ofEpochSecond(MARKED_AT + 7 * 3600), ZoneOffset.UTC);
+        IntervalColumns result = new GenerationRepository(client, store, new IntervalAnalytics(List.of("wind"), 24),
+                afterRetry, Duration.ofHours(2), Duration.ofHours(6))
+                .fetchGeneration(Instant.ofEpochSecond(MIDNIGHT), Instant.ofEpochSecond(MIDNIGHT + 4 * 1800));
+
+        assertEquals(1, upstreamCalls.size());
+        assertEquals(MIDNIGHT + 2 * 1800, upstreamCalls.getFirst()[0]);
+        assertEquals(MIDNIGHT + 4 * 1800, upstreamCalls.getFirst()[1]);
+        assertEquals(4, result.size());
+        assertTrue(store.contains(MIDNIGHT + 3 * 1800, Long.MAX_VALUE));
+
+        store.close();
+    }
+
+    @Test
+    public void fetchGeneration_ShouldCountStoredGapsTowardsCompleteDay() {
+        IntervalFileStore store = new IntervalFileStore(true, directory.resolve("generation.store"));
+        long dayEnd = MIDNIGHT + 48 * 1800;
+
+        CarbonIntensityClient client = mock(CarbonIntensityClient.class);
+        when(client.fetchGeneration(any(Instant.class), any(Instant.class))).thenAnswer(invocation -> {
+            long from = invocation.<Instant>getArgument(0).getEpochSecond();
+            long to = invocation.<Instant>getArgument(1).getEpochSecond();
+            IntervalColumns all = intervals(from, to);
+            IntervalColumns.Builder withoutGap = IntervalColumns.builder(all.size());
+            double[] row = new double[FuelDictionary.SIZE];
+
+            for (int index = 0; index < all.size(); index++) {
+                if (all.start(index) < MIDNIGHT + 10 * 1800 || all.start(index) >= MIDNIGHT + 12 * 1800) {
+                    all.copyRow(index, row);
+                    withoutGap.addRow(all.start(index), row, all.fuels(index));
+                }
+            }
+            return withoutGap.build();
+        });
+
+        IntervalAnalytics analytics = new IntervalAnalytics(List.of("wind"), 24);
+        Clock clock = Clock.fixed(Instant.ofEpochSecond(dayEnd + 4 * 3600), ZoneOffset.UTC);
+        new GenerationRepository(client, store, analytics, clock, Duration.ofHours(2), Duration.ofHours(6))
+                .fetchGeneration(Instant.ofEpochSecond(MIDNIGHT), Instant.ofEpochSecond(dayEnd));
+
+        assertEquals(46, analytics.getRecordedIntervalCount());
+        assertTrue(analytics.isComplete(LocalDate.of(2025, 12, 14)));
+
+        store.close();
+    }
+}
@@ -0,0 +1,192 @@
+package com.jerzymaj.energymixgbbackend.unit;
+
+import com.jerzymaj.energymixgbbackend.DTOs.RegionalChargingWindow;
+import com.jerzymaj.energymixgbbackend.DTOs.RegionalEnergySummary;
+import com.jerzymaj.energymixgbbackend.analytics.IntervalAnalytics;
+import com.jerzymaj.energymixgbbackend.cache.ForecastCache;
+import com.jerzymaj.energymixgbbackend.cache.HalfHourSlots;
+import com.jerzymaj.energymixgbbackend.client.CarbonIntensityClient;
+import com.jerzymaj.energymixgbbackend.client.DnoRegion;
+import com.jerzymaj.energymixgbbackend.columnar.GenerationStreamDecoder;
+import com.jerzymaj.energymixgbbackend.configuration.RestClientConfig;
+import com.jerzymaj.energymixgbbackend.metrics.EnergyMetrics;
+import com.jerzymaj.energymixgbbackend.service.EnergyMixService;
+import com.jerzymaj.energymixgbbackend.service.RegionalEnergyService;
+import com.jerzymaj.energymixgbbackend.store.GenerationRepository;
+import com.jerzymaj.energymixgbbackend.store.IntervalFileStore;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs against a local HTTP stub of the regional Carbon Intensity endpoint which answers every region
+ * after {@link #REGION_LATENCY}, with a clean share of five times the region id.
+ */
+public class RegionalEnergyServiceUnitTests {
+
+    private static final Duration REGION_LATENCY = Duration.ofMillis(200);
+
+    private HttpServer upstream;
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final AtomicInteger inFlightCalls = new AtomicInteger();
+    private final AtomicInteger peakInFlightCalls = new AtomicInteger();
+    private volatile int failingRegion = -1;
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-12-13T10:00:00Z"));
+    private CarbonIntensityClient carbonIntensityClient;
+    private RegionalEnergyService regionalEnergyService;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        upstream = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        upstream.createContext("/regional/intensity/", this::answerRegion);
+        upstream.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        upstream.start();
+
+        RestClient restClient = new RestClientConfig().restClient(
+                "http://127.0.0.1:" + upstream.getAddress().getPort(), Duration.ofSeconds(2), Duration.ofSeconds(5));
+
+        ForecastCache forecastCache = new ForecastCache(clock, 8192, Duration.ofHours(48), Duration.ofMinutes(2),
+                Duration.ofHours(6), Duration.ofSeconds(30));
+        EnergyMetrics metrics = new EnergyMetrics(new SimpleMeterRegistry());
+
+        carbonIntensityClient = new CarbonIntensityClient(restClient, new GenerationStreamDecoder(), true,
+                Duration.ZERO, 0, metrics);
+        EnergyMixService energyMixService = new EnergyMixService(
+                new GenerationRepository(carbonIntensityClient, new IntervalFileStore(false, null),
+                        new IntervalAnalytics(List.of("wind"), 24), clock, Duration.ofHours(2), Duration.ofHours(6)),
+                forecastCache, clock, List.of("biomass", "nuclear", "hydro", "wind", "solar"), metrics);
+
+        regionalEnergyService = new RegionalEnergyService(carbonIntensityClient, energyMixService, forecastCache, clock);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        upstream.stop(0);
+        carbonIntensityClient.close();
+    }
+
+    @Test
+    public void calculateRegionalThreeDaysSummary_ShouldFanOutToAllRegionsConcurrently() {
+
+        List<RegionalEnergySummary> actualResult = regionalEnergyService.calculateRegionalThreeDaysSummary();
+
+        assertEquals(DnoRegion.values().length, actualResult.size());
+        assertEquals(DnoRegion.values().length, upstreamCalls.get());
+        assertTrue(peakInFlightCalls.get() > DnoRegion.values().length / 2,
+                "at most " + peakInFlightCalls.get() + " regions were fetched at the same time");
+
+        RegionalEnergySummary london = actualResult.get(DnoRegion.LONDON.ordinal());
+        assertEquals(13, london.regionId());
+        assertEquals("UKPN London", london.dnoRegion());
+        assertEquals(3, london.days().size());
+        assertEquals(65.0, london.days().getFirst().cleanEnergyPercent(), 1e-9);
+    }
+
+    @Test
+    public void calculateRegionalOptimalChargingWindows_ShouldCacheEachRegion() {
+
+        List<RegionalChargingWindow> first = regionalEnergyService.calculateRegionalOptimalChargingWindows(2);
+        List<RegionalChargingWindow> second = regionalEnergyService.calculateRegionalOptimalChargingWindows(3);
+
+        assertEquals(DnoRegion.values().length, first.size());
+        assertEquals(DnoRegion.values().length, upstreamCalls.get());
+        assertEquals(5.0, first.getFirst().window().averageCleanEnergyPercent(), 1e-9);
+        assertEquals(70.0, second.getLast().window().averageCleanEnergyPercent(), 1e-9);
+        assertEquals("2025-12-14T00:00Z", second.getLast().window().startingDateTime());
+    }
+
+    @Test
+    public void calculateRegionalThreeDaysSummary_ShouldPropagateRegionFailure() {
+
+        failingRegion = DnoRegion.YORKSHIRE.id();
+
+        assertThrows(RuntimeException.class, () -> regionalEnergyService.calculateRegionalThreeDaysSummary());
+    }
+
+    @Test
+    public void isServingStale_ShouldReportRegionServedFromStaleSlots() {
+
+        regionalEnergyService.calculateRegionalThreeDaysSummary();
+        assertFalse(regionalEnergyService.isServingStale());
+
+        failingRegion = DnoRegion.YORKSHIRE.id();
+        clock.set(Instant.parse("2025-12-13T10:40:00Z"));
+
+        List<RegionalEnergySummary> actualResult = regionalEnergyService.calculateRegionalThreeDaysSummary();
+
+        assertEquals(DnoRegion.values().length, actualResult.size());
+        assertEquals(2 * DnoRegion.values().length, upstreamCalls.get());
+        assertTrue(regionalEnergyService.isServingStale());
+    }
+
+    /**
+     * Answers {@code /regional/intensity/{from}/{to}/regionid/{regionId}} with one interval per half hour.
+     */
+    private void answerRegion(HttpExchange exchange) throws IOException {
+        upstreamCalls.incrementAndGet();
+
+        String[] path = URLDecoder.decode(exchange.getRequestURI().getRawPath(), StandardCharsets.UTF_8).split("/");
+        Instant from = HalfHourSlots.parse(path[3]);
+        Instant to = HalfHourSlots.parse(path[4]);
+        int regionId = Integer.parseInt(path[6]);
+
+        peakInFlightCalls.accumulateAndGet(inFlightCalls.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(REGION_LATENCY);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlightCalls.decrementAndGet();
+        }
+
+        if (regionId == failingRegion) {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+            return;
+        }
+
+        StringBuilder intervals = new StringBuilder();
+        for (Instant slot = from; slot.isBefore(to); slot = slot.plusSeconds(HalfHourSlots.SLOT_SECONDS)) {
+            if (!intervals.isEmpty()) {
+                intervals.append(',');
+            }
+            intervals.append("""
+                    {"from":"%s","to":"%s","intensity":{"forecast":120,"index":"moderate"},
+                     "generationmix":[{"fuel":"wind","perc":%d},{"fuel":"gas","perc":%d}]}"""
+                    .formatted(HalfHourSlots.format(slot),
+                            HalfHourSlots.format(slot.plusSeconds(HalfHourSlots.SLOT_SECONDS)),
+                            regionId * 5, 100 - regionId * 5));
+        }
+
+        byte[] body = """
+                {"data":{"regionid":%d,"dnoregion":"Region %d","shortname":"Region %d","data":[%s]}}"""
+                .formatted(regionId, regionId, regionId, intervals).getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream response = exchange.getResponseBody()) {
+            response.write(body);
+        }
+    }
+}
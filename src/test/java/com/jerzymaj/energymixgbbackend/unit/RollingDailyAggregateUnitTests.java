@@ -0,0 +1,188 @@
+package com.jerzymaj.energymixgbbackend.unit;
+
+import com.jerzymaj.energymixgbbackend.DTOs.DailyEnergySummary;
+import com.jerzymaj.energymixgbbackend.columnar.FuelDictionary;
+import com.jerzymaj.energymixgbbackend.columnar.IntervalColumns;
+import com.jerzymaj.energymixgbbackend.service.DailyAccumulator;
+import com.jerzymaj.energymixgbbackend.service.RollingDailyAggregate;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class RollingDailyAggregateUnitTests {
+
+    private static final LocalDate FIRST_DAY = LocalDate.parse("2025-12-14");
+    private static final long CLEAN_FUELS = FuelDictionary.maskOf(List.of("wind", "solar"));
+    private static final long REPORTED_FUELS = FuelDictionary.maskOf(List.of("wind", "solar", "gas"));
+
+    @Test
+    public void update_ShouldMatchFullRecomputeAfterChangedIntervals() {
+
+        double[][] rows = randomRows(144, new Random(11));
+        RollingDailyAggregate aggregate = new RollingDailyAggregate();
+
+        assertEquals(144, update(aggregate, rows, 0, FIRST_DAY, 1));
+
+        Random random = new Random(12);
+        for (int row : new int[]{3, 50, 51, 100, 143}) {
+            rows[row] = randomRow(random);
+        }
+
+        assertEquals(5, update(aggregate, rows, 0, FIRST_DAY, 2));
+        assertSummariesEqual(fullRecompute(columns(rows, 0), FIRST_DAY), aggregate.summaries(FIRST_DAY, 3));
+    }
+
+    @Test
+    public void update_ShouldOnlyReportFuelsOfTheDaysTheyWereReportedOn() {
+
+        double[][] rows = randomRows(96, new Random(31));
+        long start = DailyAccumulator.startOfLondonDay(FIRST_DAY);
+        IntervalColumns.Builder builder = IntervalColumns.builder(rows.length);
+
+        for (int row = 0; row < rows.length; row++) {
+            long fuels = REPORTED_FUELS;
+
+            if (row >= 48) {
+                rows[row][FuelDictionary.indexOf("coal")] = 1.0;
+                fuels |= FuelDictionary.maskOf(List.of("coal"));
+            }
+            builder.addRow(start + row * 1800L, rows[row], fuels);
+        }
+
+        RollingDailyAggregate aggregate = new RollingDailyAggregate();
+        IntervalColumns columns = builder.build();
+        aggregate.update(columns, columns.sumPercents(CLEAN_FUELS), FIRST_DAY, 2, 1);
+
+        List<DailyEnergySummary> actualResult = aggregate.summaries(FIRST_DAY, 2);
+
+        assertFalse(actualResult.get(0).fuelSpec().containsKey("coal"));
+        assertEquals(1.0, actualResult.get(1).fuelSpec().get("coal"), 1e-9);
+    }
+
+    @Test
+    public void update_ShouldRetireEndedDaysOnRollover() {
+
+        RollingDailyAggregate aggregate = new RollingDailyAggregate();
+        double[][] rows = randomRows(144, new Random(21));
+
+        update(aggregate, rows, 0, FIRST_DAY, 1);
+
+        double[][] nextRows = new double[144][];
+        System.arraycopy(rows, 48, nextRows, 0, 96);
+        System.arraycopy(randomRows(48, new Random(22)), 0, nextRows, 96, 48);
+
+        LocalDate nextDay = FIRST_DAY.plusDays(1);
+
+        assertEquals(48, update(aggregate, nextRows, 48, nextDay, 2));
+        assertEquals(List.of(), aggregate.summaries(FIRST_DAY, 1));
+        assertSummariesEqual(fullRecompute(columns(nextRows, 48), nextDay), aggregate.summaries(nextDay, 3));
+    }
+
+    @Test
+    public void update_ShouldSubtractIntervalsMissingFromNewerForecast() {
+
+        RollingDailyAggregate aggregate = new RollingDailyAggregate();
+        double[][] rows = randomRows(144, new Random(31));
+
+        update(aggregate, rows, 0, FIRST_DAY, 1);
+
+        double[][] shorterRows = new double[100][];
+        System.arraycopy(rows, 0, shorterRows, 0, 100);
+
+        assertEquals(44, update(aggregate, shorterRows, 0, FIRST_DAY, 2));
+
+        List<DailyEnergySummary> summaries = aggregate.summaries(FIRST_DAY, 3);
+        assertEquals(3, summaries.size());
+        assertSummariesEqual(fullRecompute(columns(shorterRows, 0), FIRST_DAY), summaries);
+    }
+
+    @Test
+    public void summariesIfCurrent_ShouldOnlyAnswerForAppliedVersionAndDay() {
+
+        RollingDailyAggregate aggregate = new RollingDailyAggregate();
+        double[][] rows = randomRows(48, new Random(41));
+
+        assertNull(aggregate.summariesIfCurrent(-1, FIRST_DAY, 3));
+
+        update(aggregate, rows, 0, FIRST_DAY, 7);
+
+        assertNotNull(aggregate.summariesIfCurrent(7, FIRST_DAY, 3));
+        assertNull(aggregate.summariesIfCurrent(8, FIRST_DAY, 3));
+        assertNull(aggregate.summariesIfCurrent(7, FIRST_DAY.plusDays(1), 3));
+
+        update(aggregate, rows, 0, FIRST_DAY, -1);
+
+        assertNull(aggregate.summariesIfCurrent(7, FIRST_DAY, 3));
+    }
+
+    private static int update(RollingDailyAggregate aggregate, double[][] rows, int firstSlot, LocalDate firstDay,
+                              long forecastVersion) {
+        IntervalColumns columns = columns(rows, firstSlot);
+        return aggregate.update(columns, columns.sumPercents(CLEAN_FUELS), firstDay, 3, forecastVersion);
+    }
+
+    private static List<DailyEnergySummary> fullRecompute(IntervalColumns columns, LocalDate firstDay) {
+        DailyAccumulator[] days = {new DailyAccumulator(), new DailyAccumulator(), new DailyAccumulator()};
+
+        DailyAccumulator.accumulateLondonDays(columns, columns.sumPercents(CLEAN_FUELS), firstDay, days);
+
+        List<DailyEnergySummary> summaries = new ArrayList<>();
+        for (int day = 0; day < days.length; day++) {
+            if (!days[day].isEmpty()) {
+                summaries.add(days[day].toSummary(firstDay.plusDays(day).toString()));
+            }
+        }
+        return summaries;
+    }
+
+    private static void assertSummariesEqual(List<DailyEnergySummary> expected, List<DailyEnergySummary> actual) {
+        assertEquals(expected.size(), actual.size());
+
+        for (int day = 0; day < expected.size(); day++) {
+            assertEquals(expected.get(day).date(), actual.get(day).date());
+            assertEquals(expected.get(day).cleanEnergyPercent(), actual.get(day).cleanEnergyPercent(), 1e-9);
+            assertEquals(expected.get(day).fuelSpec().keySet(), actual.get(day).fuelSpec().keySet());
+
+            for (String fuel : expected.get(day).fuelSpec().keySet()) {
+                assertEquals(expected.get(day).fuelSpec().get(fuel), actual.get(day).fuelSpec().get(fuel), 1e-9);
+            }
+        }
+    }
+
+    private static IntervalColumns columns(double[][] rows, int firstSlot) {
+        long start = DailyAccumulator.startOfLondonDay(FIRST_DAY) + firstSlot * 1800L;
+        IntervalColumns.Builder builder = IntervalColumns.builder(rows.length);
+
+        for (int row = 0; row < rows.length; row++) {
+            builder.addRow(start + row * 1800L, rows[row], REPORTED_FUELS);
+        }
+        return builder.build();
+    }
+
+    private static double[][] randomRows(int count, Random random) {
+        double[][] rows = new double[count][];
+        for (int row = 0; row < count; row++) {
+            rows[row] = randomRow(random);
+        }
+        return rows;
+    }
+
+    private static double[] randomRow(Random random) {
+        double[] row = new double[FuelDictionary.SIZE];
+        double wind = random.nextInt(60);
+        double solar = random.nextInt(100 - (int) wind);
+
+        row[FuelDictionary.indexOf("wind")] = wind;
+        row[FuelDictionary.indexOf("solar")] = solar;
+        row[FuelDictionary.indexOf("gas")] = 100 - wind - solar;
+        return row;
+    }
+}
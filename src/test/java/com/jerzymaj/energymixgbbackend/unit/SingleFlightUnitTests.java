@@ -0,0 +1,106 @@
+package com.jerzymaj.energymixgbbackend.unit;
+
+import com.jerzymaj.energymixgbbackend.cache.SingleFlight;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SingleFlightUnitTests {
+
+    @Test
+    public void execute_ShouldShareOneCallBetweenConcurrentCallers() throws Exception {
+
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+
+        List<Future<Integer>> results = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(callers)) {
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("range", () -> {
+                    executions.incrementAndGet();
+                    await(release);
+                    return 42;
+                })));
+            }
+
+            while (singleFlight.getCoalescedCalls() < callers - 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            for (Future<Integer> result : results) {
+                assertEquals(42, result.get(5, TimeUnit.SECONDS));
+            }
+        }
+
+        assertEquals(1, executions.get());
+        assertEquals(callers - 1, singleFlight.getCoalescedCalls());
+        assertEquals(0, singleFlight.getInFlightCount());
+    }
+
+    @Test
+    public void execute_ShouldRunAgainAfterPreviousCallCompleted() {
+
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger executions = new AtomicInteger();
+
+        singleFlight.execute("range", executions::incrementAndGet);
+        singleFlight.execute("range", executions::incrementAndGet);
+
+        assertEquals(2, executions.get());
+        assertEquals(0, singleFlight.getCoalescedCalls());
+    }
+
+    @Test
+    public void execute_ShouldPropagateFailureToWaitingCallers() throws Exception {
+
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            Future<Integer> first = executor.submit(() -> singleFlight.execute("range", () -> {
+                await(release);
+                throw new IllegalStateException("upstream failed");
+            }));
+
+            while (singleFlight.getInFlightCount() == 0) {
+                Thread.onSpinWait();
+            }
+
+            Future<Integer> second = executor.submit(() -> singleFlight.execute("range", () -> 1));
+
+            while (singleFlight.getCoalescedCalls() == 0) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            Exception firstFailure = assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS));
+            Exception secondFailure = assertThrows(Exception.class, () -> second.get(5, TimeUnit.SECONDS));
+
+            assertTrue(firstFailure.getCause() instanceof IllegalStateException);
+            assertTrue(secondFailure.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}